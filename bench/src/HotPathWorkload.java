@@ -0,0 +1,215 @@
+import benchmarks.Workload;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Class HotPathWorkload
+ *
+ * Encapsulates a headless colony on which the benchmarks exercise the hot
+ * paths of the simulation.  A square around the colony entrance is explored,
+ * with food from a seeded world generator, and ants are added to it in
+ * proportion to its area: half foragers, a quarter soldiers and a quarter
+ * balas.  Each bala is placed with a forager, so that it has prey.
+ *
+ * Each operation is applied to the ants or nodes in turn, so that a
+ * measurement covers the whole colony rather than a single ant.
+ *
+ * @author Camron Khan
+ */
+public class HotPathWorkload implements Workload {
+
+    /************
+     * Constants
+     ************/
+
+    // Seed of the random numbers and of the world generator
+    private static final long SEED = 1;
+
+    // Timing of the model; the clock is never run
+    private static final int MS_PER_TURN = 1000;
+    private static final int TURNS_PER_DAY = 10;
+
+    // Largest side of the square explored around the colony entrance
+    private static final int EXPLORED_MAX = 128;
+
+    // Shares of the added ants, in percent; the rest are balas
+    private static final int FORAGER_SHARE = 50;
+    private static final int SOLDIER_SHARE = 25;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // The colony
+    private SimModel model;
+
+    // Explored nodes
+    private Node[] explored;
+
+    // Ants on which the operations are performed
+    private ForagerAnt[] foragers;
+    private SoldierAnt[] soldiers;
+    private BalaAnt[] hunters;
+
+    // Position of the next ant or node to be used
+    private int nextForager;
+    private int nextSoldier;
+    private int nextHunter;
+    private int nextNode;
+
+    // Node where ants are created and removed
+    private Node churnNode;
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Override
+    public void setUp(int gridSize, double density) {
+
+        // Create a colony without a GUI
+        model = new SimModel(gridSize, gridSize, MS_PER_TURN, TURNS_PER_DAY, true);
+        RandomNumber.setSeed(SEED);
+        model.setWorldGenerator(new WorldGenerator(SEED));
+        model.initSimModel();
+
+        explore(Math.min(gridSize, EXPLORED_MAX));
+        populate(Math.max((int)(density * explored.length), 4));
+
+        // Bring the lists of visited adjacent nodes up to date
+        model.nodeHandler();
+
+        // Each forager came from the node it is in, so that it has a last
+        // visited node
+        for(int i = 0; i < foragers.length; i++)
+            foragers[i].moveStack.push(foragers[i].hereNode);
+
+        // Ants churn at the colony entrance
+        churnNode = model.getQueen().hereNode;
+    }
+
+    @Override
+    public Object forage() {
+
+        ForagerAnt ant = foragers[nextForager];
+        nextForager = (nextForager + 1) % foragers.length;
+
+        return ant.forage(ant.hereNode);
+    }
+
+    @Override
+    public Object soldierChooseNextNode() {
+
+        SoldierAnt ant = soldiers[nextSoldier];
+        nextSoldier = (nextSoldier + 1) % soldiers.length;
+
+        return ant.chooseNextNode(ant.hereNode);
+    }
+
+    @Override
+    public Object balaFindPrey() {
+
+        BalaAnt ant = hunters[nextHunter];
+        nextHunter = (nextHunter + 1) % hunters.length;
+
+        return ant.findPrey(ant.hereNode, ant.hereNode.getAntsPresent(), model.getAntTypes());
+    }
+
+    @Override
+    public Object nodePerformActions() {
+
+        Node node = explored[nextNode];
+        nextNode = (nextNode + 1) % explored.length;
+
+        node.performActions();
+
+        return node;
+    }
+
+    @Override
+    public void nodeHandler() {
+        model.nodeHandler();
+    }
+
+    @Override
+    public Object churn() {
+
+        // The forager takes the next ID
+        int id = model.getNextAntID();
+        model.createAnt(model.FORAGER, churnNode);
+
+        ForagerAnt ant = model.getForager(id);
+        ant.die();
+
+        return ant;
+    }
+
+    /**
+     * Responsible for revealing a square centred on the colony entrance, as
+     * scouts would
+     *
+     * @param side      Number of nodes along each side of the square
+     */
+    private void explore(int side) {
+
+        int rows = model.getRows();
+        int cols = model.getCols();
+        int firstRow = (rows - side) / 2;
+        int firstCol = (cols - side) / 2;
+
+        WorldGenerator generator = model.getWorldGenerator();
+        explored = new Node[side * side];
+
+        for(int r = 0; r < side; r++) {
+            for(int c = 0; c < side; c++) {
+
+                Node node = model.getNode(firstRow + r, firstCol + c);
+
+                // The colony entrance is already revealed
+                if(!node.getVisited()) {
+                    node.setFoodAmount(node.getPosition(), generator.getFood(node.getRow(), node.getCol()));
+                    node.setVisited(node.getPosition(), true);
+                }
+
+                explored[r * side + c] = node;
+            }
+        }
+    }
+
+    /**
+     * Responsible for adding ants to the explored nodes, and collecting the
+     * ants on which the operations are performed
+     *
+     * @param count     Number of ants to be added
+     */
+    private void populate(int count) {
+
+        int numForager = Math.max(count * FORAGER_SHARE / 100, 1);
+        int numSoldier = Math.max(count * SOLDIER_SHARE / 100, 1);
+        int numBala = Math.max(count - numForager - numSoldier, 1);
+
+        for(int i = 0; i < numForager; i++)
+            model.createAnt(model.FORAGER, explored[RandomNumber.get(explored.length)]);
+
+        for(int i = 0; i < numSoldier; i++)
+            model.createAnt(model.SOLDIER, explored[RandomNumber.get(explored.length)]);
+
+        foragers = (ForagerAnt[])model.getAntMap(model.FORAGER).values().toArray(new ForagerAnt[0]);
+        soldiers = (SoldierAnt[])model.getAntMap(model.SOLDIER).values().toArray(new SoldierAnt[0]);
+
+        // Each bala joins a forager
+        for(int i = 0; i < numBala; i++)
+            model.createAnt(model.BALA, foragers[RandomNumber.get(foragers.length)].hereNode);
+
+        // Only balas sharing a node with prey select prey
+        HashMap<Integer, BalaAnt> balaMap = model.getAntMap(model.BALA);
+        ArrayList<BalaAnt> withPrey = new ArrayList<>();
+        for(BalaAnt bala : balaMap.values()) {
+            if(bala.preyCheck(bala.hereNode))
+                withPrey.add(bala);
+        }
+        hunters = withPrey.toArray(new BalaAnt[0]);
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class SimulationBenchmark
+ *
+ * Microbenchmarks of the hot paths of a turn: ant movement and prey
+ * selection, the nodes' own turn, and the creation and removal of ants.
+ *
+ * The colony is recreated before each iteration, as the operations measured
+ * change it (foragers take food, nodes lose pheromone), and is deterministic
+ * for a given grid size and density.
+ *
+ * Run with "ant bench", or select benchmarks and parameters with, for
+ * example, ant bench -Dbench.args="forage -p gridSize=500"
+ *
+ * @author Camron Khan
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationBenchmark {
+
+    /*************
+     * Attributes
+     *************/
+
+    // Number of rows and columns in the grid
+    @Param({"27", "100", "500"})
+    public int gridSize;
+
+    // Ants added per explored node
+    @Param({"0.1", "1.0"})
+    public double density;
+
+    // The colony being measured
+    private Workload workload;
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        workload = Workload.create(gridSize, density);
+    }
+
+    @Benchmark
+    public Object forage() {
+        return workload.forage();
+    }
+
+    @Benchmark
+    public Object soldierChooseNextNode() {
+        return workload.soldierChooseNextNode();
+    }
+
+    @Benchmark
+    public Object balaFindPrey() {
+        return workload.balaFindPrey();
+    }
+
+    @Benchmark
+    public Object nodePerformActions() {
+        return workload.nodePerformActions();
+    }
+
+    @Benchmark
+    public void nodeHandler() {
+        workload.nodeHandler();
+    }
+
+    @Benchmark
+    public Object churn() {
+        return workload.churn();
+    }
+}
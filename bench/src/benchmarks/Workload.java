@@ -0,0 +1,91 @@
+package benchmarks;
+
+/**
+ * Interface Workload
+ *
+ * Encapsulates the operations measured by the benchmarks.  JMH does not accept
+ * benchmarks in the default package, and classes in a named package cannot
+ * refer to the simulation's classes, so the benchmarks reach the simulation
+ * through this interface, implemented in the default package by
+ * HotPathWorkload.  Each call site sees a single implementation, so the
+ * interface calls are inlined by the JIT and add nothing to the measurements.
+ *
+ * @author Camron Khan
+ */
+public interface Workload {
+
+    // Name of the class implementing the workload
+    String IMPLEMENTATION = "HotPathWorkload";
+
+    /**
+     * Returns a new workload on a colony of the given size and density
+     *
+     * @param gridSize  Number of rows and columns in the grid
+     * @param density   Ants added per explored node
+     * @return          The workload
+     */
+    static Workload create(int gridSize, double density) {
+
+        Workload workload;
+
+        try {
+            workload = (Workload)Class.forName(IMPLEMENTATION).newInstance();
+        }
+        catch(ReflectiveOperationException e) {
+            throw new IllegalStateException("Error in Workload: cannot create " + IMPLEMENTATION, e);
+        }
+
+        workload.setUp(gridSize, density);
+
+        return workload;
+    }
+
+    /**
+     * Responsible for creating the colony
+     *
+     * @param gridSize  Number of rows and columns in the grid
+     * @param density   Ants added per explored node
+     */
+    void setUp(int gridSize, double density);
+
+    /**
+     * Responsible for the next forager choosing where to forage
+     *
+     * @return      The node chosen
+     */
+    Object forage();
+
+    /**
+     * Responsible for the next soldier choosing where to move
+     *
+     * @return      The node chosen
+     */
+    Object soldierChooseNextNode();
+
+    /**
+     * Responsible for the next bala sharing a node with prey selecting its
+     * prey
+     *
+     * @return      The prey chosen
+     */
+    Object balaFindPrey();
+
+    /**
+     * Responsible for advancing the next explored node by one turn
+     *
+     * @return      The node
+     */
+    Object nodePerformActions();
+
+    /**
+     * Responsible for advancing every node by one turn
+     */
+    void nodeHandler();
+
+    /**
+     * Responsible for creating a forager and removing it again
+     *
+     * @return      The forager
+     */
+    Object churn();
+}
@@ -0,0 +1,131 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Class AllocationCounter
+ *
+ * Mimics a static class giving access to the JVM's count of the bytes
+ * allocated by the current thread, kept by HotSpot and exposed through
+ * com.sun.management.ThreadMXBean.  The count is exact, not sampled, so the
+ * allocation of a single turn, or a single phase of one, may be measured.
+ *
+ * On some JVMs reading the count itself allocates a few bytes (an array to
+ * hold the result); the number is measured once and reported by getCost(),
+ * to be subtracted from each measurement.
+ *
+ * @author Camron Khan
+ */
+public final class AllocationCounter {
+
+    /************
+     * Constants
+     ************/
+
+    // Number of pairs of readings from which the cost of a reading is taken
+    private static final int CALIBRATION_READS = 16;
+
+    // The JVM's counter, or null if it does not count allocation per thread
+    private static final com.sun.management.ThreadMXBean THREADS = getThreads();
+
+    // Bytes allocated by reading the counter
+    private static final long COST = calibrate();
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Mimic a static class by declaring the constructor to be private
+     */
+    private AllocationCounter() {
+        System.out.println("Do not create instances of AllocationCounter!");
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Returns whether the JVM counts the bytes allocated by each thread
+     *
+     * @return      True if counted; false otherwise
+     */
+    public static boolean isSupported() {
+        return THREADS != null;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread since it
+     * started
+     *
+     * @return      Number of bytes, or 0 if allocation is not counted
+     */
+    public static long get() {
+
+        if(THREADS == null)
+            return 0;
+
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Get the number of bytes allocated by a call to get(), which is included
+     * in the difference between two consecutive calls
+     *
+     * @return      Number of bytes
+     */
+    public static long getCost() {
+        return COST;
+    }
+
+    /**
+     * Returns the JVM's counter, enabling it
+     *
+     * @return      The counter, or null if the JVM does not count allocation
+     *              per thread
+     */
+    private static com.sun.management.ThreadMXBean getThreads() {
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if(!(threads instanceof com.sun.management.ThreadMXBean))
+            return null;
+
+        com.sun.management.ThreadMXBean counter = (com.sun.management.ThreadMXBean)threads;
+        if(!counter.isThreadAllocatedMemorySupported())
+            return null;
+
+        try {
+            counter.setThreadAllocatedMemoryEnabled(true);
+        }
+        catch(UnsupportedOperationException e) {
+            return null;
+        }
+
+        return counter;
+    }
+
+    /**
+     * Returns the number of bytes allocated by reading the counter: the
+     * least difference between consecutive readings
+     *
+     * @return      Number of bytes
+     */
+    private static long calibrate() {
+
+        if(THREADS == null)
+            return 0;
+
+        long cost = Long.MAX_VALUE;
+
+        for(int i = 0; i < CALIBRATION_READS; i++) {
+            long first = get();
+            long second = get();
+            cost = Math.min(cost, second - first);
+        }
+
+        return Math.max(cost, 0);
+    }
+}
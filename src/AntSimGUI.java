@@ -1,4 +1,5 @@
 import java.awt.BorderLayout;
+import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Toolkit;
@@ -10,11 +11,19 @@ import java.util.Iterator;
 import java.util.LinkedList;
 
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.SpringLayout;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 /**
  *	class AntSimGUI
@@ -32,7 +41,10 @@ public class AntSimGUI extends JFrame
 	 ************/
 	
 	// view for colony
-	private ColonyView colonyView;
+	private JComponent colonyView;
+	
+	// heatmap overview of colony, or null if none
+	private HeatmapView heatmapView;
 	
 	// scroll pane for colonyView
 	private JScrollPane colonyPane;
@@ -102,12 +114,46 @@ public class AntSimGUI extends JFrame
 	 *	initialize this GUI
 	 *
 	 *	a control panel and scrollable pane for displaying the specified
-	 *	ColonyView will be created and added to this GUI
+	 *	ColonyView (or ColonyCanvas) will be created and added to this GUI
+	 *
+	 *	@param	colonyView		the ColonyView to be displayed
+	 */
+	public void initGUI(JComponent colonyView)
+	{
+		initGUI(colonyView, null);
+	}
+	
+	
+	/**
+	 *	initialize this GUI
+	 *
+	 *	as above, with the option of replacing the colony view by a heatmap
+	 *	overview of the colony
+	 *
+	 *	@param	colonyView		the ColonyView to be displayed
+	 *	@param	heatmapView		the HeatmapView to be offered, or null
+	 */
+	public void initGUI(JComponent colonyView, HeatmapView heatmapView)
+	{
+		initGUI(colonyView, heatmapView, null);
+	}
+	
+	
+	/**
+	 *	initialize this GUI
+	 *
+	 *	as above, with a minimap of the colony beside the colony view
 	 *
 	 *	@param	colonyView		the ColonyView to be displayed
+	 *	@param	heatmapView		the HeatmapView to be offered, or null
+	 *	@param	minimapView		the MinimapView to be displayed, or null
 	 */
-	public void initGUI(ColonyView colonyView)
+	public void initGUI(JComponent colonyView, HeatmapView heatmapView, MinimapView minimapView)
 	{
+		// keep both views so that the user can switch between them
+		this.colonyView = colonyView;
+		this.heatmapView = heatmapView;
+		
 		// create button control panel
 		controlPanel = new ControlPanel();
 		
@@ -119,11 +165,38 @@ public class AntSimGUI extends JFrame
 		getContentPane().add(controlPanel, BorderLayout.NORTH);
 		getContentPane().add(colonyPane, BorderLayout.CENTER);
 		
+		// add minimap, which scrolls the colony view
+		if (minimapView != null)
+		{
+			minimapView.setViewport(colonyPane.getViewport(), colonyView);
+			getContentPane().add(minimapView, BorderLayout.EAST);
+		}
+		
 		// validate all components
 		validate();
 	}
 	
 	
+	/**
+	 *	show the colony view or a layer of the heatmap
+	 *
+	 *	@param	selection		0 for the colony view; otherwise one more than
+	 *							the heatmap layer to be shown
+	 */
+	private void showView(int selection)
+	{
+		if (selection <= 0 || heatmapView == null)
+		{
+			colonyPane.setViewportView(colonyView);
+		}
+		else
+		{
+			heatmapView.setLayer(selection - 1);
+			colonyPane.setViewportView(heatmapView);
+		}
+	}
+	
+	
 	/**
 	 *	set window size based on user's screen settings
 	 *
@@ -148,11 +221,39 @@ public class AntSimGUI extends JFrame
 	/**
 	 *	set the current simulation time
 	 *
+	 *	may be called from any thread; the label is updated on the event
+	 *	dispatch thread
+	 *
 	 *	@param	time		String indicating simulation time in terms of days and turns
 	 */
-	public void setTime(String time)
+	public void setTime(final String time)
+	{
+		if (SwingUtilities.isEventDispatchThread())
+		{
+			controlPanel.setTime(time);
+		}
+		else
+		{
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					controlPanel.setTime(time);
+				}
+			});
+		}
+	}
+	
+	
+	/**
+	 *	set the clock's measured performance
+	 *
+	 *	must be called on the event dispatch thread
+	 *
+	 *	@param	status		String describing the clock's performance
+	 *	@param	behind		true if the simulation is falling behind
+	 */
+	public void setStatus(String status, boolean behind)
 	{
-		controlPanel.setTime(time);		
+		controlPanel.setStatus(status, behind);
 	}
 	
 	
@@ -185,9 +286,22 @@ public class AntSimGUI extends JFrame
 	 *							SimulationEvent class for allowable types)
 	 */
 	private void fireSimulationEvent(int eventType)
+	{
+		fireSimulationEvent(eventType, 0);
+	}
+	
+	
+	/**
+	 *	fire a simulation event carrying a value
+	 *
+	 *	@param	eventType		the type of event that occurred (see the
+	 *							SimulationEvent class for allowable types)
+	 *	@param	value			value associated with the event
+	 */
+	private void fireSimulationEvent(int eventType, int value)
 	{
 		// create event
-		SimulationEvent simEvent = new SimulationEvent(this, eventType);
+		SimulationEvent simEvent = new SimulationEvent(this, eventType, value);
 		
 		// inform all listeners
 		for (Iterator itr = simulationEventListenerList.iterator(); itr.hasNext(); )
@@ -232,6 +346,21 @@ public class AntSimGUI extends JFrame
 		// button for running the simulation one turn at a time
 		private JButton stepButton;
 		
+		// check box for running many turns between screen refreshes
+		private JCheckBox turboBox;
+		
+		// number of turns per screen refresh in turbo mode
+		private JSpinner ticksPerFrameSpinner;
+		
+		// check box for letting the clock choose turns per screen refresh
+		private JCheckBox adaptiveBox;
+		
+		// combo box for choosing between the colony view and heatmap layers
+		private JComboBox<String> viewBox;
+		
+		// label for displaying the clock's measured performance
+		private JLabel statusLabel;
+		
 		// label for displaying the time in the simulation
 		private JLabel timeLabel;
 		
@@ -302,6 +431,53 @@ public class AntSimGUI extends JFrame
 			stepButton.addActionListener(buttonHandler);
 			stepButton.setToolTipText("Step through the simulation one turn at a time");
 			
+			// check box for turbo mode
+			turboBox = new JCheckBox("Turbo");
+			turboBox.setToolTipText("Run many turns between screen refreshes");
+			turboBox.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					fireSimulationEvent(SimulationEvent.TURBO_EVENT,
+					                    turboBox.isSelected() ? 1 : 0);
+				}
+			});
+			
+			// spinner for turns per screen refresh in turbo mode
+			ticksPerFrameSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 1000000, 10));
+			ticksPerFrameSpinner.setToolTipText("Turns per screen refresh in turbo mode (0 = as many as fit)");
+			ticksPerFrameSpinner.addChangeListener(new ChangeListener() {
+				public void stateChanged(ChangeEvent e) {
+					fireSimulationEvent(SimulationEvent.TICKS_PER_FRAME_EVENT,
+					                    (Integer)ticksPerFrameSpinner.getValue());
+				}
+			});
+			
+			// check box for adaptive mode
+			adaptiveBox = new JCheckBox("Adaptive");
+			adaptiveBox.setToolTipText("Choose turns per screen refresh automatically to hold the frame rate, up to the set turn rate");
+			adaptiveBox.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					fireSimulationEvent(SimulationEvent.ADAPTIVE_EVENT,
+					                    adaptiveBox.isSelected() ? 1 : 0);
+				}
+			});
+			
+			// combo box for choosing the colony view or a heatmap layer
+			viewBox = new JComboBox<String>();
+			viewBox.addItem("Nodes");
+			for (int i = 0; i < HeatmapView.LAYER_NAMES.length; i++)
+				viewBox.addItem(HeatmapView.LAYER_NAMES[i] + " Heatmap");
+			viewBox.setToolTipText("Show the colony, or a heatmap overview of one layer");
+			viewBox.setEnabled(heatmapView != null);
+			viewBox.addActionListener(new ActionListener() {
+				public void actionPerformed(ActionEvent e) {
+					showView(viewBox.getSelectedIndex());
+				}
+			});
+			
+			// label for displaying the clock's measured performance
+			statusLabel = new JLabel();
+			statusLabel.setFont(new Font("Verdana", Font.PLAIN, 10));
+			
 			// label for displaying simulation time
 			timeLabel = new JLabel();
 			timeLabel.setFont(new Font("Verdana", Font.BOLD, 12));
@@ -320,7 +496,12 @@ public class AntSimGUI extends JFrame
 			this.add(soldierTestButton);
 			this.add(runButton);
 			this.add(stepButton);
+			this.add(turboBox);
+			this.add(ticksPerFrameSpinner);
+			this.add(adaptiveBox);
+			this.add(viewBox);
 			this.add(timeLabel);
+			this.add(statusLabel);
 		}
 	
 	
@@ -335,6 +516,19 @@ public class AntSimGUI extends JFrame
 		}
 	
 	
+		/**
+	 	 *	set the clock's measured performance
+	 	 *
+	 	 *	@param	status		String describing the clock's performance
+	 	 *	@param	behind		true if the simulation is falling behind
+	 	 */
+		public void setStatus(String status, boolean behind)
+		{
+			statusLabel.setText("     " + status);
+			statusLabel.setForeground(behind ? Color.RED : Color.BLACK);
+		}
+	
+	
 		/**
 		 *	inner class ButtonHandler
 		 *
@@ -104,7 +104,7 @@ public class BalaAnt extends OffensiveAnt implements TimeDependent {
         hereNode.setNumBala(hereNode.getPosition(), currentBala);
         
         // Remove from node's ID list
-        hereNode.getAntsPresent().remove(ID);
+        hereNode.removeAnt(ID);
         
         // Remove from environment
         MODEL.destroyAnt(ID, TYPE);
@@ -279,6 +279,7 @@ public class BalaAnt extends OffensiveAnt implements TimeDependent {
         
             // If successful, queen dies
             if(random == 0) {
+                MODEL.antKilled();
                 queen.die();
             }
         }
@@ -294,6 +295,7 @@ public class BalaAnt extends OffensiveAnt implements TimeDependent {
         
             // If successful, forager dies
             if(random == 0) {
+                MODEL.antKilled();
                 forager.die();
             }
         }
@@ -309,6 +311,7 @@ public class BalaAnt extends OffensiveAnt implements TimeDependent {
         
             // If successful, scout dies
             if(random == 0) {
+                MODEL.antKilled();
                 scout.die();
             }
         }
@@ -324,6 +327,7 @@ public class BalaAnt extends OffensiveAnt implements TimeDependent {
         
             // If successful, soldier dies
             if(random == 0) {
+                MODEL.antKilled();
                 soldier.die();
             }
         }
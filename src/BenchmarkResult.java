@@ -0,0 +1,267 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Class BenchmarkResult
+ *
+ * Encapsulates the measurements of a benchmark scenario, and their JSON form.
+ * A result is written as a single flat JSON object, so results may be read
+ * back from a report (or a baseline) without a JSON library.
+ *
+ * @author Camron Khan
+ */
+public class BenchmarkResult {
+
+    /************
+     * Constants
+     ************/
+
+    // Names of the measurements in JSON
+    public static final String TICKS_PER_SECOND = "ticksPerSecond";
+    public static final String ALLOCATED_PER_TICK = "allocatedBytesPerTick";
+    public static final String P99_TICK = "p99TickNanos";
+    public static final String PEAK_RSS = "peakRssBytes";
+
+    // Suffix of the bytes allocated per turn by a phase, after its name
+    public static final String PHASE_ALLOCATED_SUFFIX = "AllocatedBytesPerTick";
+
+    // A flat JSON object naming a scenario, and a number within one
+    private static final Pattern OBJECT = Pattern.compile("\\{[^{}]*\"name\"\\s*:\\s*\"([^\"]*)\"[^{}]*\\}");
+    private static final Pattern NUMBER = Pattern.compile("\"(\\w+)\"\\s*:\\s*(-?[0-9.eE+-]+)");
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Name of the scenario
+    private String name;
+
+    // Measurements by name, in the order they are written
+    private LinkedHashMap<String, Double> values;
+
+    // Names of the measurements which regressed from the baseline
+    private ArrayList<String> regressions;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a result without measurements
+     *
+     * @param name      Name of the scenario
+     */
+    public BenchmarkResult(String name) {
+        this.name = name;
+        values = new LinkedHashMap<>();
+        regressions = new ArrayList<>();
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Get the name of the scenario
+     *
+     * @return      The name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Responsible for setting a measurement
+     *
+     * @param key       Name of the measurement
+     * @param value     The value
+     */
+    public void put(String key, double value) {
+        values.put(key, value);
+    }
+
+    /**
+     * Get a measurement
+     *
+     * @param key       Name of the measurement
+     * @return          The value, or -1 if it was not measured
+     */
+    public double get(String key) {
+
+        Double value = values.get(key);
+
+        return value == null ? -1 : value;
+    }
+
+    /**
+     * Get the names of the measurements which regressed from the baseline
+     *
+     * @return      Names of the measurements
+     */
+    public ArrayList<String> getRegressions() {
+        return regressions;
+    }
+
+    /**
+     * Responsible for comparing the result to a baseline, recording every
+     * measurement that is worse by more than the threshold.  Measurements
+     * missing from either result (negative) are not compared.
+     *
+     * @param baseline      Result of the same scenario to compare against
+     * @param threshold     Largest acceptable change, in percent
+     */
+    public void compare(BenchmarkResult baseline, double threshold) {
+
+        double factor = threshold / 100;
+
+        // Throughput regresses by falling
+        if(isWorse(baseline.get(TICKS_PER_SECOND), get(TICKS_PER_SECOND), -factor))
+            addRegression(TICKS_PER_SECOND);
+
+        // Every other measurement regresses by rising
+        String[] costs = {ALLOCATED_PER_TICK, P99_TICK, PEAK_RSS};
+        for(String key : costs) {
+            if(isWorse(baseline.get(key), get(key), factor))
+                addRegression(key);
+        }
+    }
+
+    /**
+     * Responsible for testing the mean allocation per turn against a budget,
+     * recording it as a regression if it is over
+     *
+     * @param budget    Largest acceptable number of bytes per turn
+     * @return          True if within the budget, or not measured
+     */
+    public boolean checkBudget(long budget) {
+
+        if(get(ALLOCATED_PER_TICK) <= budget)
+            return true;
+
+        addRegression(ALLOCATED_PER_TICK);
+
+        return false;
+    }
+
+    /**
+     * Responsible for testing the mean allocation per turn of one phase of a
+     * turn against a budget, recording it as a regression if it is over
+     *
+     * @param phase     Name of the phase (see TickProfiler.PHASE_NAMES)
+     * @param budget    Largest acceptable number of bytes per turn
+     * @return          True if within the budget, or not measured
+     */
+    public boolean checkPhaseBudget(String phase, long budget) {
+
+        String key = phase + PHASE_ALLOCATED_SUFFIX;
+
+        if(get(key) <= budget)
+            return true;
+
+        addRegression(key);
+
+        return false;
+    }
+
+    /**
+     * Responsible for recording that a measurement regressed, once
+     *
+     * @param key       Name of the measurement
+     */
+    private void addRegression(String key) {
+        if(!regressions.contains(key))
+            regressions.add(key);
+    }
+
+    /**
+     * Returns whether a measurement is worse than its baseline
+     *
+     * @param base      The baseline
+     * @param value     The measurement
+     * @param factor    Largest acceptable change, as a fraction; negative if
+     *                  lower values are worse
+     * @return          True if the measurement is worse
+     */
+    private static boolean isWorse(double base, double value, double factor) {
+
+        if(base < 0 || value < 0)
+            return false;
+
+        if(factor < 0)
+            return value < base * (1 + factor);
+
+        return value > base * (1 + factor);
+    }
+
+    /**
+     * Returns the result as a JSON object on a single line
+     *
+     * @return      The JSON object
+     */
+    public String toJson() {
+
+        StringBuilder json = new StringBuilder();
+
+        json.append("{\"name\": \"").append(name).append('"');
+
+        // Whole numbers are written without a fraction
+        for(String key : values.keySet()) {
+
+            double value = values.get(key);
+
+            json.append(", \"").append(key).append("\": ");
+            if(value == Math.rint(value) && Math.abs(value) < 1e15)
+                json.append((long)value);
+            else
+                json.append(String.format(Locale.ROOT, "%.3f", value));
+        }
+
+        json.append(", \"regressions\": [");
+        for(int i = 0; i < regressions.size(); i++) {
+            if(i > 0)
+                json.append(", ");
+            json.append('"').append(regressions.get(i)).append('"');
+        }
+        json.append("]}");
+
+        return json.toString();
+    }
+
+    /**
+     * Returns the results found in a JSON report, as written by
+     * BenchmarkRunner
+     *
+     * @param json      The report
+     * @return          Results by scenario name
+     */
+    public static LinkedHashMap<String, BenchmarkResult> parse(String json) {
+
+        LinkedHashMap<String, BenchmarkResult> results = new LinkedHashMap<>();
+
+        Matcher object = OBJECT.matcher(json);
+        while(object.find()) {
+
+            BenchmarkResult result = new BenchmarkResult(object.group(1));
+
+            Matcher number = NUMBER.matcher(object.group());
+            while(number.find()) {
+                try {
+                    result.put(number.group(1), Double.parseDouble(number.group(2)));
+                }
+                catch(NumberFormatException e) {
+                    System.err.println("Error in BenchmarkResult: invalid value for " + number.group(1));
+                }
+            }
+
+            results.put(result.getName(), result);
+        }
+
+        return results;
+    }
+}
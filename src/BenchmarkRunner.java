@@ -0,0 +1,514 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Class BenchmarkRunner
+ *
+ * Command-line benchmark of the whole simulation.  Each scenario (see
+ * BenchmarkScenario) is created headless and driven turn by turn, exactly as
+ * the simulation clock would drive it, and the following are measured over
+ * the turns after a warm-up:
+ *
+ *   ticksPerSecond         Turns completed per second
+ *   allocatedBytesPerTick  Bytes allocated by the simulating thread per turn
+ *   p99TickNanos           99th percentile of the duration of a turn
+ *   peakRssBytes           Peak resident set size of the process
+ *
+ * The results are written to standard output as JSON.  Given a baseline (an
+ * earlier report), every measurement worse than the baseline by more than the
+ * threshold is listed as a regression, and the runner exits with status 1.
+ *
+ * Given an allocation budget, the runner instead (or as well) tests that the
+ * steady-state turns allocate no more than the budget: the measured turns
+ * are profiled (see TickProfiler), the bytes allocated by each phase of a
+ * turn are added to the report, and the runner exits with status 1 if the
+ * mean allocation per turn exceeds the budget.  A budget may also be given
+ * for each phase, so that a phase growing is caught even while the turn as a
+ * whole stays within its budget.
+ *
+ * Usage: java BenchmarkRunner [options] [scenario...]
+ *
+ *   --warmup N         Turns run before measuring (default per scenario)
+ *   --ticks N          Turns measured (default per scenario)
+ *   --baseline FILE    Report to compare against
+ *   --threshold PCT    Largest acceptable change, in percent (default 10)
+ *   --out FILE         Also write the report to a file, e.g. a new baseline
+ *   --allocation-budget BYTES
+ *                      Largest acceptable allocation per turn
+ *   --phase-budget PHASE=BYTES
+ *                      Largest acceptable allocation per turn by one phase,
+ *                      such as forager (see TickProfiler); may be repeated
+ *   --in-process       Run every scenario in this JVM
+ *
+ * Every standard scenario is run if none is named.  Unless --in-process is
+ * given, each scenario is run in a JVM of its own, started with the same
+ * options as this one, so that the peak RSS and the state of the heap and
+ * JIT belong to that scenario alone.  The million scenario needs a heap of a
+ * few gigabytes (-Xmx4g).
+ *
+ * @author Camron Khan
+ */
+public class BenchmarkRunner {
+
+    /************
+     * Constants
+     ************/
+
+    // Default largest acceptable change, in percent
+    private static final double THRESHOLD = 10;
+
+    // Exit status when a measurement regressed, and when the runner failed
+    private static final int STATUS_REGRESSED = 1;
+    private static final int STATUS_ERROR = 2;
+
+    // Linux reports the peak RSS of the process here, in kB
+    private static final String PROC_STATUS = "/proc/self/status";
+    private static final String PEAK_RSS_FIELD = "VmHWM:";
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Standard output, to which the report is written
+    private static PrintStream REPORT;
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * @param args  Options followed by the names of the scenarios to run
+     */
+    public static void main(String[] args) {
+
+        // Only the report is written to standard output; messages from the
+        // simulation go to standard error with the runner's own
+        REPORT = System.out;
+        System.setOut(System.err);
+
+        int warmup = -1;
+        int ticks = -1;
+        File baselineFile = null;
+        double threshold = THRESHOLD;
+        File outFile = null;
+        long budget = -1;
+        LinkedHashMap<String, Long> phaseBudgets = new LinkedHashMap<>();
+        boolean inProcess = false;
+        ArrayList<String> names = new ArrayList<>();
+
+        // Parse the command line
+        try {
+            for(int i = 0; i < args.length; i++) {
+
+                if(args[i].equals("--warmup"))
+                    warmup = Integer.parseInt(args[++i]);
+                else if(args[i].equals("--ticks"))
+                    ticks = Integer.parseInt(args[++i]);
+                else if(args[i].equals("--baseline"))
+                    baselineFile = new File(args[++i]);
+                else if(args[i].equals("--threshold"))
+                    threshold = Double.parseDouble(args[++i]);
+                else if(args[i].equals("--out"))
+                    outFile = new File(args[++i]);
+                else if(args[i].equals("--allocation-budget"))
+                    budget = Long.parseLong(args[++i]);
+                else if(args[i].equals("--phase-budget")) {
+
+                    String option = args[++i];
+                    int equals = option.indexOf('=');
+                    if(equals < 0 || getPhase(option.substring(0, equals)) < 0)
+                        exit("invalid phase budget " + option);
+
+                    phaseBudgets.put(option.substring(0, equals), Long.parseLong(option.substring(equals + 1)));
+                }
+                else if(args[i].equals("--in-process"))
+                    inProcess = true;
+                else if(BenchmarkScenario.get(args[i]) != null)
+                    names.add(args[i]);
+                else
+                    exit("unknown option or scenario " + args[i]);
+            }
+        }
+        catch(ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            exit("invalid command line");
+        }
+
+        if(names.isEmpty()) {
+            for(String name : BenchmarkScenario.NAMES)
+                names.add(name);
+        }
+
+        // Read the baseline first, so that a bad path fails quickly
+        LinkedHashMap<String, BenchmarkResult> baseline = null;
+        if(baselineFile != null) {
+            try {
+                baseline = BenchmarkResult.parse(new String(Files.readAllBytes(baselineFile.toPath()), StandardCharsets.UTF_8));
+            }
+            catch(IOException e) {
+                exit("cannot read baseline " + baselineFile + ": " + e.getMessage());
+            }
+        }
+
+        // Run the scenarios, measuring each phase if any budget is given
+        boolean phases = budget >= 0 || !phaseBudgets.isEmpty();
+        ArrayList<BenchmarkResult> results = new ArrayList<>();
+        for(String name : names) {
+
+            BenchmarkScenario scenario = BenchmarkScenario.get(name);
+
+            if(inProcess || names.size() == 1)
+                results.add(run(scenario, warmup, ticks, phases));
+            else
+                results.add(fork(name, warmup, ticks, phases));
+        }
+
+        // Test against the allocation budgets
+        boolean passed = true;
+        if(phases) {
+
+            if(!AllocationCounter.isSupported())
+                exit("this JVM does not count allocation per thread");
+
+            for(BenchmarkResult result : results) {
+
+                if(budget >= 0 && !result.checkBudget(budget))
+                    passed = false;
+
+                for(String phase : phaseBudgets.keySet()) {
+                    if(!result.checkPhaseBudget(phase, phaseBudgets.get(phase)))
+                        passed = false;
+                }
+            }
+        }
+
+        // Compare against the baseline
+        if(baseline != null) {
+            for(BenchmarkResult result : results) {
+
+                BenchmarkResult base = baseline.get(result.getName());
+
+                if(base == null) {
+                    System.err.println("Error in BenchmarkRunner: no baseline for " + result.getName());
+                    continue;
+                }
+
+                result.compare(base, threshold);
+                if(!result.getRegressions().isEmpty())
+                    passed = false;
+            }
+        }
+
+        String report = toJson(results, baselineFile, threshold, budget, phaseBudgets, passed);
+        REPORT.print(report);
+        REPORT.flush();
+
+        if(outFile != null) {
+            try {
+                Files.write(outFile.toPath(), report.getBytes(StandardCharsets.UTF_8));
+            }
+            catch(IOException e) {
+                exit("cannot write " + outFile + ": " + e.getMessage());
+            }
+        }
+
+        if(!passed)
+            System.exit(STATUS_REGRESSED);
+    }
+
+    /**
+     * Responsible for running a scenario in this JVM
+     *
+     * @param scenario  The scenario
+     * @param warmup    Turns run before measuring, or -1 for the default
+     * @param ticks     Turns measured, or -1 for the default
+     * @param phases    True if the bytes allocated by each phase of a turn
+     *                  are to be measured
+     * @return          The measurements
+     */
+    static BenchmarkResult run(BenchmarkScenario scenario, int warmup, int ticks,
+                               boolean phases) {
+
+        if(warmup < 0)
+            warmup = scenario.getWarmupTicks();
+        if(ticks < 0)
+            ticks = scenario.getTicks();
+
+        System.err.println("Running " + scenario.getName() + "...");
+
+        // Create the colony
+        long setupStart = System.nanoTime();
+        SimModel model = scenario.create();
+        long setupNanos = System.nanoTime() - setupStart;
+
+        int ants = model.getAntTypes().size();
+
+        // Warm up
+        for(int i = 0; i < warmup; i++) {
+            if(model.isGameOver())
+                scenario.restart(model);
+            model.runTurn();
+        }
+
+        // The profiler starts afresh with the first measured turn
+        model.setProfiling(phases);
+
+        // Measure; the simulation runs on this thread.  Reading the counter
+        // may itself allocate, which is not counted.
+        LatencyHistogram latency = new LatencyHistogram();
+        long allocated = 0;
+        long elapsed = 0;
+        int restarts = 0;
+
+        for(int i = 0; i < ticks; i++) {
+
+            // A turn after the queen's death does nothing, so the scenario
+            // is restarted; restarting is not measured
+            if(model.isGameOver()) {
+                scenario.restart(model);
+                restarts++;
+            }
+
+            long allocatedStart = AllocationCounter.get();
+            long start = System.nanoTime();
+
+            model.runTurn();
+
+            long end = System.nanoTime();
+            allocated += AllocationCounter.get() - allocatedStart - AllocationCounter.getCost();
+            elapsed += end - start;
+            latency.record(end - start);
+        }
+
+        BenchmarkResult result = new BenchmarkResult(scenario.getName());
+        result.put("rows", scenario.getRows());
+        result.put("cols", scenario.getCols());
+        result.put("ants", ants);
+        result.put("setupMillis", setupNanos / 1000000);
+        result.put("warmupTicks", warmup);
+        result.put("ticks", ticks);
+        result.put("restarts", restarts);
+        result.put(BenchmarkResult.TICKS_PER_SECOND, ticks == 0 ? 0 : ticks * 1e9 / elapsed);
+        result.put(BenchmarkResult.ALLOCATED_PER_TICK, !AllocationCounter.isSupported() || ticks == 0 ? -1 : allocated / ticks);
+        result.put("p50TickNanos", latency.getPercentile(50));
+        result.put(BenchmarkResult.P99_TICK, latency.getPercentile(99));
+        result.put("maxTickNanos", latency.getMax());
+        result.put(BenchmarkResult.PEAK_RSS, getPeakRss());
+
+        // Break the allocation down by phase.  The profiler's own readings of
+        // the counter are not counted by the profiler, so its total replaces
+        // the one measured here.
+        if(phases) {
+
+            TickProfiler profiler = model.getProfiler();
+            profiler.report();
+
+            long[][] allocation = profiler.getAllocationSummary();
+            if(allocation != null) {
+
+                result.put(BenchmarkResult.ALLOCATED_PER_TICK,
+                           allocation[TickProfiler.TURN][TickProfiler.MEAN]
+                           + allocation[TickProfiler.PUBLISH][TickProfiler.MEAN]);
+
+                for(int phase = 0; phase < TickProfiler.PHASES; phase++) {
+                    if(phase != TickProfiler.TURN)
+                        result.put(TickProfiler.PHASE_NAMES[phase] + BenchmarkResult.PHASE_ALLOCATED_SUFFIX,
+                                   allocation[phase][TickProfiler.MEAN]);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Responsible for running a scenario in a JVM of its own, started with
+     * the same options and class path as this one
+     *
+     * @param name      Name of the scenario
+     * @param warmup    Turns run before measuring, or -1 for the default
+     * @param ticks     Turns measured, or -1 for the default
+     * @param phases    True if the bytes allocated by each phase of a turn
+     *                  are to be measured
+     * @return          The measurements
+     */
+    private static BenchmarkResult fork(String name, int warmup, int ticks, boolean phases) {
+
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(BenchmarkRunner.class.getName());
+        if(warmup >= 0) {
+            command.add("--warmup");
+            command.add(Integer.toString(warmup));
+        }
+        if(ticks >= 0) {
+            command.add("--ticks");
+            command.add(Integer.toString(ticks));
+        }
+        if(phases) {
+            command.add("--allocation-budget");
+            command.add(Long.toString(Long.MAX_VALUE));
+        }
+        command.add(name);
+
+        try {
+
+            // Progress and errors are passed through; the report is read
+            Process process = new ProcessBuilder(command)
+                                  .redirectError(ProcessBuilder.Redirect.INHERIT)
+                                  .start();
+
+            String report = readFully(process.getInputStream());
+
+            if(process.waitFor() != 0)
+                exit("scenario " + name + " failed");
+
+            BenchmarkResult result = BenchmarkResult.parse(report).get(name);
+            if(result == null)
+                exit("scenario " + name + " produced no result");
+
+            return result;
+        }
+        catch(IOException e) {
+            exit("cannot start a JVM for " + name + ": " + e.getMessage());
+        }
+        catch(InterruptedException e) {
+            exit("interrupted");
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the report of a run as JSON
+     *
+     * @param results       The results
+     * @param baselineFile  The baseline compared against, or null
+     * @param threshold     Largest acceptable change, in percent
+     * @param budget        Largest acceptable allocation per turn, or -1
+     * @param phaseBudgets  Largest acceptable allocation per turn by phase
+     * @param passed        False if any measurement regressed
+     * @return              The report
+     */
+    private static String toJson(List<BenchmarkResult> results, File baselineFile,
+                                 double threshold, long budget,
+                                 LinkedHashMap<String, Long> phaseBudgets, boolean passed) {
+
+        StringBuilder json = new StringBuilder();
+
+        json.append("{\n");
+        json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory()).append(",\n");
+        if(baselineFile != null) {
+            json.append("  \"baseline\": \"").append(baselineFile.getPath().replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n");
+            json.append("  \"threshold\": ").append(String.format(Locale.ROOT, "%.1f", threshold)).append(",\n");
+        }
+        if(budget >= 0)
+            json.append("  \"allocationBudget\": ").append(budget).append(",\n");
+        if(!phaseBudgets.isEmpty()) {
+            json.append("  \"phaseBudgets\": {");
+            String separator = "";
+            for(String phase : phaseBudgets.keySet()) {
+                json.append(separator).append('"').append(phase).append("\": ").append(phaseBudgets.get(phase));
+                separator = ", ";
+            }
+            json.append("},\n");
+        }
+        json.append("  \"passed\": ").append(passed).append(",\n");
+        json.append("  \"scenarios\": [\n");
+        for(int i = 0; i < results.size(); i++) {
+            json.append("    ").append(results.get(i).toJson());
+            json.append(i < results.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("  ]\n");
+        json.append("}\n");
+
+        return json.toString();
+    }
+
+    /**
+     * Returns the phase of a turn with the given name, of those whose
+     * allocation is reported
+     *
+     * @param name      Name of the phase
+     * @return          The phase (see TickProfiler), or -1 if there is none
+     */
+    private static int getPhase(String name) {
+
+        for(int phase = 0; phase < TickProfiler.PHASES; phase++) {
+            if(phase != TickProfiler.TURN && TickProfiler.PHASE_NAMES[phase].equals(name))
+                return phase;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the peak resident set size of the process
+     *
+     * @return      Number of bytes, or -1 if the operating system does not
+     *              report it
+     */
+    private static long getPeakRss() {
+
+        try {
+            for(String line : Files.readAllLines(new File(PROC_STATUS).toPath(), StandardCharsets.UTF_8)) {
+
+                // The line reads "VmHWM:   123456 kB"
+                if(line.startsWith(PEAK_RSS_FIELD)) {
+                    String kb = line.substring(PEAK_RSS_FIELD.length()).replace("kB", "").trim();
+                    return Long.parseLong(kb) * 1024;
+                }
+            }
+        }
+        catch(IOException | NumberFormatException e) {
+            // Not Linux
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns everything read from a stream
+     *
+     * @param in    The stream
+     * @return      The text read
+     * @throws IOException
+     */
+    private static String readFully(InputStream in) throws IOException {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+
+        int n;
+        while((n = in.read(buffer)) > 0)
+            bytes.write(buffer, 0, n);
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Responsible for reporting an error and exiting
+     *
+     * @param message   Description of the error
+     */
+    private static void exit(String message) {
+        System.err.println("Error in BenchmarkRunner: " + message);
+        System.exit(STATUS_ERROR);
+    }
+}
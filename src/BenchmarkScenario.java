@@ -0,0 +1,270 @@
+/**
+ * Class BenchmarkScenario
+ *
+ * Encapsulates one of the standard colonies on which the simulation is
+ * benchmarked end to end:
+ *
+ *   default    Driver's 27x27 colony after a Normal Setup
+ *   bala       A fully explored 500x500 grid overrun by balas, with soldiers
+ *              to hunt them
+ *   million    A fully explored 1000x1000 grid holding a million ants
+ *
+ * Ants beyond the colony's founders are spread at random over the explored
+ * area; balas are kept away from the colony entrance so that the queen
+ * survives longer.  Foragers are only created by the queen, as they find
+ * their way home by retracing their steps.  Every scenario is seeded, so the
+ * same turns are measured on every run.
+ *
+ * The queen of Driver's colony dies within a few thousand turns, so a run
+ * restarts the scenario whenever she does.
+ *
+ * @author Camron Khan
+ */
+public class BenchmarkScenario {
+
+    /************
+     * Constants
+     ************/
+
+    // Names of the standard scenarios
+    public static final String[] NAMES = {"default", "bala", "million"};
+
+    // Seed of the random numbers and of the world generator
+    private static final long SEED = 1;
+
+    // Balas are placed no closer than this to the colony entrance
+    private static final int NEST_CLEARANCE = 50;
+
+    // Name of the scenario
+    private final String NAME;
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+    // Whether the whole grid is explored before measuring
+    private final boolean EXPLORED;
+
+    // Number of ants added to the colony's founders
+    private final int SOLDIERS;
+    private final int SCOUTS;
+    private final int BALAS;
+
+    // Default number of turns run before and during measurement
+    private final int WARMUP_TICKS;
+    private final int TICKS;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a scenario
+     *
+     * @param name      Name of the scenario
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     * @param explored  True if the whole grid is explored before measuring
+     * @param soldiers  Number of soldiers added
+     * @param scouts    Number of scouts added
+     * @param balas     Number of balas added
+     * @param warmup    Default number of turns run before measuring
+     * @param ticks     Default number of turns measured
+     */
+    private BenchmarkScenario(String name, int rows, int cols, boolean explored,
+                              int soldiers, int scouts, int balas,
+                              int warmup, int ticks) {
+        NAME = name;
+        ROWS = rows;
+        COLS = cols;
+        EXPLORED = explored;
+        SOLDIERS = soldiers;
+        SCOUTS = scouts;
+        BALAS = balas;
+        WARMUP_TICKS = warmup;
+        TICKS = ticks;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Returns a standard scenario given its name
+     *
+     * @param name      Name of the scenario
+     * @return          The scenario, or null if there is none by that name
+     */
+    public static BenchmarkScenario get(String name) {
+
+        // Driver's colony, as after pressing Normal Setup
+        if(name.equals("default"))
+            return new BenchmarkScenario(name, Driver.ROW, Driver.COL, false,
+                                         0, 0, 0, 1000, 5000);
+
+        // Heavy bala pressure on a large grid
+        if(name.equals("bala"))
+            return new BenchmarkScenario(name, 500, 500, true,
+                                         5000, 0, 20000, 20, 200);
+
+        // A million ants
+        if(name.equals("million"))
+            return new BenchmarkScenario(name, 1000, 1000, true,
+                                         700000, 300000, 0, 3, 10);
+
+        return null;
+    }
+
+    /**
+     * Responsible for creating the colony of the scenario, ready to be
+     * driven with SimModel.runTurn()
+     *
+     * @return      A headless model
+     */
+    public SimModel create() {
+
+        // Create the colony as Driver does, without a GUI
+        SimModel model = new SimModel(ROWS, COLS, Driver.MS_PER_TURN, Driver.TURNS_PER_DAY, true);
+        RandomNumber.setSeed(SEED);
+        model.setWorldGenerator(new WorldGenerator(SEED));
+        model.initSimModel();
+
+        populate(model);
+
+        return model;
+    }
+
+    /**
+     * Responsible for starting the scenario again on a model it created,
+     * once the queen has died.  Random numbers continue from where they
+     * were, so the new colony differs from the first.
+     *
+     * @param model     The colony
+     */
+    public void restart(SimModel model) {
+        model.reset();
+        populate(model);
+    }
+
+    /**
+     * Responsible for exploring the grid and adding ants to a colony after a
+     * Normal Setup
+     *
+     * @param model     The colony
+     */
+    private void populate(SimModel model) {
+
+        if(EXPLORED)
+            explore(model);
+
+        // Spread the added ants over the explored grid
+        for(int i = 0; i < SOLDIERS; i++)
+            model.createAnt(model.SOLDIER, randomNode(model, 0));
+
+        for(int i = 0; i < SCOUTS; i++)
+            model.createAnt(model.SCOUT, randomNode(model, 0));
+
+        for(int i = 0; i < BALAS; i++)
+            model.createAnt(model.BALA, randomNode(model, NEST_CLEARANCE));
+    }
+
+    /**
+     * Responsible for revealing every node, as scouts would
+     *
+     * @param model     The colony
+     */
+    private void explore(SimModel model) {
+
+        WorldGenerator generator = model.getWorldGenerator();
+
+        for(int r = 0; r < ROWS; r++) {
+            for(int c = 0; c < COLS; c++) {
+
+                Node node = model.getNode(r, c);
+
+                // The colony entrance is already revealed
+                if(!node.getVisited()) {
+                    node.setFoodAmount(node.getPosition(), generator.getFood(r, c));
+                    node.setVisited(node.getPosition(), true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a random node, away from the colony entrance if required.  The
+     * node is explored unless the grid is not, in which case the colony
+     * entrance is returned.
+     *
+     * @param model         The colony
+     * @param clearance     Least distance, in nodes along either axis, from
+     *                      the colony entrance
+     * @return              The node
+     */
+    private Node randomNode(SimModel model, int clearance) {
+
+        Node nest = model.getQueen().hereNode;
+
+        // Only the colony entrance is known to be explored
+        if(!EXPLORED)
+            return nest;
+
+        int row;
+        int col;
+
+        do {
+            row = RandomNumber.get(ROWS);
+            col = RandomNumber.get(COLS);
+        }
+        while(Math.abs(row - nest.getRow()) < clearance && Math.abs(col - nest.getCol()) < clearance);
+
+        return model.getNode(row, col);
+    }
+
+    /**
+     * Get the name of the scenario
+     *
+     * @return      The name
+     */
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * Get the number of rows in the grid
+     *
+     * @return      Number of rows
+     */
+    public int getRows() {
+        return ROWS;
+    }
+
+    /**
+     * Get the number of columns in the grid
+     *
+     * @return      Number of columns
+     */
+    public int getCols() {
+        return COLS;
+    }
+
+    /**
+     * Get the default number of turns run before measuring
+     *
+     * @return      Number of turns
+     */
+    public int getWarmupTicks() {
+        return WARMUP_TICKS;
+    }
+
+    /**
+     * Get the default number of turns measured
+     *
+     * @return      Number of turns
+     */
+    public int getTicks() {
+        return TICKS;
+    }
+}
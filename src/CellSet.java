@@ -0,0 +1,168 @@
+/**
+ * Class CellSet
+ *
+ * Encapsulates the basic functionality of a set of cells of the grid, such
+ * as the cells changed during a turn, listed in the order they were added.
+ * Membership is held in one bit per cell, allocated a chunk of the grid at a
+ * time (see ChunkedGrid) as cells in the chunk are first added, so a set
+ * costs memory in proportion to the territory it has covered rather than the
+ * size of the grid.
+ *
+ * @author Camron Khan
+ */
+public class CellSet {
+
+    /************
+     * Constants
+     ************/
+
+    // Chunks are CHUNK_SIZE nodes along each side
+    private static final int CHUNK_SHIFT = ChunkedGrid.CHUNK_SHIFT;
+    private static final int CHUNK_SIZE = ChunkedGrid.CHUNK_SIZE;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Number of cells listed before the list first grows
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // Number of columns in the grid
+    private final int COLS;
+
+    // Number of chunks along the columns of the grid
+    private final int CHUNK_COLS;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Membership bits of each chunk, indexed by chunk, then by row within
+    // the chunk, with one bit per column; null if no cell of the chunk has
+    // been added
+    private long[][] bits;
+
+    // Cells in the set, in the order they were added, and their number
+    private int[] list;
+    private int count;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates an empty set for a grid of the given size
+     *
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    public CellSet(int rows, int cols) {
+        COLS = cols;
+        CHUNK_COLS = (cols + CHUNK_MASK) >> CHUNK_SHIFT;
+        bits = new long[((rows + CHUNK_MASK) >> CHUNK_SHIFT) * CHUNK_COLS][];
+        list = new int[INITIAL_CAPACITY];
+        count = 0;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for adding a cell to the set
+     *
+     * @param index     Index of the cell (row * cols + col)
+     * @return          True if the cell was added; false if already present
+     */
+    public boolean add(int index) {
+
+        int row = index / COLS;
+        int col = index - row * COLS;
+        int chunk = (row >> CHUNK_SHIFT) * CHUNK_COLS + (col >> CHUNK_SHIFT);
+
+        // Create the chunk's bits on first use
+        long[] chunkBits = bits[chunk];
+        if(chunkBits == null) {
+            chunkBits = new long[CHUNK_SIZE];
+            bits[chunk] = chunkBits;
+        }
+
+        long bit = 1L << (col & CHUNK_MASK);
+        if((chunkBits[row & CHUNK_MASK] & bit) != 0)
+            return false;
+
+        chunkBits[row & CHUNK_MASK] |= bit;
+
+        // Grow the list when full
+        if(count == list.length) {
+            int[] larger = new int[list.length * 2];
+            System.arraycopy(list, 0, larger, 0, count);
+            list = larger;
+        }
+
+        list[count++] = index;
+
+        return true;
+    }
+
+    /**
+     * Returns whether a cell is in the set
+     *
+     * @param index     Index of the cell (row * cols + col)
+     * @return          True if present; false otherwise
+     */
+    public boolean contains(int index) {
+
+        int row = index / COLS;
+        int col = index - row * COLS;
+        long[] chunkBits = bits[(row >> CHUNK_SHIFT) * CHUNK_COLS + (col >> CHUNK_SHIFT)];
+
+        return chunkBits != null && (chunkBits[row & CHUNK_MASK] & (1L << (col & CHUNK_MASK))) != 0;
+    }
+
+    /**
+     * Responsible for removing every cell from the set.  The bits of the
+     * chunks covered are kept, to be reused.
+     */
+    public void clear() {
+
+        for(int i = 0; i < count; i++) {
+
+            int row = list[i] / COLS;
+            int col = list[i] - row * COLS;
+
+            bits[(row >> CHUNK_SHIFT) * CHUNK_COLS + (col >> CHUNK_SHIFT)][row & CHUNK_MASK] = 0;
+        }
+
+        count = 0;
+    }
+
+    /**
+     * Get the number of cells in the set
+     *
+     * @return      Number of cells
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Get a cell of the set
+     *
+     * @param i     Position in the order the cells were added
+     * @return      Index of the cell
+     */
+    public int get(int i) {
+        return list[i];
+    }
+
+    /**
+     * Get the cells of the set, in the order they were added.  The array is
+     * owned by the set and valid up to size().
+     *
+     * @return      Indices of the cells
+     */
+    public int[] getList() {
+        return list;
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Interface CellStore
+ * 
+ * Encapsulates the basic functionality of a store holding the state of every
+ * cell of the grid (visibility, queen, ant counts, food and pheromone) outside
+ * the Node objects.  A node backed by a store (StoredNode) keeps only its
+ * coordinates, adjacency lists and ant IDs, and reads and writes its values
+ * through the store using the index row * cols + col.
+ * 
+ * Every value of a new store is zero, which is the initial (hidden, empty)
+ * state of a node.  Writes are made on the simulation thread, in batches
+ * bracketed by beginUpdate and endUpdate.
+ * 
+ * @author Camron Khan
+ */
+public interface CellStore {
+    
+    // Fields of a cell
+    public static final int FLAGS = 0;
+    public static final int FORAGER = 1;
+    public static final int SCOUT = 2;
+    public static final int SOLDIER = 3;
+    public static final int BALA = 4;
+    public static final int FOOD = 5;
+    public static final int PHEROMONE = 6;
+    
+    // Number of fields of a cell
+    public static final int FIELDS = 7;
+    
+    // Bits of the FLAGS field
+    public static final int VISITED = 1;
+    public static final int QUEEN = 2;
+    
+    /**
+     * Returns a field of a cell
+     * 
+     * @param cell      Index of the cell (row * cols + col)
+     * @param field     The field
+     * @return          Value of the field
+     */
+    public int get(int cell, int field);
+    
+    /**
+     * Sets a field of a cell
+     * 
+     * @param cell      Index of the cell (row * cols + col)
+     * @param field     The field
+     * @param value     New value of the field
+     */
+    public void set(int cell, int field, int value);
+    
+    /**
+     * Marks the start of a batch of writes, such as a turn; every write is
+     * made between a call to beginUpdate and the matching call to endUpdate
+     */
+    public void beginUpdate();
+    
+    /**
+     * Marks the end of a batch of writes
+     * 
+     * @param turn      Turns elapsed once the batch is complete
+     */
+    public void endUpdate(int turn);
+}
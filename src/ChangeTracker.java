@@ -0,0 +1,155 @@
+/**
+ * Class ChangeTracker
+ *
+ * Encapsulates the set of cells changed since a reader of a SnapshotExchange
+ * last took them.  The exchange adds the change list of every snapshot it
+ * publishes to each of its trackers, so a view that skips snapshots, because
+ * the simulation publishes faster than the view repaints, still only redraws
+ * the cells changed in the meantime rather than the whole grid.
+ *
+ * Once more than a quarter of the grid has changed, or the grid has been
+ * reset, the tracker stops listing cells and reports that every cell may
+ * have changed.  A new tracker reports that every cell may have changed.
+ *
+ * Changes are added on the simulation thread and taken on the reader's
+ * thread.  A reader must take the changes before acquiring the snapshot it
+ * applies them from: the exchange publishes a snapshot before adding its
+ * changes, so every change taken is then in the snapshot acquired.
+ *
+ * @author Camron Khan
+ */
+public class ChangeTracker {
+
+    /************
+     * Constants
+     ************/
+
+    // Greatest number of cells listed before every cell is reported instead
+    private final int LIMIT;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Cells changed since the changes were last taken
+    private CellSet pending;
+
+    // Whether every cell may have changed since the changes were last taken
+    private boolean pendingAll;
+
+    // Cells taken by the reader (reader only)
+    private CellSet taken;
+
+    // Whether every cell may have changed, as taken by the reader (reader
+    // only)
+    private boolean takenAll;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a tracker for a grid of the given size, reporting that every
+     * cell may have changed
+     *
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    ChangeTracker(int rows, int cols) {
+        LIMIT = Math.max(rows * cols / 4, 1);
+        pending = new CellSet(rows, cols);
+        taken = new CellSet(rows, cols);
+        pendingAll = true;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for adding the change list of a snapshot; must only be
+     * called by the publishing thread
+     *
+     * @param list      Indices of the changed cells
+     * @param count     Number of changed cells in the list
+     * @param reset     True if any cell may have changed
+     */
+    synchronized void add(int[] list, int count, boolean reset) {
+
+        // Every cell is already reported
+        if(pendingAll)
+            return;
+
+        if(reset) {
+            reportAll();
+            return;
+        }
+
+        for(int i = 0; i < count; i++) {
+
+            // Too many cells to list
+            if(pending.size() == LIMIT && !pending.contains(list[i])) {
+                reportAll();
+                return;
+            }
+
+            pending.add(list[i]);
+        }
+    }
+
+    /**
+     * Responsible for taking the cells changed since the changes were last
+     * taken, for the reader to apply; see isAll(), getCount() and get()
+     */
+    public synchronized void take() {
+
+        // Swap the sets, so that neither is allocated again
+        CellSet set = taken;
+        taken = pending;
+        takenAll = pendingAll;
+        pending = set;
+
+        pending.clear();
+        pendingAll = false;
+    }
+
+    /**
+     * Returns whether every cell may have changed, as of the last take()
+     *
+     * @return      True if every cell must be applied; false if only those
+     *              listed need be
+     */
+    public boolean isAll() {
+        return takenAll;
+    }
+
+    /**
+     * Get the number of cells taken by the last take()
+     *
+     * @return      Number of cells
+     */
+    public int getCount() {
+        return taken.size();
+    }
+
+    /**
+     * Get a cell taken by the last take()
+     *
+     * @param i     Position in the list of cells taken
+     * @return      Index of the cell
+     */
+    public int get(int i) {
+        return taken.get(i);
+    }
+
+    /**
+     * Responsible for reporting every cell in place of the cells listed
+     */
+    private void reportAll() {
+        pending.clear();
+        pendingAll = true;
+    }
+}
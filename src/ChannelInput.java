@@ -0,0 +1,194 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Class ChannelInput
+ *
+ * Encapsulates the basic functionality of a buffered reader of binary values
+ * from an NIO channel, as written by a ChannelOutput.
+ *
+ * @author Camron Khan
+ */
+public class ChannelInput {
+
+    /************
+     * Constants
+     ************/
+
+    // Channel read from
+    private final ReadableByteChannel CHANNEL;
+
+    // Buffer of values read from the channel but not yet returned
+    private final ByteBuffer BUFFER;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a reader from a channel
+     *
+     * @param channel   The channel
+     */
+    public ChannelInput(ReadableByteChannel channel) {
+        CHANNEL = channel;
+        BUFFER = ByteBuffer.allocateDirect(ChannelOutput.BUFFER_SIZE);
+        BUFFER.flip();
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Reads a byte
+     *
+     * @return      The byte, from 0 to 255
+     * @throws IOException  If the channel cannot be read or has ended
+     */
+    public int getByte() throws IOException {
+        ensure(1);
+        return BUFFER.get() & 0xFF;
+    }
+
+    /**
+     * Reads an int
+     *
+     * @return      The int
+     * @throws IOException  If the channel cannot be read or has ended
+     */
+    public int getInt() throws IOException {
+        ensure(4);
+        return BUFFER.getInt();
+    }
+
+    /**
+     * Reads a long
+     *
+     * @return      The long
+     * @throws IOException  If the channel cannot be read or has ended
+     */
+    public long getLong() throws IOException {
+        ensure(8);
+        return BUFFER.getLong();
+    }
+
+    /**
+     * Reads a variable-length integer (see VarInt)
+     *
+     * @return      The int, treated as unsigned
+     * @throws IOException  If the channel cannot be read or has ended
+     */
+    public int getVarInt() throws IOException {
+
+        int value = 0;
+        int shift = 0;
+        int b;
+
+        do {
+            b = getByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0 && shift < 35);
+
+        return value;
+    }
+
+    /**
+     * Reads a run of bytes
+     *
+     * @param dest      Array to hold the bytes
+     * @param offset    Position of the first byte in the array
+     * @param length    Number of bytes
+     * @throws IOException  If the channel cannot be read or has ended
+     */
+    public void getBytes(byte[] dest, int offset, int length) throws IOException {
+        while(length > 0) {
+            ensure(1);
+            int n = Math.min(length, BUFFER.remaining());
+            BUFFER.get(dest, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Returns the position in the channel of the next byte to be read
+     *
+     * @return      The position
+     * @throws IOException  If the channel is not seekable
+     */
+    public long getPosition() throws IOException {
+        return seekable().position() - BUFFER.remaining();
+    }
+
+    /**
+     * Responsible for moving to a position in the channel
+     *
+     * @param pos   Position of the next byte to be read
+     * @throws IOException  If the channel is not seekable
+     */
+    public void seek(long pos) throws IOException {
+        seekable().position(pos);
+        BUFFER.clear();
+        BUFFER.flip();
+    }
+
+    /**
+     * Responsible for skipping bytes
+     *
+     * @param length    Number of bytes to skip
+     * @throws IOException  If the channel is not seekable
+     */
+    public void skip(long length) throws IOException {
+
+        // Within the buffer
+        if(length <= BUFFER.remaining()) {
+            BUFFER.position(BUFFER.position() + (int)length);
+            return;
+        }
+
+        seek(getPosition() + length);
+    }
+
+    /**
+     * Returns the channel as a seekable channel
+     *
+     * @return      The channel
+     * @throws IOException  If the channel is not seekable
+     */
+    private SeekableByteChannel seekable() throws IOException {
+
+        if(!(CHANNEL instanceof SeekableByteChannel))
+            throw new IOException("Channel is not seekable");
+
+        return (SeekableByteChannel)CHANNEL;
+    }
+
+    /**
+     * Responsible for making sure the buffer holds enough bytes
+     *
+     * @param bytes     Number of bytes required
+     * @throws IOException  If the channel cannot be read or has ended
+     */
+    private void ensure(int bytes) throws IOException {
+
+        if(BUFFER.remaining() >= bytes)
+            return;
+
+        // Keep the unread bytes and fill the rest of the buffer
+        BUFFER.compact();
+        while(BUFFER.position() < bytes) {
+            if(CHANNEL.read(BUFFER) < 0) {
+                BUFFER.flip();
+                throw new EOFException();
+            }
+        }
+        BUFFER.flip();
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Class ChannelOutput
+ *
+ * Encapsulates the basic functionality of a buffered writer of binary values
+ * to an NIO channel.  Values are big-endian.
+ *
+ * @author Camron Khan
+ */
+public class ChannelOutput {
+
+    /************
+     * Constants
+     ************/
+
+    // Default size of the buffer in bytes
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    // Channel written to
+    private final WritableByteChannel CHANNEL;
+
+    // Buffer of values not yet written to the channel
+    private final ByteBuffer BUFFER;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Number of bytes written so far, including those still buffered
+    private long position;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a writer to a channel
+     *
+     * @param channel   The channel
+     */
+    public ChannelOutput(WritableByteChannel channel) {
+        CHANNEL = channel;
+        BUFFER = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        position = 0;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Writes a byte
+     *
+     * @param b     The byte
+     * @throws IOException  If the channel cannot be written
+     */
+    public void putByte(int b) throws IOException {
+        ensure(1);
+        BUFFER.put((byte)b);
+        position += 1;
+    }
+
+    /**
+     * Writes an int
+     *
+     * @param i     The int
+     * @throws IOException  If the channel cannot be written
+     */
+    public void putInt(int i) throws IOException {
+        ensure(4);
+        BUFFER.putInt(i);
+        position += 4;
+    }
+
+    /**
+     * Writes a long
+     *
+     * @param l     The long
+     * @throws IOException  If the channel cannot be written
+     */
+    public void putLong(long l) throws IOException {
+        ensure(8);
+        BUFFER.putLong(l);
+        position += 8;
+    }
+
+    /**
+     * Writes an int as a variable-length integer (see VarInt)
+     *
+     * @param i     The int, treated as unsigned
+     * @throws IOException  If the channel cannot be written
+     */
+    public void putVarInt(int i) throws IOException {
+        ensure(VarInt.MAX_BYTES);
+        int start = BUFFER.position();
+        VarInt.put(BUFFER, i);
+        position += BUFFER.position() - start;
+    }
+
+    /**
+     * Writes a run of bytes
+     *
+     * @param src       Array holding the bytes
+     * @param offset    Position of the first byte in the array
+     * @param length    Number of bytes
+     * @throws IOException  If the channel cannot be written
+     */
+    public void putBytes(byte[] src, int offset, int length) throws IOException {
+
+        position += length;
+
+        while(length > 0) {
+            ensure(1);
+            int n = Math.min(length, BUFFER.remaining());
+            BUFFER.put(src, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Get the number of bytes written so far
+     *
+     * @return      Number of bytes
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Responsible for writing every buffered value to the channel
+     *
+     * @throws IOException  If the channel cannot be written
+     */
+    public void flush() throws IOException {
+
+        BUFFER.flip();
+
+        while(BUFFER.hasRemaining())
+            CHANNEL.write(BUFFER);
+
+        BUFFER.clear();
+    }
+
+    /**
+     * Responsible for making room in the buffer
+     *
+     * @param bytes     Number of bytes required
+     * @throws IOException  If the channel cannot be written
+     */
+    private void ensure(int bytes) throws IOException {
+        if(BUFFER.remaining() < bytes)
+            flush();
+    }
+}
@@ -0,0 +1,424 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Class Checkpoint
+ *
+ * Encapsulates the basic functionality of saving the complete state of a
+ * simulation to a compact binary file and restoring it, so that the
+ * simulation continues exactly as the original would have.
+ *
+ * The file is written through NIO channels and consists of (all values
+ * big-endian, positions as the cell index row * cols + col):
+ *
+ *     header      MAGIC, VERSION, rows, cols, turns elapsed, next ant ID,
+ *                 game over flag, random number generator state and world
+ *                 generator (flag, seed, cluster size)
+ *     ants        count, then for each ant in order of creation: ID, type,
+ *                 position, age and, for foragers, the food flag, the last
+ *                 eight positions and the movement history
+ *     nodes       count, then for each node that is not in its initial state:
+ *                 position, flags, ant counts, food, pheromone and the IDs of
+ *                 the ants present, in order
+ *     trailer     MAGIC
+ *
+ * Must only be used on the simulation thread, or before the simulation clock
+ * is running.
+ *
+ * @author Camron Khan
+ */
+public final class Checkpoint {
+
+    /************
+     * Constants
+     ************/
+
+    // Identifies the file format ("ACHK")
+    public static final int MAGIC = 0x4143484B;
+    public static final int VERSION = 1;
+
+    // Number of positions in a forager's loop check
+    private static final int LOOP_CHECK = 8;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Prevents instances of this class being created
+     */
+    private Checkpoint() {
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for saving the state of a simulation to a file, on the
+     * calling thread.  The file is written under a temporary name and then
+     * renamed, so an existing checkpoint is never left half written.  See
+     * CheckpointWriter for saving in the background.
+     *
+     * @param model     The simulation
+     * @param file      The file
+     * @throws IOException  If the file cannot be written
+     */
+    public static void write(SimModel model, File file) throws IOException {
+        new CheckpointWriter(model, file).write();
+    }
+
+    /**
+     * Responsible for replacing the state of a simulation with one saved to
+     * a file.  The simulation is left unchanged if the file is not a
+     * checkpoint of a grid of the same size, and returned to "Normal Setup"
+     * if the file turns out to be damaged.
+     *
+     * @param model     The simulation
+     * @param file      The file
+     * @throws IOException  If the file cannot be read or is not a checkpoint
+     */
+    public static void read(SimModel model, File file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+            ChannelInput in = new ChannelInput(channel);
+
+            // Check the file before changing anything
+            if(in.getInt() != MAGIC || in.getInt() != VERSION)
+                throw new IOException("Not a checkpoint: " + file);
+
+            int rows = in.getInt();
+            int cols = in.getInt();
+            if(rows != model.getRows() || cols != model.getCols())
+                throw new IOException("Checkpoint is for a " + rows + "x" + cols + " grid");
+
+            // Restore the simulation, starting over if the file is damaged
+            try {
+                readState(model, in);
+            }
+            catch(IOException | RuntimeException e) {
+                model.reset();
+                throw new IOException("Damaged checkpoint: " + file, e);
+            }
+        }
+    }
+
+    /**
+     * Responsible for writing the header
+     *
+     * @param out           The output
+     * @param rows          Number of rows in the grid
+     * @param cols          Number of columns in the grid
+     * @param turns         Turns elapsed
+     * @param nextID        ID of the next ant to be created
+     * @param over          Whether the queen has died
+     * @param rngState      State of the random number generator
+     * @param generator     The world generator, or null
+     * @throws IOException  If the output cannot be written
+     */
+    static void writeHeader(ChannelOutput out, int rows, int cols, int turns, int nextID,
+                            boolean over, long rngState, WorldGenerator generator)
+                            throws IOException {
+
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(rows);
+        out.putInt(cols);
+        out.putInt(turns);
+        out.putInt(nextID);
+        out.putByte(over ? 1 : 0);
+        out.putLong(rngState);
+
+        // World generator
+        out.putByte(generator != null ? 1 : 0);
+        out.putLong(generator != null ? generator.getSeed() : 0);
+        out.putInt(generator != null ? generator.getClusterSize() : 0);
+    }
+
+    /**
+     * Returns a copy of the state of an ant, as written to a checkpoint: ID,
+     * type, position and age, then for foragers the food flag, the last
+     * eight positions, the length of the movement history and the history
+     *
+     * @param ant       The ant
+     * @param cols      Number of columns in the grid
+     * @return          The copy
+     */
+    static int[] recordAnt(Ant ant, int cols) {
+
+        // Other ants only have the common state
+        if(!(ant instanceof ForagerAnt))
+            return new int[] {ant.ID, ant.TYPE, cell(ant.hereNode, cols), ant.age};
+
+        ForagerAnt forager = (ForagerAnt)ant;
+        int steps = forager.moveStack.size();
+        int[] record = new int[4 + 1 + LOOP_CHECK + 1 + steps];
+        int i = 0;
+
+        record[i++] = ant.ID;
+        record[i++] = ant.TYPE;
+        record[i++] = cell(ant.hereNode, cols);
+        record[i++] = ant.age;
+        record[i++] = forager.getHasFood() ? 1 : 0;
+
+        for(int j = 0; j < LOOP_CHECK; j++)
+            record[i++] = cell(forager.lastEight.get(j), cols);
+
+        record[i++] = steps;
+        for(int j = 0; j < steps; j++)
+            record[i++] = cell(forager.moveStack.get(j), cols);
+
+        return record;
+    }
+
+    /**
+     * Responsible for writing a copy of the state of an ant
+     *
+     * @param out       The output
+     * @param record    The copy, as returned by recordAnt
+     * @throws IOException  If the output cannot be written
+     */
+    static void writeAnt(ChannelOutput out, int[] record) throws IOException {
+
+        out.putInt(record[0]);
+        out.putByte(record[1]);
+        out.putInt(record[2]);
+        out.putInt(record[3]);
+
+        // Foragers
+        if(record.length > 4) {
+            out.putByte(record[4]);
+            for(int i = 5; i < record.length; i++)
+                out.putInt(record[i]);
+        }
+    }
+
+    /**
+     * Returns a copy of the state of every node of a chunk that is not in
+     * its initial state: the number of such nodes, then for each node its
+     * position, flags, ant counts, food, pheromone, the number of ants
+     * present and their IDs
+     *
+     * @param chunk     Nodes of the chunk
+     * @param cols      Number of columns in the grid
+     * @return          The copy
+     */
+    static int[] recordChunk(Node[] chunk, int cols) {
+
+        // Size the copy
+        int count = 0;
+        int size = 1;
+        for(Node node : chunk) {
+            if(node != null && !isInitial(node)) {
+                count++;
+                size += 10 + node.getAntsPresent().size();
+            }
+        }
+
+        int[] record = new int[size];
+        int i = 0;
+
+        record[i++] = count;
+
+        for(Node node : chunk) {
+
+            if(node == null || isInitial(node))
+                continue;
+
+            record[i++] = cell(node, cols);
+            record[i++] = (node.getVisited() ? CellStore.VISITED : 0)
+                          | (node.getQueen() ? CellStore.QUEEN : 0);
+            record[i++] = node.getNumForager();
+            record[i++] = node.getNumScout();
+            record[i++] = node.getNumSoldier();
+            record[i++] = node.getNumBala();
+            record[i++] = node.getFoodAmount();
+            record[i++] = node.getPheromoneLevel();
+
+            ArrayList<Integer> ants = node.getAntsPresent();
+            record[i++] = ants.size();
+            for(int j = 0; j < ants.size(); j++)
+                record[i++] = ants.get(j);
+        }
+
+        return record;
+    }
+
+    /**
+     * Responsible for writing a copy of the nodes of a chunk
+     *
+     * @param out       The output
+     * @param record    The copy, as returned by recordChunk
+     * @throws IOException  If the output cannot be written
+     */
+    static void writeChunk(ChannelOutput out, int[] record) throws IOException {
+
+        int i = 1;
+
+        for(int n = 0; n < record[0]; n++) {
+
+            out.putInt(record[i++]);
+            out.putByte(record[i++]);
+
+            // Counts, food, pheromone and the number of ants present
+            for(int j = 0; j < 7; j++)
+                out.putInt(record[i++]);
+
+            int ants = record[i - 1];
+            for(int j = 0; j < ants; j++)
+                out.putInt(record[i++]);
+        }
+    }
+
+    /**
+     * Responsible for reading everything after the grid size and restoring
+     * it into the simulation
+     *
+     * @param model     The simulation
+     * @param in        The input
+     * @throws IOException  If the input cannot be read
+     */
+    private static void readState(SimModel model, ChannelInput in) throws IOException {
+
+        int cols = model.getCols();
+
+        // Counters and generators
+        int turns = in.getInt();
+        int nextID = in.getInt();
+        boolean over = in.getByte() != 0;
+        long rngState = in.getLong();
+        boolean hasGenerator = in.getByte() != 0;
+        long seed = in.getLong();
+        int clusterSize = in.getInt();
+
+        // Start from an empty grid
+        model.clearSimModel();
+
+        // Ants, whose constructors place them in their nodes
+        int ants = in.getInt();
+        for(int a = 0; a < ants; a++) {
+
+            int id = in.getInt();
+            int type = in.getByte();
+            Node node = node(model, in.getInt(), cols);
+
+            model.restoreAnt(id, type, node);
+
+            Ant ant = getAnt(model, id, type);
+            ant.age = in.getInt();
+
+            if(ant instanceof ForagerAnt) {
+
+                ForagerAnt forager = (ForagerAnt)ant;
+
+                forager.setHasFood(in.getByte() != 0);
+
+                for(int i = 0; i < LOOP_CHECK; i++)
+                    forager.lastEight.set(i, node(model, in.getInt(), cols));
+
+                int steps = in.getInt();
+                for(int i = 0; i < steps; i++)
+                    forager.moveStack.push(node(model, in.getInt(), cols));
+            }
+        }
+
+        // Nodes, overwriting the values set by the ant constructors
+        int nodes = in.getInt();
+        for(int n = 0; n < nodes; n++) {
+
+            Node node = node(model, in.getInt(), cols);
+            String pos = node.getPosition();
+
+            int flags = in.getByte();
+            node.setVisited(pos, (flags & CellStore.VISITED) != 0);
+            node.setQueen(pos, (flags & CellStore.QUEEN) != 0);
+            node.setNumForager(pos, in.getInt());
+            node.setNumScout(pos, in.getInt());
+            node.setNumSoldier(pos, in.getInt());
+            node.setNumBala(pos, in.getInt());
+            node.setFoodAmount(pos, in.getInt());
+            node.setPheromoneLevel(pos, in.getInt());
+
+            ArrayList<Integer> present = node.getAntsPresent();
+            present.clear();
+            int count = in.getInt();
+            for(int i = 0; i < count; i++)
+                present.add(in.getInt());
+        }
+
+        if(in.getInt() != MAGIC)
+            throw new IOException("Missing trailer");
+
+        // Counters and generators
+        model.restoreCounters(turns, nextID, over);
+        RandomNumber.setState(rngState);
+        model.setWorldGenerator(hasGenerator ? new WorldGenerator(seed, clusterSize) : null);
+    }
+
+    /**
+     * Returns whether a node is in its initial (hidden, empty) state
+     *
+     * @param node      The node
+     * @return          True if in its initial state; false otherwise
+     */
+    private static boolean isInitial(Node node) {
+        return !node.getVisited() && !node.getQueen()
+               && node.getNumForager() == 0 && node.getNumScout() == 0
+               && node.getNumSoldier() == 0 && node.getNumBala() == 0
+               && node.getFoodAmount() == 0 && node.getPheromoneLevel() == 0
+               && node.getAntsPresent().isEmpty();
+    }
+
+    /**
+     * Returns an ant given its ID and type
+     *
+     * @param model     The simulation
+     * @param id        Unique ant ID
+     * @param type      Ant type
+     * @return          The ant
+     * @throws IllegalStateException    If there is no such ant
+     */
+    private static Ant getAnt(SimModel model, Integer id, int type) {
+
+        Ant ant;
+
+        if(type == model.QUEEN.intValue())
+            ant = model.getQueen();
+        else
+            ant = (Ant)model.getAntMap(type).get(id);
+
+        if(ant == null)
+            throw new IllegalStateException("No ant " + id + " of type " + type);
+
+        return ant;
+    }
+
+    /**
+     * Returns the cell index of a node
+     *
+     * @param node      The node
+     * @param cols      Number of columns in the grid
+     * @return          The cell index
+     */
+    private static int cell(Node node, int cols) {
+        return node.getRow() * cols + node.getCol();
+    }
+
+    /**
+     * Returns the node at a cell index
+     *
+     * @param model     The simulation
+     * @param cell      The cell index
+     * @param cols      Number of columns in the grid
+     * @return          The node
+     */
+    private static Node node(SimModel model, int cell, int cols) {
+        return model.getNode(cell / cols, cell % cols);
+    }
+}
@@ -0,0 +1,372 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Class CheckpointWriter
+ *
+ * Encapsulates the basic functionality of writing a checkpoint in the
+ * background while the simulation continues.
+ *
+ * Creating a writer freezes the simulation as of the end of the current turn:
+ * the counters and random number generator state are copied, and references
+ * are kept to every ant and every chunk of nodes, but nothing else is copied.
+ * The writer then streams the ants and chunks to the file on its own thread.
+ * Before the simulation changes an ant or a node that the writer has not
+ * reached yet, it copies that ant or chunk as it was when frozen (see
+ * beforeAntChange and beforeNodeChange), so only what is modified during the
+ * write is ever copied, and the simulation never waits for the disk.
+ *
+ * The file has the format described in Checkpoint.
+ *
+ * @author Camron Khan
+ */
+public class CheckpointWriter implements Runnable {
+
+    /************
+     * Constants
+     ************/
+
+    // States of a frozen ant or chunk
+    private static final int UNCOPIED = 0;
+    private static final int COPYING = 1;
+    private static final int COPIED = 2;
+
+    // Reference to the simulation model
+    private final SimModel MODEL;
+
+    // File written
+    private final File FILE;
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+    // Header values as of the freeze
+    private final int TURNS;
+    private final int NEXT_ID;
+    private final boolean GAME_OVER;
+    private final long RNG_STATE;
+    private final WorldGenerator GENERATOR;
+
+    // Ants as of the freeze, in order of creation, and their IDs (ascending)
+    private final Ant[] ANTS;
+    private final int[] ANT_IDS;
+
+    // State of each frozen ant, and its copy once copied
+    private final AtomicIntegerArray ANT_STATE;
+    private final int[][] ANT_COPIES;
+
+    // Chunks allocated as of the freeze, and the position of each chunk in
+    // this list, indexed by chunk index (-1 if allocated since)
+    private final Node[][] CHUNKS;
+    private final int[] CHUNK_SLOTS;
+
+    // Grid the chunks belong to
+    private final ChunkedGrid GRID;
+
+    // State of each frozen chunk, and its copy once copied
+    private final AtomicIntegerArray CHUNK_STATE;
+    private final int[][] CHUNK_COPIES;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Whether the write has finished, and whether it succeeded
+    private volatile boolean finished;
+    private volatile boolean succeeded;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Freezes the state of a simulation for writing to a file.  Must be
+     * called on the simulation thread between turns.
+     *
+     * @param model     The simulation
+     * @param file      The file
+     */
+    public CheckpointWriter(SimModel model, File file) {
+
+        MODEL = model;
+        FILE = file;
+        ROWS = model.getRows();
+        COLS = model.getCols();
+
+        // Header
+        TURNS = model.getNumTurns();
+        NEXT_ID = model.getNextAntID();
+        GAME_OVER = model.isGameOver();
+        RNG_STATE = RandomNumber.getState();
+        GENERATOR = model.getWorldGenerator();
+
+        // Ants, merged from the registry of each type in order of ID, which
+        // is the order in which they were created
+        ANTS = freezeAnts(model);
+        ANT_IDS = new int[ANTS.length];
+        for(int i = 0; i < ANTS.length; i++)
+            ANT_IDS[i] = ANTS[i].ID;
+        ANT_STATE = new AtomicIntegerArray(ANTS.length);
+        ANT_COPIES = new int[ANTS.length][];
+
+        // Chunks
+        GRID = model.getGrid();
+        CHUNKS = new Node[GRID.getAllocatedChunks()][];
+        CHUNK_SLOTS = new int[GRID.getTotalChunks()];
+        Arrays.fill(CHUNK_SLOTS, -1);
+        for(int i = 0; i < CHUNKS.length; i++) {
+            CHUNKS[i] = GRID.getAllocatedChunk(i);
+            CHUNK_SLOTS[GRID.getAllocatedChunkIndex(i)] = i;
+        }
+        CHUNK_STATE = new AtomicIntegerArray(CHUNKS.length);
+        CHUNK_COPIES = new int[CHUNKS.length][];
+
+        finished = false;
+        succeeded = false;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for writing the checkpoint; intended to be run on its own
+     * thread
+     */
+    @Override
+    public void run() {
+        try {
+            write();
+        }
+        catch(IOException e) {
+            System.out.println("Error in CheckpointWriter: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Responsible for writing the checkpoint on the calling thread.  The file
+     * is written under a temporary name, forced to disk and then renamed, so
+     * an existing checkpoint is never left half written.
+     *
+     * @throws IOException  If the file cannot be written
+     */
+    public void write() throws IOException {
+
+        File temp = new File(FILE.getPath() + ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp.toPath(),
+                                                        StandardOpenOption.CREATE,
+                                                        StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+
+                ChannelOutput out = new ChannelOutput(channel);
+
+                Checkpoint.writeHeader(out, ROWS, COLS, TURNS, NEXT_ID, GAME_OVER, RNG_STATE, GENERATOR);
+
+                // Ants
+                out.putInt(ANTS.length);
+                for(int i = 0; i < ANTS.length; i++) {
+                    Checkpoint.writeAnt(out, copyAnt(i));
+                    ANT_COPIES[i] = null;
+                }
+
+                // Nodes, whose number is only known once every chunk is copied
+                long countPosition = out.getPosition();
+                int count = 0;
+                out.putInt(0);
+                for(int i = 0; i < CHUNKS.length; i++) {
+                    int[] record = copyChunk(i);
+                    count += record[0];
+                    Checkpoint.writeChunk(out, record);
+                    CHUNK_COPIES[i] = null;
+                }
+
+                out.putInt(Checkpoint.MAGIC);
+                out.flush();
+
+                // Fill in the number of nodes
+                ByteBuffer buffer = ByteBuffer.allocate(4);
+                buffer.putInt(0, count);
+                channel.write(buffer, countPosition);
+
+                channel.force(false);
+            }
+
+            Files.move(temp.toPath(), FILE.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+
+            succeeded = true;
+        }
+        finally {
+            finished = true;
+        }
+    }
+
+    /**
+     * Responsible for copying an ant before the simulation changes it, if
+     * it was frozen and has not been copied yet.  Must be called on the
+     * simulation thread.
+     *
+     * @param ant       The ant about to change
+     */
+    public void beforeAntChange(Ant ant) {
+
+        // Ants created since the freeze are not written
+        int slot = Arrays.binarySearch(ANT_IDS, ant.ID);
+
+        if(slot >= 0 && ANT_STATE.get(slot) != COPIED)
+            copyAnt(slot);
+    }
+
+    /**
+     * Responsible for copying a node's chunk before the simulation changes
+     * the node, if the chunk was frozen and has not been copied yet.  Must be
+     * called on the simulation thread.
+     *
+     * @param node      The node about to change
+     */
+    public void beforeNodeChange(Node node) {
+
+        // Chunks allocated since the freeze are not written
+        int slot = CHUNK_SLOTS[GRID.getChunkIndex(node.getRow(), node.getCol())];
+
+        if(slot >= 0 && CHUNK_STATE.get(slot) != COPIED)
+            copyChunk(slot);
+    }
+
+    /**
+     * Returns whether the write has finished, successfully or not
+     *
+     * @return      True if finished; false otherwise
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * Returns whether the write has finished successfully
+     *
+     * @return      True if the checkpoint was written; false otherwise
+     */
+    public boolean isSucceeded() {
+        return succeeded;
+    }
+
+    /**
+     * Get the turn as of which the checkpoint is written
+     *
+     * @return      Turns elapsed as of the freeze
+     */
+    public int getTurn() {
+        return TURNS;
+    }
+
+    /**
+     * Returns the copy of a frozen ant, copying it if neither thread has yet
+     *
+     * @param slot      Position of the ant in the frozen list
+     * @return          The copy
+     */
+    private int[] copyAnt(int slot) {
+
+        // Copy the ant unless the other thread has claimed it...
+        if(ANT_STATE.compareAndSet(slot, UNCOPIED, COPYING)) {
+            ANT_COPIES[slot] = Checkpoint.recordAnt(ANTS[slot], COLS);
+            ANT_STATE.set(slot, COPIED);
+        }
+
+        // ...in which case wait for its copy
+        else {
+            while(ANT_STATE.get(slot) != COPIED)
+                Thread.yield();
+        }
+
+        return ANT_COPIES[slot];
+    }
+
+    /**
+     * Returns the copy of a frozen chunk, copying it if neither thread has
+     * yet
+     *
+     * @param slot      Position of the chunk in the frozen list
+     * @return          The copy
+     */
+    private int[] copyChunk(int slot) {
+
+        // Copy the chunk unless the other thread has claimed it...
+        if(CHUNK_STATE.compareAndSet(slot, UNCOPIED, COPYING)) {
+            CHUNK_COPIES[slot] = Checkpoint.recordChunk(CHUNKS[slot], COLS);
+            CHUNK_STATE.set(slot, COPIED);
+        }
+
+        // ...in which case wait for its copy
+        else {
+            while(CHUNK_STATE.get(slot) != COPIED)
+                Thread.yield();
+        }
+
+        return CHUNK_COPIES[slot];
+    }
+
+    /**
+     * Returns every ant in order of creation, by merging the registry of each
+     * type, each of which is in order of creation
+     *
+     * @param model     The simulation
+     * @return          The ants
+     */
+    private static Ant[] freezeAnts(SimModel model) {
+
+        // Ants of each type
+        Ant[][] lists = new Ant[5][];
+        lists[0] = model.getQueen() != null ? new Ant[] {model.getQueen()} : new Ant[0];
+        lists[1] = toArray(model.getAnts(model.FORAGER));
+        lists[2] = toArray(model.getAnts(model.SCOUT));
+        lists[3] = toArray(model.getAnts(model.SOLDIER));
+        lists[4] = toArray(model.getAnts(model.BALA));
+
+        int total = 0;
+        for(Ant[] list : lists)
+            total += list.length;
+
+        // Merge by ID
+        Ant[] ants = new Ant[total];
+        int[] next = new int[lists.length];
+        for(int i = 0; i < total; i++) {
+
+            int best = -1;
+            for(int t = 0; t < lists.length; t++) {
+                if(next[t] < lists[t].length
+                   && (best < 0 || lists[t][next[t]].ID < lists[best][next[best]].ID))
+                    best = t;
+            }
+
+            ants[i] = lists[best][next[best]++];
+        }
+
+        return ants;
+    }
+
+    /**
+     * Returns the ants of a registry as an array
+     *
+     * @param ants      The ants
+     * @return          The array
+     */
+    private static Ant[] toArray(Collection<? extends Ant> ants) {
+        return ants.toArray(new Ant[ants.size()]);
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * Class ChunkedGrid
+ *
+ * Encapsulates the basic functionality of a sparse store for the nodes of the
+ * grid.  The grid is divided into square chunks of CHUNK_SIZE x CHUNK_SIZE
+ * nodes, and a chunk's nodes are only created when one of them is first
+ * requested, typically because a scout reveals it or looks at it from a
+ * neighbouring node.  Unexplored territory therefore costs a single null
+ * reference per chunk, and memory grows with the explored area rather than
+ * the size of the grid.
+ *
+ * @author Camron Khan
+ */
+public class ChunkedGrid {
+
+    /************
+     * Constants
+     ************/
+
+    // Chunks are CHUNK_SIZE = 2^CHUNK_SHIFT nodes along each side
+    public static final int CHUNK_SHIFT = 6;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Reference to the simulation model
+    private final SimModel MODEL;
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+    // Store holding the values of the nodes, or null if each node holds its
+    // own values
+    private final CellStore CELLS;
+
+    // Number of chunks along each axis
+    private final int CHUNK_ROWS;
+    private final int CHUNK_COLS;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Nodes of each chunk, indexed by chunk (chunkRow * CHUNK_COLS +
+    // chunkCol), then by position within the chunk (localRow * CHUNK_SIZE +
+    // localCol); null if the chunk has not been allocated
+    private Node[][] chunks;
+
+    // Indices of the allocated chunks, in order of allocation
+    private int[] allocatedList;
+    private int allocatedCount;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates an empty store for a grid of the given size; no nodes are
+     * created until they are requested
+     *
+     * @param mod       Reference to the simulation model
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    public ChunkedGrid(SimModel mod, int rows, int cols) {
+        this(mod, rows, cols, null);
+    }
+
+    /**
+     * Creates an empty store for a grid of the given size whose nodes hold
+     * their values in a cell store
+     *
+     * @param mod       Reference to the simulation model
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     * @param cells     Store holding the values of the nodes, or null if each
+     *                  node holds its own values
+     */
+    public ChunkedGrid(SimModel mod, int rows, int cols, CellStore cells) {
+
+        MODEL = mod;
+        ROWS = rows;
+        COLS = cols;
+        CELLS = cells;
+        CHUNK_ROWS = (rows + CHUNK_MASK) >> CHUNK_SHIFT;
+        CHUNK_COLS = (cols + CHUNK_MASK) >> CHUNK_SHIFT;
+
+        chunks = new Node[CHUNK_ROWS * CHUNK_COLS][];
+        allocatedList = new int[CHUNK_ROWS * CHUNK_COLS];
+        allocatedCount = 0;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Returns the node at a given position, creating its chunk if necessary
+     *
+     * @param row   x coordinate
+     * @param col   y coordinate
+     * @return      The node
+     */
+    public Node get(int row, int col) {
+
+        // Bounds are checked here, as the chunk arrays are padded
+        if(row < 0 || row >= ROWS || col < 0 || col >= COLS)
+            throw new ArrayIndexOutOfBoundsException(row + "," + col);
+
+        int chunk = (row >> CHUNK_SHIFT) * CHUNK_COLS + (col >> CHUNK_SHIFT);
+
+        // Create the chunk on first use
+        if(chunks[chunk] == null)
+            allocateChunk(chunk);
+
+        return chunks[chunk][(row & CHUNK_MASK) * CHUNK_SIZE + (col & CHUNK_MASK)];
+    }
+
+    /**
+     * Returns the node at a given position without creating its chunk
+     *
+     * @param row   x coordinate
+     * @param col   y coordinate
+     * @return      The node, or null if its chunk has not been created, in
+     *              which case the node is in its initial (hidden, empty) state
+     */
+    public Node peek(int row, int col) {
+
+        Node[] nodes = chunks[(row >> CHUNK_SHIFT) * CHUNK_COLS + (col >> CHUNK_SHIFT)];
+
+        if(nodes == null)
+            return null;
+
+        return nodes[(row & CHUNK_MASK) * CHUNK_SIZE + (col & CHUNK_MASK)];
+    }
+
+    /**
+     * Get the number of chunks created so far
+     *
+     * @return      Number of allocated chunks
+     */
+    public int getAllocatedChunks() {
+        return allocatedCount;
+    }
+
+    /**
+     * Get the total number of chunks covering the grid
+     *
+     * @return      Number of chunks
+     */
+    public int getTotalChunks() {
+        return chunks.length;
+    }
+
+    /**
+     * Get the nodes of an allocated chunk.  Positions of the chunk that lie
+     * outside the grid hold null.
+     *
+     * @param i     Position in the order of allocation, from 0 to
+     *              getAllocatedChunks() - 1
+     * @return      The chunk's nodes
+     */
+    public Node[] getAllocatedChunk(int i) {
+        return chunks[allocatedList[i]];
+    }
+
+    /**
+     * Get the index of an allocated chunk
+     *
+     * @param i     Position in the order of allocation, from 0 to
+     *              getAllocatedChunks() - 1
+     * @return      Index of the chunk
+     */
+    public int getAllocatedChunkIndex(int i) {
+        return allocatedList[i];
+    }
+
+    /**
+     * Returns the index of the chunk holding a position
+     *
+     * @param row   x coordinate
+     * @param col   y coordinate
+     * @return      Index of the chunk
+     */
+    public int getChunkIndex(int row, int col) {
+        return (row >> CHUNK_SHIFT) * CHUNK_COLS + (col >> CHUNK_SHIFT);
+    }
+
+    /**
+     * Responsible for returning every allocated node to its initial state so
+     * that the store can be reused by a new simulation
+     */
+    public void reset() {
+        for(int i = 0; i < allocatedCount; i++) {
+
+            Node[] nodes = chunks[allocatedList[i]];
+
+            for(int n = 0; n < nodes.length; n++) {
+                if(nodes[n] != null)
+                    nodes[n].reset();
+            }
+        }
+    }
+
+    /**
+     * Responsible for creating the nodes of a chunk
+     *
+     * @param chunk     Index of the chunk
+     */
+    private void allocateChunk(int chunk) {
+
+        Node[] nodes = new Node[CHUNK_SIZE * CHUNK_SIZE];
+
+        // Position of the chunk's first node
+        int firstRow = (chunk / CHUNK_COLS) << CHUNK_SHIFT;
+        int firstCol = (chunk % CHUNK_COLS) << CHUNK_SHIFT;
+
+        // Create the nodes that lie within the grid
+        for(int r = 0; r < CHUNK_SIZE && firstRow + r < ROWS; r++) {
+            for(int c = 0; c < CHUNK_SIZE && firstCol + c < COLS; c++) {
+                if(CELLS == null)
+                    nodes[r * CHUNK_SIZE + c] = new HeapNode(MODEL, firstRow + r, firstCol + c);
+                else
+                    nodes[r * CHUNK_SIZE + c] = new StoredNode(MODEL, firstRow + r, firstCol + c, CELLS);
+            }
+        }
+
+        chunks[chunk] = nodes;
+        allocatedList[allocatedCount++] = chunk;
+    }
+}
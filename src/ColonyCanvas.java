@@ -0,0 +1,347 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Rectangle;
+
+import javax.swing.JComponent;
+
+/**
+ *	class ColonyCanvas
+ *
+ *	provides a graphical view for the ant colony that paints every node onto a
+ *	single component
+ *
+ *	unlike ColonyView, which holds one NodeView per node, this view creates no
+ *	child components; only the nodes inside the visible area are painted, so
+ *	memory and paint time depend on the size of the viewport rather than the
+ *	size of the colony
+ *
+ *	nodes are drawn from the latest snapshot published by the model and look
+ *	the same as the equivalent NodeView
+ */
+public class ColonyCanvas extends JComponent
+{
+
+	/************
+	 *	constants
+	 ***********/
+
+	// size for an individual node in the colony
+	public final static int NODE_SIZE = ColonyView.NODE_SIZE;
+
+	// background color
+	private final Color BACKGROUND_COLOR = new Color(200, 178, 55);
+
+	// default font for text
+	private final Font NODE_FONT = new Font("Verdana", Font.BOLD, 10);
+
+	// background color if node has been revealed
+	private final Color OPEN_NODE_COLOR = new Color(200, 178, 55);
+
+	// background color if queen is present
+	private final Color QUEEN_NODE_COLOR = new Color(128, 128, 128);
+
+	// color for text
+	private final Color LABEL_COLOR = Color.BLACK;
+
+	// colors for the lowered bevel border
+	private final Color BORDER_DARK = OPEN_NODE_COLOR.darker().darker();
+	private final Color BORDER_LIGHT = OPEN_NODE_COLOR.brighter();
+
+	// colors depicting concentration of pheromone
+	// 		ranking is violet (low) to red (high)
+	private final Color PHEROMONE_1000 = new Color(220, 79, 79);	// red
+	private final Color PHEROMONE_800 = new Color(255, 204, 50);	// orange
+	private final Color PHEROMONE_600 = new Color(255, 255, 101);	// yellow
+	private final Color PHEROMONE_400 = new Color(105, 171, 100);	// green
+	private final Color PHEROMONE_200 = new Color(79, 79, 252);		// blue
+	private final Color PHEROMONE_0 = new Color(169, 78, 202);		// violet
+
+	// enough characters for any int, with its sign
+	private final int MAX_DIGITS = 11;
+
+
+	/*************
+	 *	attributes
+	 ************/
+
+	// number of rows and columns in the colony
+	private int rows;
+	private int cols;
+
+	// source of the snapshots to be painted
+	private SnapshotExchange snapshots;
+
+	// images for each type of ant
+	private Image queenImage;
+	private Image scoutImage;
+	private Image foragerImage;
+	private Image soldierImage;
+	private Image balaImage;
+
+	// characters of the number being drawn, so that drawing a number does
+	// not create a String (event dispatch thread only)
+	private char[] digits;
+
+	// nanoseconds taken by the most recent paint
+	private volatile long lastPaintNanos;
+
+
+	/***************
+	 *	constructors
+	 **************/
+
+	/**
+	 *	create a new ColonyCanvas for a colony of the specified size
+	 *
+	 *	@param	colonyHeight			height of colony in nodes
+	 *	@param	colonyWidth				width of colony in nodes
+	 *	@param	exchange				source of the snapshots to be painted
+	 */
+	public ColonyCanvas(int colonyHeight, int colonyWidth, SnapshotExchange exchange)
+	{
+		// call superclass constructor
+		super();
+
+		rows = colonyHeight;
+		cols = colonyWidth;
+		snapshots = exchange;
+
+		// nodes are positioned with the row along the X axis, as in ColonyView
+		setPreferredSize(new Dimension(rows * NODE_SIZE, cols * NODE_SIZE));
+
+		// set background color
+		setBackground(BACKGROUND_COLOR);
+		setOpaque(true);
+
+		// images are shared with every other node renderer
+		queenImage = SpriteCache.getIcon(SpriteCache.QUEEN).getImage();
+		scoutImage = SpriteCache.getIcon(SpriteCache.SCOUT).getImage();
+		foragerImage = SpriteCache.getIcon(SpriteCache.FORAGER).getImage();
+		soldierImage = SpriteCache.getIcon(SpriteCache.SOLDIER).getImage();
+		balaImage = SpriteCache.getIcon(SpriteCache.BALA).getImage();
+
+		digits = new char[MAX_DIGITS];
+	}
+
+
+	/**********
+	 *	methods
+	 *********/
+
+	/**
+	 *	request that the node at the specified position be repainted
+	 *
+	 *	@param	row		x coordinate of the node
+	 *	@param	col		y coordinate of the node
+	 */
+	public void repaintNode(int row, int col)
+	{
+		repaint(row * NODE_SIZE, col * NODE_SIZE, NODE_SIZE, NODE_SIZE);
+	}
+
+
+	/**
+	 *	return the time taken by the most recent paint
+	 *
+	 *	@return	nanoseconds taken to paint
+	 */
+	public long getLastPaintNanos()
+	{
+		return lastPaintNanos;
+	}
+
+
+	/**
+	 *	paint the nodes that intersect the area being repainted
+	 *
+	 *	@param	g		graphics context
+	 */
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		long start = System.nanoTime();
+
+		// only the area being repainted (at most the viewport) is drawn
+		Rectangle clip = g.getClipBounds();
+		if (clip == null)
+		{
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+
+		// fill the background, which is all that hidden nodes show
+		g.setColor(BACKGROUND_COLOR);
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+		GridSnapshot snapshot = snapshots.acquire();
+
+		if (snapshot != null)
+		{
+			// range of nodes intersecting the clip
+			int firstRow = Math.max(clip.x / NODE_SIZE, 0);
+			int lastRow = Math.min((clip.x + clip.width - 1) / NODE_SIZE, rows - 1);
+			int firstCol = Math.max(clip.y / NODE_SIZE, 0);
+			int lastCol = Math.min((clip.y + clip.height - 1) / NODE_SIZE, cols - 1);
+
+			g.setFont(NODE_FONT);
+			FontMetrics metrics = g.getFontMetrics();
+
+			for (int row = firstRow; row <= lastRow; row++)
+			{
+				for (int col = firstCol; col <= lastCol; col++)
+				{
+					int index = snapshot.getIndex(row, col);
+
+					if (snapshot.getVisited(index))
+					{
+						paintNode(g, metrics, snapshot, index, row, col);
+					}
+				}
+			}
+		}
+
+		snapshots.release(snapshot);
+
+		lastPaintNanos = System.nanoTime() - start;
+	}
+
+
+	/**
+	 *	paint a single revealed node
+	 *
+	 *	@param	g			graphics context
+	 *	@param	metrics		metrics of the node font
+	 *	@param	snapshot	snapshot being painted
+	 *	@param	index		index of the node in the snapshot
+	 *	@param	row			x coordinate of the node
+	 *	@param	col			y coordinate of the node
+	 */
+	private void paintNode(Graphics g, FontMetrics metrics, GridSnapshot snapshot,
+	                       int index, int row, int col)
+	{
+		int x = row * NODE_SIZE;
+		int y = col * NODE_SIZE;
+		int ascent = metrics.getAscent();
+
+		// background
+		g.setColor(getNodeColor(snapshot.getQueen(index), snapshot.getPheromoneLevel(index)));
+		g.fillRect(x, y, NODE_SIZE, NODE_SIZE);
+
+		// lowered bevel border
+		g.setColor(BORDER_DARK);
+		g.drawLine(x, y, x + NODE_SIZE - 1, y);
+		g.drawLine(x, y, x, y + NODE_SIZE - 1);
+		g.setColor(BORDER_LIGHT);
+		g.drawLine(x, y + NODE_SIZE - 1, x + NODE_SIZE - 1, y + NODE_SIZE - 1);
+		g.drawLine(x + NODE_SIZE - 1, y, x + NODE_SIZE - 1, y + NODE_SIZE - 1);
+
+		// labels, positioned as in NodeView
+		g.setColor(LABEL_COLOR);
+		int end = drawNumber(g, metrics, row, x + 5, y + 5 + ascent);
+		g.drawString(",", end, y + 5 + ascent);
+		drawNumber(g, metrics, col, end + metrics.charWidth(','), y + 5 + ascent);
+		drawCount(g, metrics, "F: ", snapshot.getNumForager(index), x + 5, y + 25 + ascent);
+		drawCount(g, metrics, "Sc: ", snapshot.getNumScout(index), x + 5, y + 35 + ascent);
+		drawCount(g, metrics, "S: ", snapshot.getNumSoldier(index), x + 5, y + 45 + ascent);
+		drawCount(g, metrics, "B: ", snapshot.getNumBala(index), x + 5, y + 55 + ascent);
+		drawCount(g, metrics, "Food: ", snapshot.getFoodAmount(index), x + 5, y + 65 + ascent);
+		drawCount(g, metrics, "Ph: ", snapshot.getPheromoneLevel(index), x + 5, y + 75 + ascent);
+
+		// icons, positioned as in NodeView
+		if (snapshot.getQueen(index))
+			g.drawImage(queenImage, x + 60, y, this);
+		if (snapshot.getNumBala(index) > 0)
+			g.drawImage(balaImage, x + 60, y + 15, this);
+		if (snapshot.getNumSoldier(index) > 0)
+			g.drawImage(soldierImage, x + 60, y + 35, this);
+		if (snapshot.getNumScout(index) > 0)
+			g.drawImage(scoutImage, x + 60, y + 55, this);
+		if (snapshot.getNumForager(index) > 0)
+			g.drawImage(foragerImage, x + 60, y + 75, this);
+	}
+
+
+	/**
+	 *	draw a label followed by a number
+	 *
+	 *	@param	g			graphics context
+	 *	@param	metrics		metrics of the node font
+	 *	@param	label		text preceding the number
+	 *	@param	value		the number
+	 *	@param	x			x coordinate of the text
+	 *	@param	y			y coordinate of the text baseline
+	 */
+	private void drawCount(Graphics g, FontMetrics metrics, String label, int value, int x, int y)
+	{
+		g.drawString(label, x, y);
+
+		drawNumber(g, metrics, value, x + metrics.stringWidth(label), y);
+	}
+
+
+	/**
+	 *	draw a number from its digits, without creating a String
+	 *
+	 *	@param	g			graphics context
+	 *	@param	metrics		metrics of the node font
+	 *	@param	value		the number
+	 *	@param	x			x coordinate of the text
+	 *	@param	y			y coordinate of the text baseline
+	 *	@return	x coordinate just past the number
+	 */
+	private int drawNumber(Graphics g, FontMetrics metrics, int value, int x, int y)
+	{
+		// fill the digits from the end, working with the negative value so
+		// that Integer.MIN_VALUE needs no special case
+		int start = MAX_DIGITS;
+		int remaining = value < 0 ? value : -value;
+
+		do
+		{
+			digits[--start] = (char)('0' - remaining % 10);
+			remaining /= 10;
+		}
+		while (remaining != 0);
+
+		if (value < 0)
+		{
+			digits[--start] = '-';
+		}
+
+		g.drawChars(digits, start, MAX_DIGITS - start, x, y);
+
+		return x + metrics.charsWidth(digits, start, MAX_DIGITS - start);
+	}
+
+
+	/**
+	 *	return the background color of a revealed node, following the same
+	 *	rules as NodeView
+	 *
+	 *	@param	queen		true if the queen is present
+	 *	@param	pheromone	the amount of pheromone
+	 *	@return	the background color
+	 */
+	private Color getNodeColor(boolean queen, int pheromone)
+	{
+		if (pheromone >= 1000)
+			return PHEROMONE_1000;
+		else if (pheromone >= 800)
+			return PHEROMONE_800;
+		else if (pheromone >= 600)
+			return PHEROMONE_600;
+		else if (pheromone >= 400)
+			return PHEROMONE_400;
+		else if (pheromone >= 200)
+			return PHEROMONE_200;
+		else if (pheromone > 0)
+			return PHEROMONE_0;
+		else if (queen)
+			return QUEEN_NODE_COLOR;
+		else
+			return OPEN_NODE_COLOR;
+	}
+}
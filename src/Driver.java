@@ -5,18 +5,35 @@
  */
 public class Driver {
     
+    // Initial conditions
+    static final int ROW = 27;
+    static final int COL = 27;
+    static final int MS_PER_TURN = 1000;
+    static final int TURNS_PER_DAY = 10;
+    
     /**
-     * @param args the command line arguments
+     * @param args the command line arguments: optionally a seed from which
+     *             the world is generated, followed by the size of food
+     *             clusters
      */
     public static void main(String[] args) {
         
-        // Set initial conditions
-        final int ROW = 27;
-        final int COL = 27;
-        final int MS_PER_TURN = 1000;
-        final int TURNS_PER_DAY = 10;
-        
         // Create simulation model
         SimModel model = new SimModel(ROW, COL, MS_PER_TURN, TURNS_PER_DAY);
+        
+        // Let JMX consoles watch and control the simulation
+        SimulationManager.register(model);
+        
+        // Generate the world from a seed, if given
+        if(args.length > 0) {
+            try {
+                long seed = Long.parseLong(args[0]);
+                int clusterSize = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+                model.setWorldGenerator(new WorldGenerator(seed, clusterSize));
+            }
+            catch(NumberFormatException e) {
+                System.out.println("Error in Driver: invalid seed or cluster size");
+            }
+        }
     }
 }
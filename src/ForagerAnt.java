@@ -86,6 +86,24 @@ public class ForagerAnt extends MobileAnt implements TimeDependent {
      * Methods
      **********/
     
+    /**
+     * Responsible for getting whether the forager is carrying food
+     * 
+     * @return      True if carrying food; false otherwise
+     */
+    public boolean getHasFood() {
+        return hasFood;
+    }
+    
+    /**
+     * Responsible for setting whether the forager is carrying food
+     * 
+     * @param f     True if carrying food; false otherwise
+     */
+    public void setHasFood(boolean f) {
+        hasFood = f;
+    }
+    
     /**
      * Responsible for performing actions dependent on the simulation clock
      */
@@ -125,7 +143,7 @@ public class ForagerAnt extends MobileAnt implements TimeDependent {
         hereNode.setNumForager(hereNode.getPosition(), currentForager);
         
         // Remove from node's ID list
-        hereNode.getAntsPresent().remove(ID);
+        hereNode.removeAnt(ID);
         
         // Leave food at current node
         int foodAmt = hereNode.getFoodAmount();
@@ -206,7 +224,7 @@ public class ForagerAnt extends MobileAnt implements TimeDependent {
      * 
      * @return      The node where the ant will move next
      */
-    private Node forage(Node currentNode) {
+    Node forage(Node currentNode) {
 
         // The next node
         Node nextNode;
@@ -0,0 +1,570 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class GridSnapshot
+ *
+ * Encapsulates a consistent copy of the grid and ant population as of the end
+ * of a single turn.  Snapshots are published by a SnapshotExchange and must be
+ * treated as read-only by every reader.
+ *
+ * Cells are addressed in row-major order; the cell at (row, col) is found at
+ * index row * getCols() + col.  Their values are held a chunk of the grid at
+ * a time (see ChunkedGrid), and a chunk is only allocated once one of its
+ * cells leaves the initial (hidden, empty) state, so a snapshot costs memory
+ * in proportion to the territory explored rather than the size of the grid.
+ *
+ * @author Camron Khan
+ */
+public class GridSnapshot {
+
+    /************
+     * Constants
+     ************/
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+    // Chunks are CHUNK_SIZE nodes along each side
+    private static final int CHUNK_SHIFT = ChunkedGrid.CHUNK_SHIFT;
+    private static final int CHUNK_SIZE = ChunkedGrid.CHUNK_SIZE;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Number of values held per cell, addressed as in a CellStore
+    private static final int FIELDS = CellStore.FIELDS;
+
+    // Number of chunks along the columns of the grid
+    private final int CHUNK_COLS;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Publication sequence number; consecutive snapshots differ by one
+    private long sequence;
+
+    // Turns elapsed and the corresponding simulation time
+    private int turn;
+    private String time;
+
+    // Values of each chunk's cells, indexed by chunk (chunkRow * CHUNK_COLS
+    // + chunkCol), then by (localRow * CHUNK_SIZE + localCol) * FIELDS +
+    // field; null while every cell of the chunk is in its initial state
+    private int[][] chunks;
+
+    // Cells changed since the previous snapshot was published
+    private int[] changed;
+    private int changedCount;
+
+    // Whether any cell may have changed since the previous snapshot, in
+    // which case the change list is incomplete
+    private boolean reset;
+
+    // Number of living ants of each type
+    private boolean queenAlive;
+    private int numForager;
+    private int numScout;
+    private int numSoldier;
+    private int numBala;
+
+    // Cells changed since this buffer was last written (writer only)
+    final CellSet stale;
+
+    // Whether this buffer must be copied in full on its next write
+    boolean fullCopy;
+
+    // Whether this buffer must be cleared to the initial state of the grid
+    // on its next write, before its stale cells are copied
+    boolean cleared;
+
+    // Number of readers currently holding this snapshot
+    final AtomicInteger readers;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates an empty snapshot buffer for a grid of the given size
+     *
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    GridSnapshot(int rows, int cols) {
+
+        ROWS = rows;
+        COLS = cols;
+        CHUNK_COLS = (cols + CHUNK_MASK) >> CHUNK_SHIFT;
+
+        chunks = new int[((rows + CHUNK_MASK) >> CHUNK_SHIFT) * CHUNK_COLS][];
+        changed = new int[0];
+
+        stale = new CellSet(rows, cols);
+        fullCopy = true;
+        cleared = false;
+
+        readers = new AtomicInteger();
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for copying a node's current state into this buffer; must
+     * only be called by the publishing thread
+     *
+     * @param index     Index of the node's cell
+     * @param node      The node, or null if it has not been created, in which
+     *                  case the cell is hidden and empty
+     */
+    void copyNode(int index, Node node) {
+
+        if(node == null) {
+            clearCell(index);
+            return;
+        }
+
+        int flags = (node.getVisited() ? CellStore.VISITED : 0)
+                    | (node.getQueen() ? CellStore.QUEEN : 0);
+        int foragers = node.getNumForager();
+        int scouts = node.getNumScout();
+        int soldiers = node.getNumSoldier();
+        int balas = node.getNumBala();
+        int foodAmount = node.getFoodAmount();
+        int pheromoneLevel = node.getPheromoneLevel();
+
+        // A node in its initial state leaves an unallocated chunk as it is
+        if(flags == 0 && foragers == 0 && scouts == 0 && soldiers == 0
+           && balas == 0 && foodAmount == 0 && pheromoneLevel == 0) {
+            clearCell(index);
+            return;
+        }
+
+        int[] values = getChunk(index, true);
+        int offset = getOffset(index);
+
+        values[offset + CellStore.FLAGS] = flags;
+        values[offset + CellStore.FORAGER] = foragers;
+        values[offset + CellStore.SCOUT] = scouts;
+        values[offset + CellStore.SOLDIER] = soldiers;
+        values[offset + CellStore.BALA] = balas;
+        values[offset + CellStore.FOOD] = foodAmount;
+        values[offset + CellStore.PHEROMONE] = pheromoneLevel;
+    }
+
+    /**
+     * Responsible for copying a cell from a cell store into this buffer; must
+     * only be called by the publishing thread
+     *
+     * @param index     Index of the cell
+     * @param cells     Store holding the cell
+     */
+    void copyCell(int index, CellStore cells) {
+
+        // A cell in its initial state leaves an unallocated chunk as it is
+        boolean initial = true;
+        for(int field = 0; field < FIELDS && initial; field++)
+            initial = cells.get(index, field) == 0;
+
+        if(initial) {
+            clearCell(index);
+            return;
+        }
+
+        int[] values = getChunk(index, true);
+        int offset = getOffset(index);
+
+        for(int field = 0; field < FIELDS; field++)
+            values[offset + field] = cells.get(index, field);
+    }
+
+    /**
+     * Responsible for returning a cell of this buffer to the initial state of
+     * the grid (hidden and empty)
+     *
+     * @param index     Index of the cell
+     */
+    private void clearCell(int index) {
+
+        int[] values = getChunk(index, false);
+
+        if(values != null)
+            Arrays.fill(values, getOffset(index), getOffset(index) + FIELDS, 0);
+    }
+
+    /**
+     * Responsible for returning every cell of this buffer to the initial
+     * state of the grid (hidden and empty); must only be called by the
+     * publishing thread.  Allocated chunks are kept, to be reused.
+     */
+    void clear() {
+        for(int chunk = 0; chunk < chunks.length; chunk++) {
+            if(chunks[chunk] != null)
+                Arrays.fill(chunks[chunk], 0);
+        }
+    }
+
+    /**
+     * Responsible for copying every cell from another buffer; must only be
+     * called by the publishing thread
+     *
+     * @param other     The buffer to be copied
+     */
+    void copyFrom(GridSnapshot other) {
+        for(int chunk = 0; chunk < chunks.length; chunk++) {
+
+            if(other.chunks[chunk] == null) {
+                if(chunks[chunk] != null)
+                    Arrays.fill(chunks[chunk], 0);
+            }
+
+            else if(chunks[chunk] == null)
+                chunks[chunk] = other.chunks[chunk].clone();
+
+            else
+                System.arraycopy(other.chunks[chunk], 0, chunks[chunk], 0, chunks[chunk].length);
+        }
+    }
+
+    /**
+     * Responsible for recording that a cell changed after this buffer was
+     * written; must only be called by the publishing thread
+     *
+     * @param index     Index of the changed cell
+     */
+    void markStale(int index) {
+        stale.add(index);
+    }
+
+    /**
+     * Get the number of chunks of the grid for which values are held
+     *
+     * @return      Number of allocated chunks
+     */
+    int getAllocatedChunks() {
+
+        int count = 0;
+        for(int chunk = 0; chunk < chunks.length; chunk++) {
+            if(chunks[chunk] != null)
+                count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns the values of the chunk holding a cell
+     *
+     * @param index     Index of the cell
+     * @param create    True to allocate the chunk if it has not been
+     * @return          The chunk's values, or null if not allocated and not
+     *                  created
+     */
+    private int[] getChunk(int index, boolean create) {
+
+        int row = index / COLS;
+        int col = index - row * COLS;
+        int chunk = (row >> CHUNK_SHIFT) * CHUNK_COLS + (col >> CHUNK_SHIFT);
+
+        if(chunks[chunk] == null && create)
+            chunks[chunk] = new int[CHUNK_SIZE * CHUNK_SIZE * FIELDS];
+
+        return chunks[chunk];
+    }
+
+    /**
+     * Returns the position of a cell's first value within its chunk
+     *
+     * @param index     Index of the cell
+     * @return          Position within the chunk's values
+     */
+    private int getOffset(int index) {
+
+        int row = index / COLS;
+        int col = index - row * COLS;
+
+        return ((row & CHUNK_MASK) * CHUNK_SIZE + (col & CHUNK_MASK)) * FIELDS;
+    }
+
+    /**
+     * Returns one of a cell's values
+     *
+     * @param index     Index of the cell
+     * @param field     The value (see CellStore)
+     * @return          The value; 0 in the initial state
+     */
+    private int get(int index, int field) {
+
+        int[] values = getChunk(index, false);
+
+        return values == null ? 0 : values[getOffset(index) + field];
+    }
+
+    /**
+     * Responsible for setting the header values of this buffer; must only be
+     * called by the publishing thread
+     *
+     * @param seq           Publication sequence number
+     * @param turns         Turns elapsed
+     * @param timeString    String representation of the simulation time
+     */
+    void setHeader(long seq, int turns, String timeString) {
+        sequence = seq;
+        turn = turns;
+        time = timeString;
+    }
+
+    /**
+     * Responsible for setting the ant population of this buffer; must only be
+     * called by the publishing thread
+     *
+     * @param q     True if the queen is alive
+     * @param f     Number of foragers
+     * @param sc    Number of scouts
+     * @param so    Number of soldiers
+     * @param b     Number of balas
+     */
+    void setPopulation(boolean q, int f, int sc, int so, int b) {
+        queenAlive = q;
+        numForager = f;
+        numScout = sc;
+        numSoldier = so;
+        numBala = b;
+    }
+
+    /**
+     * Responsible for setting the list of cells changed since the previous
+     * snapshot; must only be called by the publishing thread
+     *
+     * @param list      Indices of the changed cells
+     * @param count     Number of changed cells in the list
+     * @param r         True if the grid was reset, so that any cell may have
+     *                  changed
+     */
+    void setChanged(int[] list, int count, boolean r) {
+
+        // Grow the list to hold every changed cell
+        if(changed.length < count)
+            changed = new int[Math.max(count, changed.length * 2)];
+
+        System.arraycopy(list, 0, changed, 0, count);
+        changedCount = count;
+        reset = r;
+    }
+
+    /**
+     * Get the number of rows in the grid
+     *
+     * @return      Number of rows
+     */
+    public int getRows() {
+        return ROWS;
+    }
+
+    /**
+     * Get the number of columns in the grid
+     *
+     * @return      Number of columns
+     */
+    public int getCols() {
+        return COLS;
+    }
+
+    /**
+     * Get the index of a cell given its row and column
+     *
+     * @param row   x coordinate
+     * @param col   y coordinate
+     * @return      Index of the cell
+     */
+    public int getIndex(int row, int col) {
+        return row * COLS + col;
+    }
+
+    /**
+     * Get the publication sequence number of this snapshot
+     *
+     * @return      Sequence number; consecutive snapshots differ by one
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Get the number of turns elapsed when this snapshot was taken
+     *
+     * @return      Turns elapsed
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Get a String representation of the simulation time of this snapshot
+     *
+     * @return      String representation of the simulation time
+     */
+    public String getTime() {
+        return time;
+    }
+
+    /**
+     * Get the number of cells changed since the previous snapshot
+     *
+     * @return      Number of changed cells
+     */
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * Returns whether the grid was reset since the previous snapshot.  If so,
+     * any cell may have changed and readers must compare every cell rather
+     * than only those in the change list.
+     *
+     * @return      True if the grid was reset; false otherwise
+     */
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * Get the index of a cell changed since the previous snapshot
+     *
+     * @param i     Position in the list of changed cells
+     * @return      Index of the changed cell
+     */
+    public int getChanged(int i) {
+        return changed[i];
+    }
+
+    /**
+     * Get whether a cell has been visited by a scout
+     *
+     * @param index     Index of the cell
+     * @return          True if visited; false otherwise
+     */
+    public boolean getVisited(int index) {
+        return (get(index, CellStore.FLAGS) & CellStore.VISITED) != 0;
+    }
+
+    /**
+     * Get whether the queen is present in a cell
+     *
+     * @param index     Index of the cell
+     * @return          True if present; false otherwise
+     */
+    public boolean getQueen(int index) {
+        return (get(index, CellStore.FLAGS) & CellStore.QUEEN) != 0;
+    }
+
+    /**
+     * Get the number of foragers in a cell
+     *
+     * @param index     Index of the cell
+     * @return          Number of foragers
+     */
+    public int getNumForager(int index) {
+        return get(index, CellStore.FORAGER);
+    }
+
+    /**
+     * Get the number of scouts in a cell
+     *
+     * @param index     Index of the cell
+     * @return          Number of scouts
+     */
+    public int getNumScout(int index) {
+        return get(index, CellStore.SCOUT);
+    }
+
+    /**
+     * Get the number of soldiers in a cell
+     *
+     * @param index     Index of the cell
+     * @return          Number of soldiers
+     */
+    public int getNumSoldier(int index) {
+        return get(index, CellStore.SOLDIER);
+    }
+
+    /**
+     * Get the number of balas in a cell
+     *
+     * @param index     Index of the cell
+     * @return          Number of balas
+     */
+    public int getNumBala(int index) {
+        return get(index, CellStore.BALA);
+    }
+
+    /**
+     * Get the amount of food in a cell
+     *
+     * @param index     Index of the cell
+     * @return          Amount of food
+     */
+    public int getFoodAmount(int index) {
+        return get(index, CellStore.FOOD);
+    }
+
+    /**
+     * Get the pheromone level in a cell
+     *
+     * @param index     Index of the cell
+     * @return          Pheromone level
+     */
+    public int getPheromoneLevel(int index) {
+        return get(index, CellStore.PHEROMONE);
+    }
+
+    /**
+     * Get whether the queen was alive when this snapshot was taken
+     *
+     * @return      True if alive; false otherwise
+     */
+    public boolean getQueenAlive() {
+        return queenAlive;
+    }
+
+    /**
+     * Get the number of living foragers
+     *
+     * @return      Number of foragers
+     */
+    public int getForagerPopulation() {
+        return numForager;
+    }
+
+    /**
+     * Get the number of living scouts
+     *
+     * @return      Number of scouts
+     */
+    public int getScoutPopulation() {
+        return numScout;
+    }
+
+    /**
+     * Get the number of living soldiers
+     *
+     * @return      Number of soldiers
+     */
+    public int getSoldierPopulation() {
+        return numSoldier;
+    }
+
+    /**
+     * Get the number of living balas
+     *
+     * @return      Number of balas
+     */
+    public int getBalaPopulation() {
+        return numBala;
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.Arrays;
+
+/**
+ * Class HeapCellStore
+ *
+ * Encapsulates the basic functionality of a cell store held in a single int
+ * array on the heap, FIELDS ints per cell in row-major order.  Intended for
+ * copies of the grid kept outside the simulation, such as the state of a
+ * replay.
+ *
+ * @author Camron Khan
+ */
+public class HeapCellStore implements CellStore {
+
+    /************
+     * Constants
+     ************/
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Values of every cell, indexed by cell * FIELDS + field
+    private int[] values;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a store for a grid of the given size in which every cell is
+     * empty
+     *
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    public HeapCellStore(int rows, int cols) {
+        ROWS = rows;
+        COLS = cols;
+        values = new int[rows * cols * FIELDS];
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Returns a field of a cell
+     *
+     * @param cell      Index of the cell (row * cols + col)
+     * @param field     The field
+     * @return          Value of the field
+     */
+    @Override
+    public int get(int cell, int field) {
+        return values[cell * FIELDS + field];
+    }
+
+    /**
+     * Sets a field of a cell
+     *
+     * @param cell      Index of the cell (row * cols + col)
+     * @param field     The field
+     * @param value     New value of the field
+     */
+    @Override
+    public void set(int cell, int field, int value) {
+        values[cell * FIELDS + field] = value;
+    }
+
+    /**
+     * Marks the start of a batch of writes; nothing is required
+     */
+    @Override
+    public void beginUpdate() {
+    }
+
+    /**
+     * Marks the end of a batch of writes; nothing is required
+     *
+     * @param turn      Turns elapsed once the batch is complete
+     */
+    @Override
+    public void endUpdate(int turn) {
+    }
+
+    /**
+     * Responsible for returning every cell to its initial (empty) state
+     */
+    public void clear() {
+        Arrays.fill(values, 0);
+    }
+
+    /**
+     * Get the number of cells in the store
+     *
+     * @return      Number of cells
+     */
+    public int getCells() {
+        return ROWS * COLS;
+    }
+}
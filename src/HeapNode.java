@@ -0,0 +1,99 @@
+/**
+ * Class HeapNode
+ *
+ * Encapsulates a node whose values are held in fields of its own, on the
+ * heap.  Used unless the model has a cell store.
+ *
+ * @author Camron Khan
+ */
+public class HeapNode extends Node {
+
+    /*************
+     * Attributes
+     *************/
+
+    // Bits of the node's flags: visited by a scout, queen present
+    private int flags;
+
+    // Number of ant type in node
+    private int numForager;
+    private int numScout;
+    private int numSoldier;
+    private int numBala;
+
+    // Amount of food present in node
+    private int food;
+
+    // Pheromone level present in node
+    private int pheromone;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a hidden, empty node
+     *
+     * @param mod       Reference to the simulation model
+     * @param x         x coordinate
+     * @param y         y coordinate
+     */
+    public HeapNode(SimModel mod, int x, int y) {
+        super(mod, x, y);
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Override
+    protected int getField(int field) {
+
+        switch(field) {
+            case CellStore.FLAGS:
+                return flags;
+            case CellStore.FORAGER:
+                return numForager;
+            case CellStore.SCOUT:
+                return numScout;
+            case CellStore.SOLDIER:
+                return numSoldier;
+            case CellStore.BALA:
+                return numBala;
+            case CellStore.FOOD:
+                return food;
+            default:
+                return pheromone;
+        }
+    }
+
+    @Override
+    protected void setField(int field, int value) {
+
+        switch(field) {
+            case CellStore.FLAGS:
+                flags = value;
+                break;
+            case CellStore.FORAGER:
+                numForager = value;
+                break;
+            case CellStore.SCOUT:
+                numScout = value;
+                break;
+            case CellStore.SOLDIER:
+                numSoldier = value;
+                break;
+            case CellStore.BALA:
+                numBala = value;
+                break;
+            case CellStore.FOOD:
+                food = value;
+                break;
+            default:
+                pheromone = value;
+                break;
+        }
+    }
+}
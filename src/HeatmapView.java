@@ -0,0 +1,362 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import javax.swing.JComponent;
+import javax.swing.Scrollable;
+
+/**
+ *	class HeatmapView
+ *
+ *	provides an overview of the ant colony as a heatmap, with one pixel per
+ *	node, for a single selectable layer (pheromone, food or the density of one
+ *	type of ant)
+ *
+ *	node values are written straight into the pixel array of an image, and the
+ *	image is scaled to fit the window when painted, keeping the proportions of
+ *	the colony, so the cost of a repaint is a single image blit however large
+ *	the colony
+ *
+ *	on each refresh only the nodes changed since the last refresh are redrawn,
+ *	however many snapshots were published in between
+ */
+public class HeatmapView extends JComponent implements Scrollable
+{
+
+	/************
+	 *	constants
+	 ***********/
+
+	// layers that may be displayed
+	public final static int PHEROMONE_LAYER = 0;
+	public final static int FOOD_LAYER = 1;
+	public final static int FORAGER_LAYER = 2;
+	public final static int SCOUT_LAYER = 3;
+	public final static int SOLDIER_LAYER = 4;
+	public final static int BALA_LAYER = 5;
+
+	// names of the layers, indexed by layer
+	public final static String[] LAYER_NAMES =
+		{ "Pheromone", "Food", "Foragers", "Scouts", "Soldiers", "Bala" };
+
+	// value shown at full intensity for each layer, indexed by layer
+	private final int[] LAYER_MAXIMUM = { 1000, 1000, 20, 5, 10, 5 };
+
+	// color of the area outside the image
+	private final Color BACKGROUND_COLOR = Color.DARK_GRAY;
+
+	// color of nodes that have not been revealed
+	private final Color HIDDEN_COLOR = new Color(60, 53, 16);
+
+	// color of revealed nodes with nothing in the selected layer
+	private final Color EMPTY_COLOR = new Color(200, 178, 55);
+
+	// colors from which the palette is interpolated
+	// 		ranking is violet (low) to red (high), as in NodeView
+	private final Color[] GRADIENT = {
+		new Color(169, 78, 202),	// violet
+		new Color(79, 79, 252),		// blue
+		new Color(105, 171, 100),	// green
+		new Color(255, 255, 101),	// yellow
+		new Color(255, 204, 50),	// orange
+		new Color(220, 79, 79)		// red
+	};
+
+	// number of colors in the palette
+	private final int PALETTE_SIZE = 256;
+
+
+	/*************
+	 *	attributes
+	 ************/
+
+	// number of rows and columns in the colony
+	private int rows;
+	private int cols;
+
+	// image holding one pixel per node, and its pixel array
+	private BufferedImage image;
+	private int[] pixels;
+
+	// precomputed RGB values, from lowest to highest intensity
+	private int[] palette;
+
+	// layer being displayed
+	private int layer;
+
+	// nodes changed since the last refresh, or null before the first
+	private ChangeTracker tracker;
+
+	// whether every node must be redrawn, whatever has changed
+	private boolean redrawAll;
+
+
+	/***************
+	 *	constructors
+	 **************/
+
+	/**
+	 *	create a new HeatmapView for a colony of the specified size
+	 *
+	 *	@param	colonyHeight			height of colony in nodes
+	 *	@param	colonyWidth				width of colony in nodes
+	 */
+	public HeatmapView(int colonyHeight, int colonyWidth)
+	{
+		// call superclass constructor
+		super();
+
+		rows = colonyHeight;
+		cols = colonyWidth;
+
+		// nodes are positioned with the row along the X axis, as in ColonyView
+		image = new BufferedImage(rows, cols, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+
+		// build the palette
+		palette = new int[PALETTE_SIZE];
+		for (int i = 0; i < PALETTE_SIZE; i++)
+		{
+			palette[i] = interpolate((double)i / (PALETTE_SIZE - 1));
+		}
+
+		layer = PHEROMONE_LAYER;
+		redrawAll = true;
+
+		setOpaque(true);
+		setPreferredSize(new Dimension(rows, cols));
+	}
+
+
+	/**********
+	 *	methods
+	 *********/
+
+	/**
+	 *	set the layer to be displayed
+	 *
+	 *	@param	l		the layer (see the constants of this class)
+	 */
+	public void setLayer(int l)
+	{
+		if (l != layer)
+		{
+			layer = l;
+
+			// every pixel must be redrawn
+			redrawAll = true;
+		}
+	}
+
+
+	/**
+	 *	get the layer being displayed
+	 *
+	 *	@return	the layer (see the constants of this class)
+	 */
+	public int getLayer()
+	{
+		return layer;
+	}
+
+
+	/**
+	 *	draw the latest snapshot into the image and request a repaint
+	 *
+	 *	only the nodes changed since the last refresh are redrawn, unless the
+	 *	layer was changed, the grid was reset or too much of it changed, in
+	 *	which case every node is redrawn
+	 *
+	 *	must be called on the event dispatch thread
+	 *
+	 *	@param	snapshots		exchange publishing the snapshots
+	 */
+	public void refresh(SnapshotExchange snapshots)
+	{
+		// nothing has been published yet
+		if (snapshots.getSequence() == 0)
+			return;
+
+		if (tracker == null)
+			tracker = snapshots.createTracker();
+
+		// take the changes before acquiring the snapshot holding them
+		tracker.take();
+		if (!redrawAll && !tracker.isAll() && tracker.getCount() == 0)
+			return;
+
+		GridSnapshot snapshot = snapshots.acquire();
+		try
+		{
+			if (redrawAll || tracker.isAll())
+			{
+				for (int index = 0; index < rows * cols; index++)
+				{
+					drawNode(snapshot, index);
+				}
+			}
+			else
+			{
+				for (int i = 0; i < tracker.getCount(); i++)
+				{
+					drawNode(snapshot, tracker.get(i));
+				}
+			}
+		}
+		finally
+		{
+			snapshots.release(snapshot);
+		}
+
+		redrawAll = false;
+
+		repaint();
+	}
+
+
+	/**
+	 *	paint the image scaled to fit this component, centered, with every node
+	 *	the same width as height
+	 *
+	 *	@param	g		graphics context
+	 */
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		Graphics2D g2 = (Graphics2D)g;
+
+		g2.setColor(BACKGROUND_COLOR);
+		g2.fillRect(0, 0, getWidth(), getHeight());
+
+		// keep each node a sharp block when enlarged
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+		                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+		// rows are along the X axis
+		double scale = Math.min((double)getWidth() / rows, (double)getHeight() / cols);
+		int width = (int)(rows * scale);
+		int height = (int)(cols * scale);
+
+		g2.drawImage(image, (getWidth() - width) / 2, (getHeight() - height) / 2,
+		             width, height, null);
+	}
+
+
+	/**
+	 *	write the color of a single node into the pixel array
+	 *
+	 *	@param	snapshot	snapshot being drawn
+	 *	@param	index		index of the node in the snapshot
+	 */
+	private void drawNode(GridSnapshot snapshot, int index)
+	{
+		// pixels are laid out by column, then row
+		int row = index / cols;
+		int col = index % cols;
+		int pixel = col * rows + row;
+
+		if (!snapshot.getVisited(index))
+		{
+			pixels[pixel] = HIDDEN_COLOR.getRGB();
+			return;
+		}
+
+		int value = getValue(snapshot, index);
+
+		if (value <= 0)
+		{
+			pixels[pixel] = EMPTY_COLOR.getRGB();
+		}
+		else
+		{
+			int shade = (int)((long)value * (PALETTE_SIZE - 1) / LAYER_MAXIMUM[layer]);
+			pixels[pixel] = palette[Math.min(shade, PALETTE_SIZE - 1)];
+		}
+	}
+
+
+	/**
+	 *	get the value of the selected layer for a node
+	 *
+	 *	@param	snapshot	snapshot being drawn
+	 *	@param	index		index of the node in the snapshot
+	 *	@return	the value
+	 */
+	private int getValue(GridSnapshot snapshot, int index)
+	{
+		switch (layer)
+		{
+			case FOOD_LAYER:
+				return snapshot.getFoodAmount(index);
+			case FORAGER_LAYER:
+				return snapshot.getNumForager(index);
+			case SCOUT_LAYER:
+				return snapshot.getNumScout(index);
+			case SOLDIER_LAYER:
+				return snapshot.getNumSoldier(index);
+			case BALA_LAYER:
+				return snapshot.getNumBala(index);
+			default:
+				return snapshot.getPheromoneLevel(index);
+		}
+	}
+
+
+	/**
+	 *	get the RGB value at a position along the gradient
+	 *
+	 *	@param	t		position, from 0 (lowest) to 1 (highest)
+	 *	@return	the RGB value
+	 */
+	private int interpolate(double t)
+	{
+		double scaled = t * (GRADIENT.length - 1);
+		int i = Math.min((int)scaled, GRADIENT.length - 2);
+		double f = scaled - i;
+
+		Color a = GRADIENT[i];
+		Color b = GRADIENT[i + 1];
+
+		int red = (int)(a.getRed() + f * (b.getRed() - a.getRed()));
+		int green = (int)(a.getGreen() + f * (b.getGreen() - a.getGreen()));
+		int blue = (int)(a.getBlue() + f * (b.getBlue() - a.getBlue()));
+
+		return (red << 16) | (green << 8) | blue;
+	}
+
+
+	/**
+	 *	scrollable methods
+	 *
+	 *	the heatmap always fills the viewport of its scroll pane
+	 */
+	public Dimension getPreferredScrollableViewportSize()
+	{
+		return getPreferredSize();
+	}
+
+	public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction)
+	{
+		return 1;
+	}
+
+	public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction)
+	{
+		return 1;
+	}
+
+	public boolean getScrollableTracksViewportWidth()
+	{
+		return true;
+	}
+
+	public boolean getScrollableTracksViewportHeight()
+	{
+		return true;
+	}
+}
@@ -0,0 +1,314 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Class Journal
+ *
+ * Encapsulates the basic functionality of a recorder that logs the changes
+ * made to the grid by every turn into a compact append-only file, so that a
+ * run can be replayed (see JournalReplay) without re-running the ants.
+ *
+ * The file starts with a header (MAGIC, VERSION, rows, cols, turns per day
+ * and keyframe interval, as big-endian ints) followed by one frame per turn.
+ * Each frame is its kind, its turn as a varint and its contents:
+ *
+ *     KEYFRAME    the number of living ants of each type as varints, then
+ *                 every cell, encoded by SnapshotEncoder.writeKeyframe
+ *     DELTA       masks of the ant types with births and deaths and their
+ *                 numbers as varints, then the cells changed by the turn,
+ *                 encoded by SnapshotEncoder.writeDelta
+ *
+ * Frames are written straight to the file as they are encoded.  Moves, food
+ * transfers, pheromone deposits and decay all appear as changes to the cells
+ * involved.
+ *
+ * A keyframe is written every KEYFRAME_INTERVAL turns and whenever the grid
+ * is set up again.  Must only be used on the simulation thread.
+ *
+ * @author Camron Khan
+ */
+public class Journal {
+
+    /************
+     * Constants
+     ************/
+
+    // Identifies the file format ("AJNL")
+    public static final int MAGIC = 0x414A4E4C;
+    public static final int VERSION = 2;
+
+    // Kinds of frame
+    public static final int DELTA = 0;
+    public static final int KEYFRAME = 1;
+
+    // Number of ant types (queen, forager, scout, soldier, bala)
+    public static final int ANT_TYPES = 5;
+
+    // Reference to the simulation model
+    private final SimModel MODEL;
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+    // Number of turns between keyframes
+    private final int KEYFRAME_INTERVAL;
+
+    // Channel to the file
+    private final FileChannel CHANNEL;
+
+    // Output to the file
+    private final ChannelOutput OUT;
+
+    // Store holding the grid being recorded
+    private final CellStore SOURCE;
+
+    // Encoder of the grid, holding its state as of the last frame
+    private final SnapshotEncoder ENCODER;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Cells changed since the last frame
+    private boolean[] dirty;
+    private int[] dirtyList;
+    private int dirtyCount;
+
+    // Ants of each type born and died since the last frame
+    private int[] births;
+    private int[] deaths;
+
+    // Turn of the last keyframe
+    private int lastKeyframe;
+
+    // Turn of the last frame; -1 before the first
+    private int lastTurn;
+
+    // Whether the next frame must be a keyframe read from the whole grid
+    private boolean resync;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a journal of a simulation, replacing the file if it exists.
+     * The first frame is a keyframe.
+     *
+     * @param model         The simulation
+     * @param file          The file
+     * @param interval      Number of turns between keyframes
+     * @param turnsPerDay   Number of turns per day
+     * @throws IOException  If the file cannot be created
+     */
+    public Journal(SimModel model, File file, int interval, int turnsPerDay) throws IOException {
+
+        MODEL = model;
+        ROWS = model.getRows();
+        COLS = model.getCols();
+        KEYFRAME_INTERVAL = Math.max(interval, 1);
+
+        CHANNEL = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                   StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+        OUT = new ChannelOutput(CHANNEL);
+
+        // Read the model's cell store directly if it has one
+        SOURCE = model.getCellStore() != null ? model.getCellStore() : new ModelCellView(model);
+        ENCODER = new SnapshotEncoder(ROWS, COLS);
+
+        dirty = new boolean[ROWS * COLS];
+        dirtyList = new int[ROWS * COLS];
+        dirtyCount = 0;
+        births = new int[ANT_TYPES];
+        deaths = new int[ANT_TYPES];
+        lastKeyframe = 0;
+        lastTurn = -1;
+        resync = true;
+
+        // Header
+        OUT.putInt(MAGIC);
+        OUT.putInt(VERSION);
+        OUT.putInt(ROWS);
+        OUT.putInt(COLS);
+        OUT.putInt(turnsPerDay);
+        OUT.putInt(KEYFRAME_INTERVAL);
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for recording that a cell has changed
+     *
+     * @param index     Index of the cell
+     */
+    public void nodeChanged(int index) {
+        if(!dirty[index]) {
+            dirty[index] = true;
+            dirtyList[dirtyCount++] = index;
+        }
+    }
+
+    /**
+     * Responsible for recording the birth of an ant
+     *
+     * @param type      The ant type
+     */
+    public void antBorn(int type) {
+        births[type]++;
+    }
+
+    /**
+     * Responsible for recording the death of an ant
+     *
+     * @param type      The ant type
+     */
+    public void antDied(int type) {
+        deaths[type]++;
+    }
+
+    /**
+     * Responsible for recording that the grid has been replaced without
+     * reporting each change, so that the next frame is a keyframe read from
+     * the whole grid
+     */
+    public void requestKeyframe() {
+        resync = true;
+    }
+
+    /**
+     * Responsible for writing the frame of a turn
+     *
+     * @param turn      Turns elapsed
+     * @throws IOException  If the file cannot be written
+     */
+    public void recordTurn(int turn) throws IOException {
+
+        boolean keyframe = resync || turn - lastKeyframe >= KEYFRAME_INTERVAL;
+
+        if(keyframe)
+            writeKeyframe(turn);
+        else
+            writeDelta(turn);
+
+        // Start the next frame
+        for(int i = 0; i < dirtyCount; i++)
+            dirty[dirtyList[i]] = false;
+        dirtyCount = 0;
+        Arrays.fill(births, 0);
+        Arrays.fill(deaths, 0);
+        resync = false;
+
+        // A replay can always reach the latest keyframe
+        if(keyframe)
+            OUT.flush();
+
+        lastTurn = turn;
+    }
+
+    /**
+     * Get the turn of the last frame written
+     *
+     * @return      The turn, or -1 if none has been written
+     */
+    public int getLastTurn() {
+        return lastTurn;
+    }
+
+    /**
+     * Responsible for writing every frame recorded so far to the file
+     *
+     * @throws IOException  If the file cannot be written
+     */
+    public void flush() throws IOException {
+        OUT.flush();
+    }
+
+    /**
+     * Responsible for writing every frame recorded so far and closing the
+     * file
+     */
+    public void close() {
+        try {
+            OUT.flush();
+            CHANNEL.close();
+        }
+        catch(IOException e) {
+            System.out.println("Error in Journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Responsible for writing a keyframe of the whole grid
+     *
+     * @param turn      Turns elapsed
+     * @throws IOException  If the file cannot be written
+     */
+    private void writeKeyframe(int turn) throws IOException {
+
+        OUT.putByte(KEYFRAME);
+        OUT.putVarInt(turn);
+
+        // Number of living ants of each type
+        OUT.putVarInt(MODEL.getQueen() != null && !MODEL.isGameOver() ? 1 : 0);
+        OUT.putVarInt(MODEL.getAntMap(MODEL.FORAGER).size());
+        OUT.putVarInt(MODEL.getAntMap(MODEL.SCOUT).size());
+        OUT.putVarInt(MODEL.getAntMap(MODEL.SOLDIER).size());
+        OUT.putVarInt(MODEL.getAntMap(MODEL.BALA).size());
+
+        // Every cell
+        ENCODER.writeKeyframe(SOURCE, OUT);
+
+        lastKeyframe = turn;
+    }
+
+    /**
+     * Responsible for writing the changes made by a turn
+     *
+     * @param turn      Turns elapsed
+     * @throws IOException  If the file cannot be written
+     */
+    private void writeDelta(int turn) throws IOException {
+
+        OUT.putByte(DELTA);
+        OUT.putVarInt(turn);
+
+        // Births and deaths
+        putCounts(births);
+        putCounts(deaths);
+
+        // Changed cells, in order of index
+        Arrays.sort(dirtyList, 0, dirtyCount);
+        ENCODER.writeDelta(SOURCE, dirtyList, dirtyCount, OUT);
+    }
+
+    /**
+     * Responsible for writing a mask of the non-zero counts and the counts
+     *
+     * @param counts    Count for each ant type
+     * @throws IOException  If the file cannot be written
+     */
+    private void putCounts(int[] counts) throws IOException {
+
+        int mask = 0;
+        for(int type = 0; type < ANT_TYPES; type++) {
+            if(counts[type] != 0)
+                mask |= 1 << type;
+        }
+
+        OUT.putByte(mask);
+        for(int type = 0; type < ANT_TYPES; type++) {
+            if(counts[type] != 0)
+                OUT.putVarInt(counts[type]);
+        }
+    }
+}
@@ -0,0 +1,393 @@
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Class JournalReplay
+ *
+ * Encapsulates the basic functionality of a player for a journal written by
+ * Journal.  The state of the grid and the ant population at any recorded turn
+ * is rebuilt from the nearest keyframe at or before it and the deltas that
+ * follow, without running the ants, and may be published to the view like
+ * the live simulation.
+ *
+ * When the journal is opened its frames are scanned once to index the
+ * keyframes.  Seeking forward continues from the current turn; seeking
+ * backward, or past a later keyframe, starts again from a keyframe.  A frame
+ * left incomplete by a journal that was still being written is ignored.
+ *
+ * @author Camron Khan
+ */
+public class JournalReplay {
+
+    /************
+     * Constants
+     ************/
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+    // Number of turns per day in the recorded simulation
+    private final int TURNS_PER_DAY;
+
+    // Channel to the file
+    private final FileChannel CHANNEL;
+
+    // Input from the file
+    private final ChannelInput IN;
+
+    // Decoder holding the grid as of the current turn
+    private final SnapshotDecoder DECODER;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Turns and file positions of the keyframes, in order
+    private int[] keyframeTurns;
+    private long[] keyframePositions;
+    private int keyframeCount;
+
+    // Position just past the last complete frame
+    private long end;
+
+    // Last turn recorded
+    private int lastTurn;
+
+    // Current turn; -1 until the first seek
+    private int turn;
+
+    // Number of living ants of each type as of the current turn
+    private int[] population;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Opens a journal and indexes its keyframes
+     *
+     * @param file          The file
+     * @throws IOException  If the file cannot be read or is not a journal
+     */
+    public JournalReplay(File file) throws IOException {
+
+        CHANNEL = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        IN = new ChannelInput(CHANNEL);
+
+        try {
+
+            // Header
+            if(IN.getInt() != Journal.MAGIC)
+                throw new IOException("Not a journal");
+            if(IN.getInt() != Journal.VERSION)
+                throw new IOException("Unsupported journal version");
+
+            ROWS = IN.getInt();
+            COLS = IN.getInt();
+            TURNS_PER_DAY = IN.getInt();
+            IN.getInt();
+
+            if(ROWS <= 0 || COLS <= 0 || TURNS_PER_DAY <= 0)
+                throw new IOException("Journal header is damaged");
+
+            DECODER = new SnapshotDecoder(ROWS, COLS);
+
+            keyframeTurns = new int[16];
+            keyframePositions = new long[16];
+            keyframeCount = 0;
+            turn = -1;
+            population = new int[Journal.ANT_TYPES];
+
+            index();
+        }
+        catch(IOException e) {
+            CHANNEL.close();
+            throw e;
+        }
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for rebuilding the state of the grid as of a turn.  Turns
+     * before the first keyframe are shown as the first keyframe, and turns
+     * after the last frame as the last frame.
+     *
+     * @param target    The turn
+     * @throws IOException  If the file cannot be read
+     */
+    public void seek(int target) throws IOException {
+
+        if(keyframeCount == 0)
+            throw new IOException("Journal has no keyframes");
+
+        // Last keyframe at or before the turn, or the first keyframe
+        int k = Arrays.binarySearch(keyframeTurns, 0, keyframeCount, target);
+        if(k < 0)
+            k = Math.max(-k - 2, 0);
+        while(k + 1 < keyframeCount && keyframeTurns[k + 1] <= target)
+            k++;
+
+        // Start again from the keyframe unless the current turn lies between
+        // it and the target
+        if(turn < 0 || target < turn || keyframeTurns[k] > turn) {
+            IN.seek(keyframePositions[k]);
+            readFrame(Integer.MAX_VALUE);
+        }
+
+        // Apply each frame up to the target
+        while(IN.getPosition() < end) {
+
+            long position = IN.getPosition();
+
+            // Leave frames past the target for a later seek
+            if(!readFrame(target)) {
+                IN.seek(position);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Responsible for publishing the state as of the current turn, as the
+     * simulation would.  Must only be called on the simulation thread.
+     *
+     * @param snapshots     Exchange through which snapshots are published
+     */
+    public void publish(SnapshotExchange snapshots) {
+
+        // Every cell may have changed
+        if(DECODER.isReset())
+            snapshots.invalidate();
+
+        snapshots.publish(DECODER.getState(), turn, getTime(), population,
+                          DECODER.getChangedList(), DECODER.getChangedCount());
+
+        // Clear the change list
+        DECODER.clearChanged();
+    }
+
+    /**
+     * Responsible for closing the file
+     */
+    public void close() {
+        try {
+            CHANNEL.close();
+        }
+        catch(IOException e) {
+            System.out.println("Error in JournalReplay: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get the current turn
+     *
+     * @return      The turn, or -1 before the first seek
+     */
+    public int getTurn() {
+        return turn;
+    }
+
+    /**
+     * Get the first turn that can be shown
+     *
+     * @return      Turn of the first keyframe, or -1 if there is none
+     */
+    public int getFirstTurn() {
+        return keyframeCount == 0 ? -1 : keyframeTurns[0];
+    }
+
+    /**
+     * Get the last turn recorded
+     *
+     * @return      The turn, or -1 if nothing was recorded
+     */
+    public int getLastTurn() {
+        return lastTurn;
+    }
+
+    /**
+     * Get a String representation of the current time
+     *
+     * @return      String representation of the current time
+     */
+    public String getTime() {
+        return SimModel.formatTime(Math.max(turn, 0), TURNS_PER_DAY);
+    }
+
+    /**
+     * Get the number of living ants of a type as of the current turn
+     *
+     * @param type      The ant type
+     * @return          Number of ants
+     */
+    public int getPopulation(int type) {
+        return population[type];
+    }
+
+    /**
+     * Get the state of the grid as of the current turn
+     *
+     * @return      Store holding the grid
+     */
+    public CellStore getState() {
+        return DECODER.getState();
+    }
+
+    /**
+     * Get the number of rows in the grid
+     *
+     * @return      Number of rows
+     */
+    public int getRows() {
+        return ROWS;
+    }
+
+    /**
+     * Get the number of columns in the grid
+     *
+     * @return      Number of columns
+     */
+    public int getCols() {
+        return COLS;
+    }
+
+    /**
+     * Responsible for scanning every frame to find the keyframes and the
+     * last complete frame
+     *
+     * @throws IOException  If the file cannot be read or is damaged
+     */
+    private void index() throws IOException {
+
+        long size = CHANNEL.size();
+
+        end = IN.getPosition();
+        lastTurn = -1;
+
+        while(true) {
+
+            int kind;
+            int frameTurn;
+            try {
+                kind = IN.getByte();
+                frameTurn = IN.getVarInt();
+
+                // Ant counts
+                if(kind == Journal.KEYFRAME) {
+                    for(int type = 0; type < Journal.ANT_TYPES; type++)
+                        IN.getVarInt();
+                }
+                else {
+                    skipCounts();
+                    skipCounts();
+                }
+
+                // Cells
+                DECODER.skip(IN);
+                if(IN.getPosition() > size)
+                    break;
+            }
+
+            // The frame is incomplete if the journal is still being written
+            catch(EOFException e) {
+                break;
+            }
+
+            // Record the keyframe
+            if(kind == Journal.KEYFRAME) {
+
+                if(keyframeCount == keyframeTurns.length) {
+                    keyframeTurns = Arrays.copyOf(keyframeTurns, keyframeCount * 2);
+                    keyframePositions = Arrays.copyOf(keyframePositions, keyframeCount * 2);
+                }
+
+                keyframeTurns[keyframeCount] = frameTurn;
+                keyframePositions[keyframeCount] = end;
+                keyframeCount++;
+            }
+
+            lastTurn = frameTurn;
+            end = IN.getPosition();
+        }
+
+        IN.seek(end);
+    }
+
+    /**
+     * Responsible for reading past a mask of ant types and their counts
+     *
+     * @throws IOException  If the file cannot be read
+     */
+    private void skipCounts() throws IOException {
+
+        int mask = IN.getByte();
+
+        for(int type = 0; type < Journal.ANT_TYPES; type++) {
+            if((mask & (1 << type)) != 0)
+                IN.getVarInt();
+        }
+    }
+
+    /**
+     * Responsible for applying the next frame, if it is not past a turn
+     *
+     * @param target    The turn
+     * @return          True if the frame was applied; false if it is past
+     *                  the turn, in which case it has been partly read
+     * @throws IOException  If the file cannot be read or is damaged
+     */
+    private boolean readFrame(int target) throws IOException {
+
+        int kind = IN.getByte();
+        int frameTurn = IN.getVarInt();
+
+        if(frameTurn > target)
+            return false;
+
+        turn = frameTurn;
+
+        // Keyframe: replace the state
+        if(kind == Journal.KEYFRAME) {
+
+            for(int type = 0; type < Journal.ANT_TYPES; type++)
+                population[type] = IN.getVarInt();
+
+            DECODER.readKeyframe(IN);
+        }
+
+        // Delta: apply the changes
+        else if(kind == Journal.DELTA) {
+
+            int births = IN.getByte();
+            for(int type = 0; type < Journal.ANT_TYPES; type++) {
+                if((births & (1 << type)) != 0)
+                    population[type] += IN.getVarInt();
+            }
+
+            int deaths = IN.getByte();
+            for(int type = 0; type < Journal.ANT_TYPES; type++) {
+                if((deaths & (1 << type)) != 0)
+                    population[type] -= IN.getVarInt();
+            }
+
+            DECODER.readDelta(IN);
+        }
+
+        else {
+            throw new IOException("Journal frame of unknown kind " + kind + " at turn " + frameTurn);
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,177 @@
+import java.util.Arrays;
+
+/**
+ * Class LatencyHistogram
+ *
+ * Encapsulates the basic functionality of a histogram of durations in
+ * nanoseconds, laid out like an HDR histogram: values below SUB_BUCKETS are
+ * counted exactly, and above that every power of two is split into
+ * SUB_BUCKETS / 2 equal buckets, so any recorded value is reported to within
+ * about 3% using a fixed array of counts.  Recording a value is a few
+ * arithmetic operations and never allocates.  Other non-negative values,
+ * such as numbers of bytes, may be counted in the same way.
+ *
+ * Must only be used by one thread.
+ *
+ * @author Camron Khan
+ */
+public class LatencyHistogram {
+
+    /************
+     * Constants
+     ************/
+
+    // Values below SUB_BUCKETS = 2^SUB_BITS are counted exactly
+    private static final int SUB_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    // Number of buckets needed to cover every positive long
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BITS) * HALF;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Number of values in each bucket
+    private long[] counts;
+
+    // Number of values, their sum, and the largest
+    private long count;
+    private long total;
+    private long max;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates an empty histogram
+     */
+    public LatencyHistogram() {
+        counts = new long[BUCKETS];
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for counting a value
+     *
+     * @param nanos     The value; negative values are counted as zero
+     */
+    public void record(long nanos) {
+
+        if(nanos < 0)
+            nanos = 0;
+
+        counts[bucket(nanos)]++;
+        count++;
+        total += nanos;
+        if(nanos > max)
+            max = nanos;
+    }
+
+    /**
+     * Responsible for removing every value
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    /**
+     * Get the number of values
+     *
+     * @return      Number of values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Get the largest value
+     *
+     * @return      The value, or zero if there are none
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Get the mean of the values
+     *
+     * @return      The mean, or zero if there are none
+     */
+    public double getMean() {
+        return count == 0 ? 0 : (double)total / count;
+    }
+
+    /**
+     * Returns the value below which a given percentage of the values lie
+     *
+     * @param percentile    The percentage, from 0 to 100
+     * @return              The largest value in the bucket holding that
+     *                      percentile, or zero if there are no values
+     */
+    public long getPercentile(double percentile) {
+
+        if(count == 0)
+            return 0;
+
+        // Rank of the value, from 1 to count
+        long rank = (long)Math.ceil(percentile / 100 * count);
+        rank = Math.min(Math.max(rank, 1), count);
+
+        long seen = 0;
+        for(int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if(seen >= rank)
+                return Math.min(highest(b), max);
+        }
+
+        return max;
+    }
+
+    /**
+     * Returns the bucket counting a value
+     *
+     * @param value     The value, which is not negative
+     * @return          Index of the bucket
+     */
+    private static int bucket(long value) {
+
+        // Counted exactly
+        if(value < SUB_BUCKETS)
+            return (int)value;
+
+        // Keep the top SUB_BITS bits of the value
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        int mantissa = (int)(value >>> shift);
+
+        return SUB_BUCKETS + (shift - 1) * HALF + (mantissa - HALF);
+    }
+
+    /**
+     * Returns the largest value counted by a bucket
+     *
+     * @param b     Index of the bucket
+     * @return      The value
+     */
+    private static long highest(int b) {
+
+        if(b < SUB_BUCKETS)
+            return b;
+
+        int shift = (b - SUB_BUCKETS) / HALF + 1;
+        long mantissa = (b - SUB_BUCKETS) % HALF + HALF;
+
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,195 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Class MappedCellStore
+ *
+ * Encapsulates the basic functionality of a cell store backed by a memory
+ * mapped file, so that processes other than the simulation can map the same
+ * file read-only and watch the grid as it changes, with no serialization and
+ * no copies.
+ *
+ * The file is little-endian and consists of a header of HEADER_BYTES bytes
+ * followed by the cells in row-major order, FIELDS ints per cell in the
+ * order given by CellStore.  The header holds:
+ *
+ *     offset  0   int     MAGIC
+ *     offset  4   int     VERSION
+ *     offset  8   int     number of rows
+ *     offset 12   int     number of columns
+ *     offset 16   int     number of fields per cell
+ *     offset 24   long    sequence (seqlock)
+ *     offset 32   long    turns elapsed
+ *
+ * The sequence is odd while the simulation is writing and even otherwise.  A
+ * reader takes a consistent view by reading the sequence, waiting while it is
+ * odd, copying what it needs, and retrying if the sequence has changed (see
+ * SharedGridReader).
+ *
+ * The writes of the sequence and of the cells are plain writes to mapped
+ * memory, which the Java memory model does not order, so a store fence (see
+ * MemoryFence) separates the odd sequence from the cells, and the cells from
+ * the even sequence.
+ *
+ * @author Camron Khan
+ */
+public class MappedCellStore extends OffHeapCellStore {
+
+    /************
+     * Constants
+     ************/
+
+    // Identifies the file format ("ANTS")
+    public static final int MAGIC = 0x414E5453;
+    public static final int VERSION = 1;
+
+    // Size of the header in bytes
+    public static final int HEADER_BYTES = 64;
+
+    // Offsets of the header fields
+    public static final int MAGIC_OFFSET = 0;
+    public static final int VERSION_OFFSET = 4;
+    public static final int ROWS_OFFSET = 8;
+    public static final int COLS_OFFSET = 12;
+    public static final int FIELDS_OFFSET = 16;
+    public static final int SEQUENCE_OFFSET = 24;
+    public static final int TURN_OFFSET = 32;
+
+    // Channel to the mapped file
+    private final FileChannel CHANNEL;
+
+    // Mapped header
+    private final MappedByteBuffer HEADER;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Current value of the sequence
+    private long sequence;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a store backed by a file, replacing any existing contents.  The
+     * file is sized for the whole grid but, on most file systems, only takes
+     * up disk space for the slabs that are written.
+     *
+     * @param file      The file
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     * @throws IOException  If the file cannot be created or mapped
+     */
+    public MappedCellStore(File file, int rows, int cols) throws IOException {
+
+        super(rows, cols);
+
+        // Slabs are zero-filled regions of the file
+        long slabBytes = (long)SLAB_CELLS * CELL_BYTES;
+        long slabs = ((long)rows * cols + SLAB_CELLS - 1) / SLAB_CELLS;
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        raf.setLength(HEADER_BYTES + slabs * slabBytes);
+        CHANNEL = raf.getChannel();
+
+        // Write the header
+        HEADER = CHANNEL.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        HEADER.order(ByteOrder.LITTLE_ENDIAN);
+        HEADER.putInt(MAGIC_OFFSET, MAGIC);
+        HEADER.putInt(VERSION_OFFSET, VERSION);
+        HEADER.putInt(ROWS_OFFSET, rows);
+        HEADER.putInt(COLS_OFFSET, cols);
+        HEADER.putInt(FIELDS_OFFSET, FIELDS);
+        HEADER.putLong(SEQUENCE_OFFSET, 0);
+        HEADER.putLong(TURN_OFFSET, 0);
+
+        sequence = 0;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Marks the start of a batch of writes by making the sequence odd
+     */
+    @Override
+    public void beginUpdate() {
+
+        // Ignore nested batches
+        if((sequence & 1) != 0)
+            return;
+
+        sequence++;
+        HEADER.putLong(SEQUENCE_OFFSET, sequence);
+
+        // The sequence is visible before any cell is written
+        MemoryFence.store();
+    }
+
+    /**
+     * Marks the end of a batch of writes by publishing the turn and making
+     * the sequence even
+     *
+     * @param turn      Turns elapsed once the batch is complete
+     */
+    @Override
+    public void endUpdate(int turn) {
+
+        if((sequence & 1) == 0)
+            return;
+
+        // Every cell is visible before the sequence changes
+        MemoryFence.store();
+
+        HEADER.putLong(TURN_OFFSET, turn);
+        sequence++;
+        HEADER.putLong(SEQUENCE_OFFSET, sequence);
+    }
+
+    /**
+     * Responsible for flushing the mapped file to disk and closing it.  The
+     * store must not be used afterwards.
+     */
+    public void close() {
+        try {
+            HEADER.force();
+            CHANNEL.close();
+        }
+        catch(IOException e) {
+            System.out.println("Error in MappedCellStore: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the region of the file holding a slab
+     *
+     * @param index     Index of the slab
+     * @param bytes     Size of the slab in bytes
+     * @return          The mapped region
+     */
+    @Override
+    protected ByteBuffer createSlab(int index, int bytes) {
+        try {
+            long offset = HEADER_BYTES + (long)index * bytes;
+            MappedByteBuffer slab = CHANNEL.map(FileChannel.MapMode.READ_WRITE, offset, bytes);
+            return slab.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        catch(IOException e) {
+
+            // The simulation cannot continue without its cells
+            throw new IllegalStateException("Error in MappedCellStore: " + e.getMessage(), e);
+        }
+    }
+}
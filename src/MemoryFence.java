@@ -0,0 +1,93 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+
+/**
+ * Class MemoryFence
+ *
+ * Mimics a static class giving access to the memory fences of
+ * sun.misc.Unsafe.  Volatile fields only order accesses to other fields and
+ * arrays; plain reads and writes of a ByteBuffer, such as a file mapped by
+ * several processes, need an explicit fence to be ordered on processors with
+ * weak memory ordering, such as AArch64.
+ *
+ * Unsafe is reached by reflection, as it is not part of the platform's
+ * public API, and its fences are called through method handles, which the
+ * JIT compiler inlines.
+ *
+ * @author Camron Khan
+ */
+public final class MemoryFence {
+
+    /************
+     * Constants
+     ************/
+
+    // Unsafe.storeFence() and Unsafe.loadFence(), bound to the JVM's Unsafe
+    private static final MethodHandle STORE_FENCE = getFence("storeFence");
+    private static final MethodHandle LOAD_FENCE = getFence("loadFence");
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Mimic a static class by declaring the constructor to be private
+     */
+    private MemoryFence() {
+        System.out.println("Do not create instances of MemoryFence!");
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for ordering every write before the fence before every
+     * write after it (StoreStore and LoadStore)
+     */
+    public static void store() {
+        try {
+            STORE_FENCE.invokeExact();
+        }
+        catch(Throwable e) {
+            throw new IllegalStateException("Error in MemoryFence: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Responsible for ordering every read before the fence before every read
+     * or write after it (LoadLoad and LoadStore)
+     */
+    public static void load() {
+        try {
+            LOAD_FENCE.invokeExact();
+        }
+        catch(Throwable e) {
+            throw new IllegalStateException("Error in MemoryFence: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Returns a fence of the JVM's Unsafe instance, as a method handle taking
+     * no arguments
+     *
+     * @param name      Name of the fence's method
+     * @return          The method handle
+     */
+    private static MethodHandle getFence(String name) {
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return MethodHandles.lookup().unreflect(type.getMethod(name)).bindTo(field.get(null));
+        }
+        catch(ReflectiveOperationException e) {
+
+            // Shared grids cannot be ordered without fences
+            throw new IllegalStateException("Error in MemoryFence: " + e.getMessage(), e);
+        }
+    }
+}
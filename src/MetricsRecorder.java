@@ -0,0 +1,284 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class MetricsRecorder
+ *
+ * Encapsulates the basic functionality of recording a row of metrics every
+ * turn (see the column constants) to a CSV file.
+ *
+ * The simulation thread only copies each row into a ring buffer allocated
+ * up front; it never allocates, formats or waits for the disk.  A writer
+ * thread drains the ring in batches, formats the rows into a buffer and
+ * writes them to the file through its channel.  If the writer falls so far
+ * behind that the ring is full, rows are dropped rather than slowing the
+ * simulation, and the number dropped is reported when the recorder is
+ * closed.
+ *
+ * @author Camron Khan
+ */
+public class MetricsRecorder implements Runnable {
+
+    /************
+     * Constants
+     ************/
+
+    // Columns of a row
+    public static final int TURN = 0;
+    public static final int QUEEN = 1;
+    public static final int FORAGER = 2;
+    public static final int SCOUT = 3;
+    public static final int SOLDIER = 4;
+    public static final int BALA = 5;
+    public static final int COLONY_FOOD = 6;
+    public static final int TOTAL_FOOD = 7;
+    public static final int PHEROMONE = 8;
+    public static final int BIRTHS = 9;
+    public static final int DEATHS = 10;
+    public static final int KILLS = 11;
+
+    // Number of columns in a row
+    public static final int COLUMNS = 12;
+
+    // First line of the file
+    private static final String HEADER =
+        "turn,queen,forager,scout,soldier,bala,colony_food,total_food,pheromone,births,deaths,kills\n";
+
+    // Number of rows held by the ring (a power of two)
+    private static final int CAPACITY = 1 << 16;
+    private static final int MASK = CAPACITY - 1;
+
+    // Nanoseconds the writer sleeps once the ring is empty
+    private static final long IDLE_NANOS = 20000000L;
+
+    // Size of the output buffer in bytes
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Greatest number of bytes in a formatted row
+    private static final int ROW_BYTES = COLUMNS * 21;
+
+    // Rows, indexed by (row & MASK) * COLUMNS + column
+    private final long[] RING;
+
+    // Number of rows added and number written; each is only advanced by
+    // one thread
+    private final AtomicLong ADDED;
+    private final AtomicLong TAKEN;
+
+    // Channel to the file
+    private final FileChannel CHANNEL;
+
+    // Thread writing the rows
+    private final Thread WRITER;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Whether the recorder is being closed
+    private volatile boolean closing;
+
+    // Number of rows dropped because the ring was full (simulation only)
+    private long dropped;
+
+    // Formatted rows waiting to be written (writer only)
+    private ByteBuffer buffer;
+
+    // Digits of the number being formatted (writer only)
+    private byte[] digits;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a recorder writing to a file, replacing it if it exists, and
+     * starts its writer thread
+     *
+     * @param file          The file
+     * @throws IOException  If the file cannot be created
+     */
+    public MetricsRecorder(File file) throws IOException {
+
+        RING = new long[CAPACITY * COLUMNS];
+        ADDED = new AtomicLong();
+        TAKEN = new AtomicLong();
+
+        CHANNEL = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                   StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.put(HEADER.getBytes(StandardCharsets.US_ASCII));
+        digits = new byte[20];
+
+        closing = false;
+        dropped = 0;
+
+        WRITER = new Thread(this, "Metrics Writer");
+        WRITER.setDaemon(true);
+        WRITER.start();
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for adding a row; must only be called by one thread, the
+     * simulation thread
+     *
+     * @param row       Values of the row, indexed by column
+     */
+    public void record(long[] row) {
+
+        long added = ADDED.get();
+
+        // Never wait for the writer
+        if(added - TAKEN.get() == CAPACITY) {
+            dropped++;
+            return;
+        }
+
+        System.arraycopy(row, 0, RING, (int)(added & MASK) * COLUMNS, COLUMNS);
+
+        // Publish the row to the writer
+        ADDED.lazySet(added + 1);
+    }
+
+    /**
+     * Responsible for writing every row added so far and closing the file;
+     * must be called by the thread that adds rows
+     */
+    public void close() {
+
+        closing = true;
+        LockSupport.unpark(WRITER);
+
+        try {
+            WRITER.join();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if(dropped > 0)
+            System.out.println("Error in MetricsRecorder: " + dropped + " rows dropped");
+    }
+
+    /**
+     * Responsible for writing rows as they are added until the recorder is
+     * closed; runs on the writer thread
+     */
+    @Override
+    public void run() {
+
+        try {
+
+            while(true) {
+
+                // Read the flag first, so that every row added before the
+                // recorder was closed is written below
+                boolean last = closing;
+
+                long taken = TAKEN.get();
+                long added = ADDED.get();
+
+                // Write every row in the ring as one batch
+                for(long row = taken; row < added; row++) {
+
+                    if(buffer.remaining() < ROW_BYTES)
+                        drain();
+
+                    format((int)(row & MASK) * COLUMNS);
+
+                    // Free the row's slot
+                    TAKEN.lazySet(row + 1);
+                }
+
+                if(last)
+                    break;
+
+                // Wait for more rows
+                if(taken == added) {
+                    drain();
+                    LockSupport.parkNanos(IDLE_NANOS);
+                }
+            }
+
+            drain();
+        }
+        catch(IOException e) {
+            System.out.println("Error in MetricsRecorder: " + e.getMessage());
+
+            // Keep freeing slots so that the simulation is not affected
+            while(!closing) {
+                TAKEN.set(ADDED.get());
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+        finally {
+            try {
+                CHANNEL.close();
+            }
+            catch(IOException e) {
+                System.out.println("Error in MetricsRecorder: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Responsible for formatting a row as a line of the file
+     *
+     * @param offset    Position of the row in the ring
+     */
+    private void format(int offset) {
+
+        for(int column = 0; column < COLUMNS; column++) {
+
+            if(column > 0)
+                buffer.put((byte)',');
+
+            long value = RING[offset + column];
+
+            if(value < 0) {
+                buffer.put((byte)'-');
+                value = -value;
+            }
+
+            // Digits, least significant first
+            int count = 0;
+            do {
+                digits[count++] = (byte)('0' + value % 10);
+                value /= 10;
+            } while(value != 0);
+
+            while(count > 0)
+                buffer.put(digits[--count]);
+        }
+
+        buffer.put((byte)'\n');
+    }
+
+    /**
+     * Responsible for writing the formatted rows to the file
+     *
+     * @throws IOException  If the file cannot be written
+     */
+    private void drain() throws IOException {
+
+        buffer.flip();
+        while(buffer.hasRemaining())
+            CHANNEL.write(buffer);
+        buffer.clear();
+    }
+}
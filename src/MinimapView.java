@@ -0,0 +1,524 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+
+/**
+ *	class MinimapView
+ *
+ *	provides a small zoomed-out map of the whole colony, showing which areas
+ *	have been explored and where the ants are, with an outline of the area
+ *	visible in the colony view
+ *
+ *	the map is backed by a pyramid of per-tile aggregates: level 0 holds one
+ *	tile per node, and each tile of every higher level aggregates a 2x2 block
+ *	of tiles from the level below (ant counts by type, total food, maximum
+ *	pheromone, and the number of revealed nodes); the map is drawn from the
+ *	lowest level small enough to fit
+ *
+ *	on each refresh only the tiles above the nodes changed since the last
+ *	refresh are recomputed, however many snapshots were published in between,
+ *	so the cost of an update is proportional to the number of changed nodes
+ *	rather than the size of the colony
+ *
+ *	clicking the map scrolls the colony view to that spot
+ */
+public class MinimapView extends JComponent
+{
+
+	/************
+	 *	constants
+	 ***********/
+
+	// aggregates held for each tile
+	public final static int VISITED = 0;
+	public final static int FORAGER = 1;
+	public final static int SCOUT = 2;
+	public final static int SOLDIER = 3;
+	public final static int BALA = 4;
+	public final static int FOOD = 5;
+	public final static int PHEROMONE = 6;
+
+	// number of aggregates held for each tile
+	private final int AGGREGATES = 7;
+
+	// width and height of the map in pixels
+	private final int MINIMAP_SIZE = 160;
+
+	// color of the area outside the map
+	private final Color BACKGROUND_COLOR = Color.DARK_GRAY;
+
+	// color of tiles with no revealed nodes
+	private final Color HIDDEN_COLOR = new Color(60, 53, 16);
+
+	// color of revealed tiles with no ants or food
+	private final Color OPEN_COLOR = new Color(200, 178, 55);
+
+	// color of revealed tiles containing food but no ants
+	private final Color FOOD_COLOR = new Color(105, 171, 100);
+
+	// color of tiles containing ants
+	private final Color ANT_COLOR = new Color(220, 79, 79);
+
+	// color of the outline of the visible area
+	private final Color VIEWPORT_COLOR = Color.WHITE;
+
+
+	/*************
+	 *	attributes
+	 ************/
+
+	// number of rows and columns in the colony
+	private int rows;
+	private int cols;
+
+	// number of tiles along each axis at each level
+	private int[] levelRows;
+	private int[] levelCols;
+
+	// aggregates, indexed by level, aggregate, then tile (row * cols + col)
+	private int[][][] pyramid;
+
+	// level from which the map is drawn
+	private int displayLevel;
+
+	// image holding one pixel per tile of the display level
+	private BufferedImage image;
+	private int[] pixels;
+
+	// nodes changed since the last refresh, or null before the first
+	private ChangeTracker tracker;
+
+	// viewport showing the colony view, or null if none
+	private JViewport viewport;
+
+	// the colony view, which the viewport may not be showing
+	private JComponent colonyView;
+
+
+	/***************
+	 *	constructors
+	 **************/
+
+	/**
+	 *	create a new MinimapView for a colony of the specified size
+	 *
+	 *	@param	colonyHeight			height of colony in nodes
+	 *	@param	colonyWidth				width of colony in nodes
+	 */
+	public MinimapView(int colonyHeight, int colonyWidth)
+	{
+		// call superclass constructor
+		super();
+
+		rows = colonyHeight;
+		cols = colonyWidth;
+
+		// count the levels, halving until a single tile remains
+		int levels = 1;
+		for (int r = rows, c = cols; r > 1 || c > 1; r = (r + 1) / 2, c = (c + 1) / 2)
+			levels++;
+
+		// create the levels
+		levelRows = new int[levels];
+		levelCols = new int[levels];
+		pyramid = new int[levels][][];
+		displayLevel = -1;
+
+		for (int level = 0, r = rows, c = cols; level < levels; level++, r = (r + 1) / 2, c = (c + 1) / 2)
+		{
+			levelRows[level] = r;
+			levelCols[level] = c;
+			pyramid[level] = new int[AGGREGATES][r * c];
+
+			// lowest level small enough to fit one pixel per tile
+			if (displayLevel < 0 && r <= MINIMAP_SIZE && c <= MINIMAP_SIZE)
+				displayLevel = level;
+		}
+
+		// rows are along the X axis, as in ColonyView
+		image = new BufferedImage(levelRows[displayLevel], levelCols[displayLevel],
+		                          BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt)image.getRaster().getDataBuffer()).getData();
+
+		// scroll the colony view when the map is clicked or dragged
+		MouseAdapter mouseHandler = new MouseAdapter() {
+			public void mousePressed(MouseEvent e) {
+				scrollTo(e.getX(), e.getY());
+			}
+			public void mouseDragged(MouseEvent e) {
+				scrollTo(e.getX(), e.getY());
+			}
+		};
+		addMouseListener(mouseHandler);
+		addMouseMotionListener(mouseHandler);
+
+		setOpaque(true);
+		setPreferredSize(new Dimension(MINIMAP_SIZE, MINIMAP_SIZE));
+		setToolTipText("Click to scroll the colony view");
+	}
+
+
+	/**********
+	 *	methods
+	 *********/
+
+	/**
+	 *	set the colony view and the viewport in which it is shown; while the
+	 *	viewport shows the colony view, its visible area is outlined on the
+	 *	map and is scrolled when the map is clicked
+	 *
+	 *	@param	v		the viewport
+	 *	@param	view	the colony view
+	 */
+	public void setViewport(JViewport v, JComponent view)
+	{
+		viewport = v;
+		colonyView = view;
+
+		// redraw the outline whenever the colony view scrolls
+		viewport.addChangeListener(new ChangeListener() {
+			public void stateChanged(ChangeEvent e) {
+				repaint();
+			}
+		});
+	}
+
+
+	/**
+	 *	get the number of levels in the pyramid
+	 *
+	 *	@return	the number of levels
+	 */
+	public int getLevels()
+	{
+		return pyramid.length;
+	}
+
+
+	/**
+	 *	get an aggregate of a tile
+	 *
+	 *	@param	level		level of the tile, where level 0 is a single node
+	 *	@param	row			x coordinate of the tile within its level
+	 *	@param	col			y coordinate of the tile within its level
+	 *	@param	aggregate	the aggregate (see the constants of this class)
+	 *	@return	the sum over the tile, or the maximum for PHEROMONE
+	 */
+	public int getAggregate(int level, int row, int col, int aggregate)
+	{
+		return pyramid[level][aggregate][row * levelCols[level] + col];
+	}
+
+
+	/**
+	 *	bring the pyramid and map up to date with the latest snapshot
+	 *
+	 *	only the tiles above the nodes changed since the last refresh are
+	 *	recomputed, unless the grid was reset or too much of it changed, in
+	 *	which case the pyramid is rebuilt in full
+	 *
+	 *	must be called on the event dispatch thread
+	 *
+	 *	@param	snapshots		exchange publishing the snapshots
+	 */
+	public void refresh(SnapshotExchange snapshots)
+	{
+		// nothing has been published yet
+		if (snapshots.getSequence() == 0)
+			return;
+
+		if (tracker == null)
+			tracker = snapshots.createTracker();
+
+		// take the changes before acquiring the snapshot holding them
+		tracker.take();
+		if (!tracker.isAll() && tracker.getCount() == 0)
+			return;
+
+		GridSnapshot snapshot = snapshots.acquire();
+		try
+		{
+			if (tracker.isAll())
+			{
+				rebuild(snapshot);
+			}
+			else
+			{
+				for (int i = 0; i < tracker.getCount(); i++)
+				{
+					int index = tracker.get(i);
+					updateNode(snapshot, index / cols, index % cols);
+				}
+			}
+		}
+		finally
+		{
+			snapshots.release(snapshot);
+		}
+
+		repaint();
+	}
+
+
+	/**
+	 *	recompute the tiles above a single node
+	 *
+	 *	@param	snapshot	snapshot being applied
+	 *	@param	row			x coordinate of the node
+	 *	@param	col			y coordinate of the node
+	 */
+	private void updateNode(GridSnapshot snapshot, int row, int col)
+	{
+		copyNode(snapshot, row, col);
+
+		if (displayLevel == 0)
+			drawTile(row, col);
+
+		// each level up halves the coordinates
+		for (int level = 1; level < pyramid.length; level++)
+		{
+			row /= 2;
+			col /= 2;
+
+			combineTile(level, row, col);
+
+			if (level == displayLevel)
+				drawTile(row, col);
+		}
+	}
+
+
+	/**
+	 *	rebuild every level of the pyramid and the whole map
+	 *
+	 *	@param	snapshot	snapshot being applied
+	 */
+	private void rebuild(GridSnapshot snapshot)
+	{
+		for (int row = 0; row < rows; row++)
+		{
+			for (int col = 0; col < cols; col++)
+			{
+				copyNode(snapshot, row, col);
+			}
+		}
+
+		for (int level = 1; level < pyramid.length; level++)
+		{
+			for (int row = 0; row < levelRows[level]; row++)
+			{
+				for (int col = 0; col < levelCols[level]; col++)
+				{
+					combineTile(level, row, col);
+				}
+			}
+		}
+
+		for (int row = 0; row < levelRows[displayLevel]; row++)
+		{
+			for (int col = 0; col < levelCols[displayLevel]; col++)
+			{
+				drawTile(row, col);
+			}
+		}
+	}
+
+
+	/**
+	 *	copy the state of a node from a snapshot into level 0
+	 *
+	 *	@param	snapshot	snapshot being applied
+	 *	@param	row			x coordinate of the node
+	 *	@param	col			y coordinate of the node
+	 */
+	private void copyNode(GridSnapshot snapshot, int row, int col)
+	{
+		int index = snapshot.getIndex(row, col);
+		int[][] tiles = pyramid[0];
+
+		tiles[VISITED][index] = snapshot.getVisited(index) ? 1 : 0;
+		tiles[FORAGER][index] = snapshot.getNumForager(index);
+		tiles[SCOUT][index] = snapshot.getNumScout(index);
+		tiles[SOLDIER][index] = snapshot.getNumSoldier(index);
+		tiles[BALA][index] = snapshot.getNumBala(index);
+		tiles[FOOD][index] = snapshot.getFoodAmount(index);
+		tiles[PHEROMONE][index] = snapshot.getPheromoneLevel(index);
+	}
+
+
+	/**
+	 *	recompute a tile from the 2x2 block of tiles below it
+	 *
+	 *	@param	level		level of the tile, at least 1
+	 *	@param	row			x coordinate of the tile within its level
+	 *	@param	col			y coordinate of the tile within its level
+	 */
+	private void combineTile(int level, int row, int col)
+	{
+		int[][] tiles = pyramid[level];
+		int[][] below = pyramid[level - 1];
+		int belowRows = levelRows[level - 1];
+		int belowCols = levelCols[level - 1];
+		int index = row * levelCols[level] + col;
+
+		// clear the tile
+		for (int a = 0; a < AGGREGATES; a++)
+			tiles[a][index] = 0;
+
+		// combine each child that lies within the level below
+		for (int r = row * 2; r < Math.min(row * 2 + 2, belowRows); r++)
+		{
+			for (int c = col * 2; c < Math.min(col * 2 + 2, belowCols); c++)
+			{
+				int child = r * belowCols + c;
+
+				for (int a = 0; a < AGGREGATES; a++)
+				{
+					if (a == PHEROMONE)
+						tiles[a][index] = Math.max(tiles[a][index], below[a][child]);
+					else
+						tiles[a][index] += below[a][child];
+				}
+			}
+		}
+	}
+
+
+	/**
+	 *	write the color of a tile of the display level into the image
+	 *
+	 *	@param	row			x coordinate of the tile within the display level
+	 *	@param	col			y coordinate of the tile within the display level
+	 */
+	private void drawTile(int row, int col)
+	{
+		int[][] tiles = pyramid[displayLevel];
+		int index = row * levelCols[displayLevel] + col;
+
+		// pixels are laid out by column, then row
+		int pixel = col * levelRows[displayLevel] + row;
+
+		int ants = tiles[FORAGER][index] + tiles[SCOUT][index]
+		           + tiles[SOLDIER][index] + tiles[BALA][index];
+
+		if (tiles[VISITED][index] == 0)
+			pixels[pixel] = HIDDEN_COLOR.getRGB();
+		else if (ants > 0)
+			pixels[pixel] = ANT_COLOR.getRGB();
+		else if (tiles[FOOD][index] > 0)
+			pixels[pixel] = FOOD_COLOR.getRGB();
+		else
+			pixels[pixel] = OPEN_COLOR.getRGB();
+	}
+
+
+	/**
+	 *	get the area of this component in which the map is drawn, keeping the
+	 *	proportions of the colony
+	 *
+	 *	@return	the area
+	 */
+	private Rectangle getMapBounds()
+	{
+		double scale = Math.min((double)getWidth() / rows, (double)getHeight() / cols);
+
+		return new Rectangle(0, 0, (int)(rows * scale), (int)(cols * scale));
+	}
+
+
+	/**
+	 *	get whether the viewport is showing the colony view, rather than
+	 *	another view such as the heatmap
+	 *
+	 *	@return	true if the colony view is shown
+	 */
+	private boolean isColonyViewShown()
+	{
+		return viewport != null && colonyView != null && viewport.getView() == colonyView;
+	}
+
+
+	/**
+	 *	scroll the colony view so that the spot under a point on the map is
+	 *	centered
+	 *
+	 *	@param	x		x coordinate of the point
+	 *	@param	y		y coordinate of the point
+	 */
+	private void scrollTo(int x, int y)
+	{
+		// other views are positioned differently, if at all
+		if (!isColonyViewShown())
+			return;
+
+		Rectangle map = getMapBounds();
+		if (map.width == 0 || map.height == 0)
+			return;
+
+		Dimension viewSize = colonyView.getSize();
+		Dimension extent = viewport.getExtentSize();
+
+		// position of the point as a fraction of the colony
+		double fx = Math.max(0, Math.min(1, (double)x / map.width));
+		double fy = Math.max(0, Math.min(1, (double)y / map.height));
+
+		// center the viewport on the same fraction of the colony view
+		int vx = (int)(fx * viewSize.width) - extent.width / 2;
+		int vy = (int)(fy * viewSize.height) - extent.height / 2;
+		vx = Math.max(0, Math.min(vx, viewSize.width - extent.width));
+		vy = Math.max(0, Math.min(vy, viewSize.height - extent.height));
+
+		viewport.setViewPosition(new Point(vx, vy));
+	}
+
+
+	/**
+	 *	paint the map and an outline of the visible area
+	 *
+	 *	@param	g		graphics context
+	 */
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		Graphics2D g2 = (Graphics2D)g;
+
+		g2.setColor(BACKGROUND_COLOR);
+		g2.fillRect(0, 0, getWidth(), getHeight());
+
+		// keep each tile a sharp block when enlarged
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+		                    RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+		Rectangle map = getMapBounds();
+		g2.drawImage(image, map.x, map.y, map.width, map.height, null);
+
+		// outline the area visible in the colony view
+		if (isColonyViewShown())
+		{
+			Dimension viewSize = colonyView.getSize();
+			Rectangle visible = viewport.getViewRect();
+
+			if (viewSize.width > 0 && viewSize.height > 0)
+			{
+				g2.setColor(VIEWPORT_COLOR);
+				g2.drawRect((int)((long)visible.x * map.width / viewSize.width),
+				            (int)((long)visible.y * map.height / viewSize.height),
+				            (int)((long)visible.width * map.width / viewSize.width) - 1,
+				            (int)((long)visible.height * map.height / viewSize.height) - 1);
+			}
+		}
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Class ModelCellView
+ *
+ * Encapsulates the basic functionality of a read-only cell store presenting
+ * the values held by the model's nodes, so that a grid whose nodes hold their
+ * own values can be read like one held in a cell store.  Cells whose nodes
+ * have not been created read as zero (hidden and empty).
+ *
+ * @author Camron Khan
+ */
+public class ModelCellView implements CellStore {
+
+    /************
+     * Constants
+     ************/
+
+    // Reference to the simulation model
+    private final SimModel MODEL;
+
+    // Number of columns in the grid
+    private final int COLS;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a view of the model's nodes
+     *
+     * @param model     The simulation model
+     */
+    public ModelCellView(SimModel model) {
+        MODEL = model;
+        COLS = model.getCols();
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Returns a field of a cell
+     *
+     * @param cell      Index of the cell (row * cols + col)
+     * @param field     The field
+     * @return          Value of the field
+     */
+    @Override
+    public int get(int cell, int field) {
+
+        Node node = MODEL.peekNode(cell / COLS, cell % COLS);
+
+        // Not yet created
+        if(node == null)
+            return 0;
+
+        switch(field) {
+            case FLAGS:
+                return (node.getVisited() ? VISITED : 0) | (node.getQueen() ? QUEEN : 0);
+            case FORAGER:
+                return node.getNumForager();
+            case SCOUT:
+                return node.getNumScout();
+            case SOLDIER:
+                return node.getNumSoldier();
+            case BALA:
+                return node.getNumBala();
+            case FOOD:
+                return node.getFoodAmount();
+            default:
+                return node.getPheromoneLevel();
+        }
+    }
+
+    /**
+     * The view is read-only; values are changed through the nodes
+     *
+     * @param cell      Index of the cell (row * cols + col)
+     * @param field     The field
+     * @param value     New value of the field
+     */
+    @Override
+    public void set(int cell, int field, int value) {
+        throw new UnsupportedOperationException("ModelCellView is read-only");
+    }
+
+    /**
+     * Marks the start of a batch of writes; nothing is required
+     */
+    @Override
+    public void beginUpdate() {
+    }
+
+    /**
+     * Marks the end of a batch of writes; nothing is required
+     *
+     * @param turn      Turns elapsed once the batch is complete
+     */
+    @Override
+    public void endUpdate(int turn) {
+    }
+}
@@ -7,9 +7,15 @@ import java.util.ListIterator;
  * Encapsulates the basic functionality of the fundamental building blocks of
  * the environment - nodes.
  * 
+ * A node holds its coordinates, adjacency lists and the IDs of the ants in
+ * it.  Its values (visibility, queen, ant counts, food and pheromone) are
+ * held by a subclass: HeapNode keeps them in fields of its own, StoredNode in
+ * a cell store.  Values are addressed by the fields of CellStore in either
+ * case.
+ * 
  * @author Camron Khan
  */
-public class Node implements TimeDependent, Comparable<Node> {
+public abstract class Node implements TimeDependent, Comparable<Node> {
 
         /************
          * Constants
@@ -23,37 +29,20 @@ public class Node implements TimeDependent, Comparable<Node> {
         
         // Y coordinate
         private final int COL;
-        
-        // Position
-        private final String POSITION;
     
     
         /*************
 	 * Attributes
 	 *************/
         
-        // Whether node has been visited by a scout
-        private boolean visited;
-        
-        // Whether the queen is present in node
-        private boolean queenPresent;
-        
-        // Number of ant type in node
-        private int numForager;
-        private int numScout;
-        private int numSoldier;
-        private int numBala;
-        
-        // Amount of food present in node
-        private int food;
+        // Position, built on first use
+        private String position;
         
-        // Pheromone level present in node
-        private int pheromone;
-        
-        // ArrayList storing the nodes adjacent to this node
+        // ArrayList storing the nodes adjacent to this node, built on first use
         private ArrayList<Node> adjNodes;
         
-        // ArrayList storing the visited nodes adjacent to this node
+        // ArrayList storing the visited nodes adjacent to this node, built on
+        // first use
         private ArrayList<Node> visitedAdjNodes;
         
         // ArrayList storing the IDs of ants currently present in this node
@@ -64,28 +53,26 @@ public class Node implements TimeDependent, Comparable<Node> {
 	 * Constructors
 	 ***************/
         
-        public Node(SimModel mod, int x, int y) {
+        /**
+         * Creates a hidden, empty node
+         * 
+         * @param mod       Reference to the simulation model
+         * @param x         x coordinate
+         * @param y         y coordinate
+         */
+        protected Node(SimModel mod, int x, int y) {
             
             // Set initial conditions
             MODEL = mod;
             ROW = x;
             COL = y;
-            POSITION = ROW + "," + COL;
-            visited = false;
-            queenPresent = false;
-            numForager = 0;
-            numScout = 0;
-            numSoldier = 0;
-            food = 0;
-            pheromone = 0;
-            
-            // Get the total number of rows and columns in environment
-            int rowTotal = MODEL.getRows();
-            int colTotal = MODEL.getCols();
-            
-            // Initialize ArrayLists
-            adjNodes = new ArrayList<>();
-            visitedAdjNodes = new ArrayList<>();
+            
+            // Adjacency lists are built on first use, so that creating a
+            // large grid does not require a pass over every neighbour
+            adjNodes = null;
+            visitedAdjNodes = null;
+            
+            // Initialize ArrayList
             antsPresent = new ArrayList<>();
         }
         
@@ -100,16 +87,50 @@ public class Node implements TimeDependent, Comparable<Node> {
         @Override
         public void performActions() {
            
-            // Rescan adjacent nodes to identify all visited nodes
-            ArrayList<Node> visitedList = findVisitedAdjacentNodes(adjNodes);
+            // Ants use the list of visited adjacent nodes of the node they
+            // occupy, and foragers and soldiers only move onto revealed nodes,
+            // but ants may be placed on hidden ones (the soldier test does).
+            // Rescan every revealed or occupied node, so that each ant sees
+            // its neighbours as of the start of the turn; rescanning an empty
+            // hidden node would create its neighbours for nothing
+            if(getVisited() || !antsPresent.isEmpty()) {
+                
+                // Rescan adjacent nodes to identify all visited nodes
+                ArrayList<Node> visitedList = findVisitedAdjacentNodes(getAdjacentNodes());
+                
+                // Update list of visited adjacent nodes
+                setVisitedAdjacentNodes(visitedList);
+            }
             
-            // Update list of visited adjacent nodes
-            setVisitedAdjacentNodes(visitedList);
+            // Otherwise, no ant reads the list this turn; rebuild it on first
+            // use
+            else {
+                visitedAdjNodes = null;
+            }
             
             // Reduce the pheromone level in the node by half
             halvePheromoneLevel();
         }
         
+        /**
+         * Responsible for returning the node to its initial state (hidden and
+         * empty) so that it can be reused by a new simulation.  Neither the
+         * model nor the region index is notified; the caller is responsible
+         * for resetting them.
+         */
+        public void reset() {
+            
+            // Restore initial conditions
+            for(int field = 0; field < CellStore.FIELDS; field++)
+                setField(field, 0);
+            
+            // Adjacent nodes never change, but their visited status does
+            visitedAdjNodes = null;
+            
+            // Remove all ants
+            antsPresent.clear();
+        }
+        
         /**
          * Compares the positions of this node to another node
          * 
@@ -177,7 +198,12 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      String representation of grid position in "x,y" format
          */
         public String getPosition() {
-            return POSITION;
+            
+            // Build the position on first use
+            if(position == null)
+                position = ROW + "," + COL;
+            
+            return position;
         }
         
         /**
@@ -186,7 +212,7 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      True if visited; false otherwise 
          */
         public boolean getVisited() {
-            return visited;
+            return (getField(CellStore.FLAGS) & CellStore.VISITED) != 0;
         }
         
         /**
@@ -197,11 +223,12 @@ public class Node implements TimeDependent, Comparable<Node> {
          */
         public void setVisited(String pos, boolean v) {
             
+            // Notify model if the value changes
+            if(getVisited() != v)
+                MODEL.nodeChanged(this);
+
             // Set status of node's visibility / accessibility
-            visited = v;
-            
-            // Notify model
-            MODEL.setVisited(pos, visited);
+            setFlag(CellStore.VISITED, v);
         }
         
         /**
@@ -210,7 +237,7 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      True if present; false otherwise
          */
         public boolean getQueen() {
-            return queenPresent;
+            return (getField(CellStore.FLAGS) & CellStore.QUEEN) != 0;
         }
         
         /**
@@ -221,11 +248,12 @@ public class Node implements TimeDependent, Comparable<Node> {
          */
         public void setQueen(String pos, boolean q) {
             
+            // Notify model if the value changes
+            if(getQueen() != q)
+                MODEL.nodeChanged(this);
+
             // Set new status of queen's presence
-            queenPresent = q;
-            
-            // Notify model
-            MODEL.setQueen(pos, q);
+            setFlag(CellStore.QUEEN, q);
         }
         
         /**
@@ -234,7 +262,7 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      Number of foragers present in node
          */
         public int getNumForager() {
-            return numForager;
+            return getField(CellStore.FORAGER);
         }
         
         /**
@@ -245,11 +273,15 @@ public class Node implements TimeDependent, Comparable<Node> {
          */
         public void setNumForager(String pos, int f) {
             
+            // Notify model if the value changes
+            int old = getNumForager();
+            if(old != f) {
+                MODEL.nodeChanged(this);
+                MODEL.layerChanged(this, RegionIndex.FORAGER, f - old);
+            }
+
             // Set new forager number
-            numForager = f;
-            
-            // Notify model
-            MODEL.setForagerCount(pos, numForager);
+            setField(CellStore.FORAGER, f);
         }
         
         /**
@@ -258,7 +290,7 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      Number of scouts present in node
          */
         public int getNumScout() {
-            return numScout;
+            return getField(CellStore.SCOUT);
         }
         
         /**
@@ -269,11 +301,15 @@ public class Node implements TimeDependent, Comparable<Node> {
          */
         public void setNumScout(String pos, int s) {
             
+            // Notify model if the value changes
+            int old = getNumScout();
+            if(old != s) {
+                MODEL.nodeChanged(this);
+                MODEL.layerChanged(this, RegionIndex.SCOUT, s - old);
+            }
+
             // Set new scout number
-            numScout = s;
-            
-            // Notify model
-            MODEL.setScoutCount(pos, numScout);
+            setField(CellStore.SCOUT, s);
         }
         
         /**
@@ -282,7 +318,7 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      Number of soldiers present in node
          */
         public int getNumSoldier() {
-            return numSoldier;
+            return getField(CellStore.SOLDIER);
         }
         
         /**
@@ -293,11 +329,15 @@ public class Node implements TimeDependent, Comparable<Node> {
          */
         public void setNumSoldier(String pos, int s) {
             
+            // Notify model if the value changes
+            int old = getNumSoldier();
+            if(old != s) {
+                MODEL.nodeChanged(this);
+                MODEL.layerChanged(this, RegionIndex.SOLDIER, s - old);
+            }
+
             // Set new soldier number
-            numSoldier = s;
-            
-            // Notify model
-            MODEL.setSoldierCount(pos, numSoldier);
+            setField(CellStore.SOLDIER, s);
         }
         
         /**
@@ -306,7 +346,7 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      Number of balas present in node
          */
         public int getNumBala() {
-            return numBala;
+            return getField(CellStore.BALA);
         }
         
         /**
@@ -317,11 +357,15 @@ public class Node implements TimeDependent, Comparable<Node> {
          */
         public void setNumBala(String pos, int b) {
             
+            // Notify model if the value changes
+            int old = getNumBala();
+            if(old != b) {
+                MODEL.nodeChanged(this);
+                MODEL.layerChanged(this, RegionIndex.BALA, b - old);
+            }
+
             // Set new bala number
-            numBala = b;
-            
-            // Notify model
-            MODEL.setBalaCount(pos, numBala);
+            setField(CellStore.BALA, b);
         }
         
         /**
@@ -330,7 +374,7 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      Amount of food present in node
          */
         public int getFoodAmount() {
-            return food;
+            return getField(CellStore.FOOD);
         }
         
         /**
@@ -341,11 +385,15 @@ public class Node implements TimeDependent, Comparable<Node> {
          */
         public void setFoodAmount(String pos, int f) {
             
+            // Notify model if the value changes
+            int old = getFoodAmount();
+            if(old != f) {
+                MODEL.nodeChanged(this);
+                MODEL.layerChanged(this, RegionIndex.FOOD, f - old);
+            }
+
             // Set new food amount
-            food = f;
-            
-            // Notify model
-            MODEL.setFoodAmount(pos, food);
+            setField(CellStore.FOOD, f);
         }
         
         /**
@@ -354,7 +402,7 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      Pheromone level present in node
          */
         public int getPheromoneLevel() {
-            return pheromone;
+            return getField(CellStore.PHEROMONE);
         }
         
         /**
@@ -365,11 +413,15 @@ public class Node implements TimeDependent, Comparable<Node> {
          */
         public void setPheromoneLevel(String pos, int p) {
             
+            // Notify model if the value changes
+            int old = getPheromoneLevel();
+            if(old != p) {
+                MODEL.nodeChanged(this);
+                MODEL.layerChanged(this, RegionIndex.PHEROMONE, p - old);
+            }
+
             // Set new pheromone level in node
-            pheromone = p;
-            
-            // Notify model
-            MODEL.setPheromoneLevel(pos, pheromone);
+            setField(CellStore.PHEROMONE, p);
         }
         
         /**
@@ -378,6 +430,11 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      A list of nodes adjacent to current node
          */
         public ArrayList<Node> getAdjacentNodes() {
+            
+            // Identify adjacent nodes on first use
+            if(adjNodes == null)
+                adjNodes = findAdjacentNodes(MODEL.getRows(), MODEL.getCols());
+            
             return adjNodes;
         }
         
@@ -438,6 +495,11 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @return      A list of visited nodes adjacent to current node
          */
         public ArrayList<Node> getVisitedAdjacentNodes() {
+            
+            // Identify visited adjacent nodes on first use
+            if(visitedAdjNodes == null)
+                visitedAdjNodes = findVisitedAdjacentNodes(getAdjacentNodes());
+            
             return visitedAdjNodes;
         }
         
@@ -501,6 +563,10 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @param id    Integer ID of ant to be added
          */
         public void addAnt(Integer id) {
+            
+            // Notify model of the change
+            MODEL.antsPresentChanged(this);
+            
             antsPresent.add(id);
         }
         
@@ -510,9 +576,42 @@ public class Node implements TimeDependent, Comparable<Node> {
          * @param id    Integer ID of ant to be removed
          */
         public void removeAnt(Integer id) {
+            
+            // Notify model of the change
+            MODEL.antsPresentChanged(this);
+            
             antsPresent.remove(id);
         }
 
+        /**
+         * Returns a value of the node, without notifying the model
+         * 
+         * @param field     The value, as a field of CellStore
+         * @return          The value
+         */
+        protected abstract int getField(int field);
+        
+        /**
+         * Sets a value of the node, without notifying the model
+         * 
+         * @param field     The value, as a field of CellStore
+         * @param value     New value
+         */
+        protected abstract void setField(int field, int value);
+        
+        /**
+         * Responsible for setting or clearing a bit of the node's flags
+         * 
+         * @param bit   The bit
+         * @param on    True to set the bit; false to clear it
+         */
+        private void setFlag(int bit, boolean on) {
+            
+            int flags = getField(CellStore.FLAGS);
+            
+            setField(CellStore.FLAGS, on ? flags | bit : flags & ~bit);
+        }
+
         /**
          * Responsible for reducing the pheromone level in the node by half
          */
@@ -525,6 +624,6 @@ public class Node implements TimeDependent, Comparable<Node> {
             level = level / 2;
                         
             // Set new pheromone level
-            setPheromoneLevel(POSITION, level);
+            setPheromoneLevel(getPosition(), level);
         }
 }
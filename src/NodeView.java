@@ -188,23 +188,23 @@ public class NodeView extends JPanel
 		pheromoneLabel.setForeground(LABEL_COLOR);
 		
 		// indicates presence of queen ant
-		queenIcon = new JLabel(new ImageIcon("images/queen.gif"));
+		queenIcon = new JLabel(SpriteCache.getIcon(SpriteCache.QUEEN));
 		queenIcon.setVisible(false);
 		
 		// indicates presence of scout ant
-		scoutIcon = new JLabel(new ImageIcon("images/scout.gif"));
+		scoutIcon = new JLabel(SpriteCache.getIcon(SpriteCache.SCOUT));
 		scoutIcon.setVisible(false);
 		
 		// indicates presence of forager ant
-		foragerIcon = new JLabel(new ImageIcon("images/forager.gif"));
+		foragerIcon = new JLabel(SpriteCache.getIcon(SpriteCache.FORAGER));
 		foragerIcon.setVisible(false);
 		
 		// indicates presence of soldier ant
-		soldierIcon = new JLabel(new ImageIcon("images/soldier.gif"));
+		soldierIcon = new JLabel(SpriteCache.getIcon(SpriteCache.SOLDIER));
 		soldierIcon.setVisible(false);
 		
 		// indicates presence of Bala ant
-		balaIcon = new JLabel(new ImageIcon("images/bala.gif"));
+		balaIcon = new JLabel(SpriteCache.getIcon(SpriteCache.BALA));
 		balaIcon.setVisible(false);		
 	}
 	
@@ -0,0 +1,184 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Class OffHeapCellStore
+ *
+ * Encapsulates the basic functionality of a cell store held in direct
+ * ByteBuffers, outside the Java heap.  The garbage collector never scans the
+ * cells, and the size of the grid is limited by available memory rather than
+ * the maximum heap size.
+ *
+ * Cells are laid out in row-major order, FIELDS ints per cell, and split into
+ * slabs of SLAB_CELLS cells.  Slabs are only allocated when a non-zero value
+ * is first written to one of their cells, so unexplored territory costs
+ * nothing.
+ *
+ * @author Camron Khan
+ */
+public class OffHeapCellStore implements CellStore {
+
+    /************
+     * Constants
+     ************/
+
+    // Slabs hold SLAB_CELLS = 2^SLAB_SHIFT cells
+    public static final int SLAB_SHIFT = 16;
+    public static final int SLAB_CELLS = 1 << SLAB_SHIFT;
+    private static final int SLAB_MASK = SLAB_CELLS - 1;
+
+    // Number of bytes per cell
+    public static final int CELL_BYTES = FIELDS * 4;
+
+    // Number of rows and columns in the grid
+    protected final int ROWS;
+    protected final int COLS;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Slabs of cells; null if not yet allocated
+    private ByteBuffer[] slabs;
+
+    // Number of slabs allocated so far
+    private int allocatedSlabs;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates an empty store for a grid of the given size; no memory is
+     * allocated until a value is written
+     *
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    public OffHeapCellStore(int rows, int cols) {
+
+        ROWS = rows;
+        COLS = cols;
+
+        long cells = (long)rows * cols;
+
+        // Cells are indexed by int
+        if(cells > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid too large: " + rows + "x" + cols);
+
+        slabs = new ByteBuffer[(int)((cells + SLAB_MASK) >> SLAB_SHIFT)];
+        allocatedSlabs = 0;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Returns a field of a cell
+     *
+     * @param cell      Index of the cell (row * cols + col)
+     * @param field     The field
+     * @return          Value of the field
+     */
+    @Override
+    public int get(int cell, int field) {
+
+        ByteBuffer slab = slabs[cell >>> SLAB_SHIFT];
+
+        // Cells of unallocated slabs are empty
+        if(slab == null)
+            return 0;
+
+        return slab.getInt((cell & SLAB_MASK) * CELL_BYTES + field * 4);
+    }
+
+    /**
+     * Sets a field of a cell
+     *
+     * @param cell      Index of the cell (row * cols + col)
+     * @param field     The field
+     * @param value     New value of the field
+     */
+    @Override
+    public void set(int cell, int field, int value) {
+
+        int index = cell >>> SLAB_SHIFT;
+        ByteBuffer slab = slabs[index];
+
+        // Allocate the slab on the first non-zero write
+        if(slab == null) {
+            if(value == 0)
+                return;
+            slab = allocateSlab(index);
+        }
+
+        slab.putInt((cell & SLAB_MASK) * CELL_BYTES + field * 4, value);
+    }
+
+    /**
+     * Marks the start of a batch of writes; nothing is required, as the store
+     * is only read on the simulation thread
+     */
+    @Override
+    public void beginUpdate() {
+    }
+
+    /**
+     * Marks the end of a batch of writes
+     *
+     * @param turn      Turns elapsed once the batch is complete
+     */
+    @Override
+    public void endUpdate(int turn) {
+    }
+
+    /**
+     * Get the number of slabs allocated so far
+     *
+     * @return      Number of allocated slabs
+     */
+    public int getAllocatedSlabs() {
+        return allocatedSlabs;
+    }
+
+    /**
+     * Get the number of bytes of memory allocated so far
+     *
+     * @return      Number of bytes allocated outside the heap
+     */
+    public long getAllocatedBytes() {
+        return (long)allocatedSlabs * SLAB_CELLS * CELL_BYTES;
+    }
+
+    /**
+     * Returns the buffer holding a slab; the contents of a new slab must be
+     * zero.  Subclasses may override this to place slabs elsewhere.
+     *
+     * @param index     Index of the slab
+     * @param bytes     Size of the slab in bytes
+     * @return          The buffer
+     */
+    protected ByteBuffer createSlab(int index, int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Responsible for allocating a slab
+     *
+     * @param index     Index of the slab
+     * @return          The new slab
+     */
+    private ByteBuffer allocateSlab(int index) {
+
+        ByteBuffer slab = createSlab(index, SLAB_CELLS * CELL_BYTES);
+
+        slabs[index] = slab;
+        allocatedSlabs++;
+
+        return slab;
+    }
+}
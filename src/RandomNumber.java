@@ -1,5 +1,3 @@
-import java.util.Random;
-
 /**
  * Class RandomNumber
  * 
@@ -13,16 +11,30 @@ import java.util.Random;
  * The get() method should be used by any object that exhibits
  * (approximately) random behavior
  * 
+ * The generator is the linear congruential generator of java.util.Random,
+ * implemented here so that its state can be saved and restored with the rest
+ * of the simulation.  It must only be used on the simulation thread.
+ * 
  * @author Camron Khan
  */
 public final class RandomNumber {
     
+    /************
+     * Constants
+     ************/
+    
+    // Parameters of the generator (see java.util.Random)
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+    
+    
     /*************
      * Attributes
      *************/
     
-    // Create a pseduorandom number generator
-    private static final Random random = new Random();
+    // State of the pseduorandom number generator, seeded from the clock
+    private static long state = scramble(System.nanoTime() ^ 0x2545F4914F6CDD1DL);
     
     
     /***************
@@ -51,6 +63,70 @@ public final class RandomNumber {
      *                  zero (0) inclusive and max exclusive
      */
     public static int get(int max) {
-        return random.nextInt(max);
+        
+        if(max <= 0)
+            throw new IllegalArgumentException("max must be positive");
+        
+        int r = next(31);
+        int m = max - 1;
+        
+        // Power of two
+        if((max & m) == 0)
+            return (int)((max * (long)r) >> 31);
+        
+        // Otherwise reject values that would bias the result
+        for(int u = r; u - (r = u % max) + m < 0; u = next(31))
+            ;
+        
+        return r;
+    }
+    
+    /**
+     * Responsible for seeding the generator, so that a simulation can be
+     * repeated exactly; gives the same sequence as new java.util.Random(seed)
+     * 
+     * @param seed      The seed
+     */
+    public static void setSeed(long seed) {
+        state = scramble(seed);
+    }
+    
+    /**
+     * Get the state of the generator
+     * 
+     * @return      The state
+     */
+    public static long getState() {
+        return state;
+    }
+    
+    /**
+     * Set the state of the generator, as returned by getState()
+     * 
+     * @param s     The state
+     */
+    public static void setState(long s) {
+        state = s & MASK;
+    }
+    
+    /**
+     * Returns the next bits of the sequence
+     * 
+     * @param bits      Number of bits
+     * @return          The bits
+     */
+    private static int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int)(state >>> (48 - bits));
+    }
+    
+    /**
+     * Returns the state corresponding to a seed
+     * 
+     * @param seed      The seed
+     * @return          The state
+     */
+    private static long scramble(long seed) {
+        return (seed ^ MULTIPLIER) & MASK;
     }
 }
@@ -0,0 +1,298 @@
+import java.util.Arrays;
+
+/**
+ * Class RegionIndex
+ *
+ * Encapsulates the basic functionality of an index answering "how much of a
+ * layer lies inside this rectangle" queries over the grid.  Each layer (food,
+ * pheromone, and the count of each ant type) is held a chunk of the grid at a
+ * time (see ChunkedGrid) in a two-dimensional Fenwick tree, allocated when a
+ * value in the chunk first changes, and the totals of the chunks are held in
+ * a coarser Fenwick tree over the whole grid.  Updating a single node takes
+ * O(log(CHUNK_SIZE)^2 + log(chunkRows) * log(chunkCols)) time; a rectangle is
+ * summed from the coarse tree for the chunks it covers entirely and from the
+ * chunks' own trees along its edges.  Memory grows with the territory holding
+ * any value rather than the size of the grid.
+ *
+ * The index is kept up to date by the node setters, which report the change
+ * in each value through the model.
+ *
+ * @author Camron Khan
+ */
+public class RegionIndex {
+
+    /************
+     * Constants
+     ************/
+
+    // Layers held by the index
+    public static final int FOOD = 0;
+    public static final int PHEROMONE = 1;
+    public static final int FORAGER = 2;
+    public static final int SCOUT = 3;
+    public static final int SOLDIER = 4;
+    public static final int BALA = 5;
+
+    // Number of layers held by the index
+    public static final int LAYERS = 6;
+
+    // Chunks are CHUNK_SIZE nodes along each side
+    private static final int CHUNK_SHIFT = ChunkedGrid.CHUNK_SHIFT;
+    private static final int CHUNK_SIZE = ChunkedGrid.CHUNK_SIZE;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+    // Number of chunks along each axis
+    private final int CHUNK_ROWS;
+    private final int CHUNK_COLS;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Fenwick trees of each chunk, indexed by chunk (chunkRow * CHUNK_COLS +
+    // chunkCol), then layer, then (x * (CHUNK_SIZE + 1) + y) where x and y
+    // are 1-based row and column numbers within the chunk; null if no value
+    // in the chunk has changed
+    private long[][][] chunkTrees;
+
+    // Fenwick trees of the chunk totals, indexed by layer, then (x *
+    // (CHUNK_COLS + 1) + y) where x and y are 1-based chunk row and column
+    // numbers
+    private long[][] totalTrees;
+
+    // Number of chunks allocated
+    private int allocatedCount;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates an empty index for a grid of the given size
+     *
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    public RegionIndex(int rows, int cols) {
+        ROWS = rows;
+        COLS = cols;
+        CHUNK_ROWS = (rows + CHUNK_MASK) >> CHUNK_SHIFT;
+        CHUNK_COLS = (cols + CHUNK_MASK) >> CHUNK_SHIFT;
+        chunkTrees = new long[CHUNK_ROWS * CHUNK_COLS][][];
+        totalTrees = new long[LAYERS][(CHUNK_ROWS + 1) * (CHUNK_COLS + 1)];
+        allocatedCount = 0;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for clearing every layer of the index.  Allocated chunks
+     * are kept, to be reused.
+     */
+    public void clear() {
+
+        for(int chunk = 0; chunk < chunkTrees.length; chunk++) {
+            if(chunkTrees[chunk] != null) {
+                for(int layer = 0; layer < LAYERS; layer++)
+                    Arrays.fill(chunkTrees[chunk][layer], 0);
+            }
+        }
+
+        for(int layer = 0; layer < LAYERS; layer++)
+            Arrays.fill(totalTrees[layer], 0);
+    }
+
+    /**
+     * Get the number of chunks for which trees have been allocated
+     *
+     * @return      Number of chunks
+     */
+    public int getAllocatedChunks() {
+        return allocatedCount;
+    }
+
+    /**
+     * Responsible for adding to the value of a layer at a single node
+     *
+     * @param layer     The layer
+     * @param row       x coordinate of the node
+     * @param col       y coordinate of the node
+     * @param delta     Amount to add; negative to subtract
+     */
+    public void add(int layer, int row, int col, int delta) {
+
+        if(delta == 0)
+            return;
+
+        int chunkRow = row >> CHUNK_SHIFT;
+        int chunkCol = col >> CHUNK_SHIFT;
+        int chunk = chunkRow * CHUNK_COLS + chunkCol;
+
+        // Create the chunk's trees on first use
+        if(chunkTrees[chunk] == null) {
+            chunkTrees[chunk] = new long[LAYERS][(CHUNK_SIZE + 1) * (CHUNK_SIZE + 1)];
+            allocatedCount++;
+        }
+
+        addToTree(chunkTrees[chunk][layer], CHUNK_SIZE, CHUNK_SIZE,
+                  row & CHUNK_MASK, col & CHUNK_MASK, delta);
+        addToTree(totalTrees[layer], CHUNK_ROWS, CHUNK_COLS, chunkRow, chunkCol, delta);
+    }
+
+    /**
+     * Returns the sum of a layer over a rectangle of nodes; the bounds are
+     * clipped to the grid
+     *
+     * @param layer     The layer
+     * @param row1      First x coordinate, inclusive
+     * @param col1      First y coordinate, inclusive
+     * @param row2      Last x coordinate, inclusive
+     * @param col2      Last y coordinate, inclusive
+     * @return          Sum of the layer over the rectangle
+     */
+    public long sum(int layer, int row1, int col1, int row2, int col2) {
+
+        // Clip the rectangle to the grid
+        row1 = Math.max(row1, 0);
+        col1 = Math.max(col1, 0);
+        row2 = Math.min(row2, ROWS - 1);
+        col2 = Math.min(col2, COLS - 1);
+
+        if(row1 > row2 || col1 > col2)
+            return 0;
+
+        // Chunks overlapping the rectangle
+        int firstChunkRow = row1 >> CHUNK_SHIFT;
+        int lastChunkRow = row2 >> CHUNK_SHIFT;
+        int firstChunkCol = col1 >> CHUNK_SHIFT;
+        int lastChunkCol = col2 >> CHUNK_SHIFT;
+
+        // Chunks lying entirely within the rectangle
+        int fullFirstRow = isCovered(firstChunkRow, row1, row2, ROWS) ? firstChunkRow : firstChunkRow + 1;
+        int fullLastRow = isCovered(lastChunkRow, row1, row2, ROWS) ? lastChunkRow : lastChunkRow - 1;
+        int fullFirstCol = isCovered(firstChunkCol, col1, col2, COLS) ? firstChunkCol : firstChunkCol + 1;
+        int fullLastCol = isCovered(lastChunkCol, col1, col2, COLS) ? lastChunkCol : lastChunkCol - 1;
+
+        long total = 0;
+
+        // Chunks within the rectangle, from the totals
+        if(fullFirstRow <= fullLastRow && fullFirstCol <= fullLastCol)
+            total += sumTree(totalTrees[layer], CHUNK_COLS, fullFirstRow, fullFirstCol, fullLastRow, fullLastCol);
+
+        // Chunks along the edges of the rectangle, from their own trees
+        for(int chunkRow = firstChunkRow; chunkRow <= lastChunkRow; chunkRow++) {
+
+            boolean fullRow = chunkRow >= fullFirstRow && chunkRow <= fullLastRow;
+
+            for(int chunkCol = firstChunkCol; chunkCol <= lastChunkCol; chunkCol++) {
+
+                // Skip across the chunks counted from the totals
+                if(fullRow && chunkCol == fullFirstCol && fullFirstCol <= fullLastCol) {
+                    chunkCol = fullLastCol;
+                    continue;
+                }
+
+                long[][] trees = chunkTrees[chunkRow * CHUNK_COLS + chunkCol];
+                if(trees == null)
+                    continue;
+
+                int firstRow = chunkRow << CHUNK_SHIFT;
+                int firstCol = chunkCol << CHUNK_SHIFT;
+
+                total += sumTree(trees[layer], CHUNK_SIZE,
+                                 Math.max(row1 - firstRow, 0), Math.max(col1 - firstCol, 0),
+                                 Math.min(row2 - firstRow, CHUNK_MASK), Math.min(col2 - firstCol, CHUNK_MASK));
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns whether a range of rows (or columns) covers every row of a
+     * chunk that lies within the grid
+     *
+     * @param chunk     Chunk row (or column) number
+     * @param first     First row of the range, inclusive
+     * @param last      Last row of the range, inclusive
+     * @param size      Number of rows in the grid
+     * @return          True if the chunk is covered
+     */
+    private static boolean isCovered(int chunk, int first, int last, int size) {
+        return first <= chunk << CHUNK_SHIFT
+               && last >= Math.min(((chunk + 1) << CHUNK_SHIFT) - 1, size - 1);
+    }
+
+    /**
+     * Responsible for adding to a single position of a Fenwick tree
+     *
+     * @param tree      The tree
+     * @param rows      Number of rows covered by the tree
+     * @param cols      Number of columns covered by the tree
+     * @param row       0-based row number
+     * @param col       0-based column number
+     * @param delta     Amount to add; negative to subtract
+     */
+    private static void addToTree(long[] tree, int rows, int cols, int row, int col, long delta) {
+
+        // Walk up the tree in both dimensions
+        for(int x = row + 1; x <= rows; x += x & -x) {
+            for(int y = col + 1; y <= cols; y += y & -y) {
+                tree[x * (cols + 1) + y] += delta;
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of a Fenwick tree over a rectangle, inclusive
+     *
+     * @param tree      The tree
+     * @param cols      Number of columns covered by the tree
+     * @param row1      First 0-based row number
+     * @param col1      First 0-based column number
+     * @param row2      Last 0-based row number
+     * @param col2      Last 0-based column number
+     * @return          Sum over the rectangle
+     */
+    private static long sumTree(long[] tree, int cols, int row1, int col1, int row2, int col2) {
+
+        // Inclusion-exclusion over the four prefix sums
+        return prefixSum(tree, cols, row2, col2)
+               - prefixSum(tree, cols, row1 - 1, col2)
+               - prefixSum(tree, cols, row2, col1 - 1)
+               + prefixSum(tree, cols, row1 - 1, col1 - 1);
+    }
+
+    /**
+     * Returns the sum of a Fenwick tree over the rectangle from (0, 0) to the
+     * given position, inclusive
+     *
+     * @param tree      The tree
+     * @param cols      Number of columns covered by the tree
+     * @param row       0-based row number of the corner
+     * @param col       0-based column number of the corner
+     * @return          Sum over the rectangle
+     */
+    private static long prefixSum(long[] tree, int cols, int row, int col) {
+
+        long total = 0;
+
+        // Walk down the tree in both dimensions
+        for(int x = row + 1; x > 0; x -= x & -x) {
+            for(int y = col + 1; y > 0; y -= y & -y) {
+                total += tree[x * (cols + 1) + y];
+            }
+        }
+
+        return total;
+    }
+}
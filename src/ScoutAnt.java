@@ -92,7 +92,7 @@ public class ScoutAnt extends MobileAnt implements TimeDependent {
         hereNode.setNumScout(hereNode.getPosition(), currentScout);
         
         // Remove from node's ID list
-        hereNode.getAntsPresent().remove(ID);
+        hereNode.removeAnt(ID);
         
         // Remove from environment
         MODEL.destroyAnt(ID, TYPE);
@@ -169,6 +169,14 @@ public class ScoutAnt extends MobileAnt implements TimeDependent {
         // Get the next node's position
         String nextPos = nextNode.getPosition();
         
+        // If the world is generated procedurally, the food is determined by
+        // the node's coordinates
+        WorldGenerator generator = MODEL.getWorldGenerator();
+        if(generator != null) {
+            nextNode.setFoodAmount(nextPos, generator.getFood(nextNode.getRow(), nextNode.getCol()));
+            return;
+        }
+        
         // Chance next node will contain food is 25%
         final int YES_FOOD_FREQ = 25;
         final int NO_FOOD_FREQ = 75;
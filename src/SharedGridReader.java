@@ -0,0 +1,190 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Class SharedGridReader
+ *
+ * Encapsulates the basic functionality of a read-only view of a grid shared
+ * by a running simulation through a MappedCellStore.  Intended for analysis
+ * tools running in a separate process: the file is mapped, not read, so each
+ * layer is copied straight out of the simulation's memory.
+ *
+ * @author Camron Khan
+ */
+public class SharedGridReader {
+
+    /************
+     * Constants
+     ************/
+
+    // Longest time to wait for a consistent copy, in milliseconds; a
+    // sequence that stays odd means the simulation stopped mid-turn, and one
+    // that keeps changing means it writes faster than a layer can be copied
+    private static final long MAX_WAIT_MS = 1000;
+
+    // Channel to the mapped file
+    private final FileChannel CHANNEL;
+
+    // Mapped header
+    private final MappedByteBuffer HEADER;
+
+    // Mapped cells, in slabs of OffHeapCellStore.SLAB_CELLS cells
+    private final MappedByteBuffer[] SLABS;
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Opens a file written by a MappedCellStore
+     *
+     * @param file      The file
+     * @throws IOException  If the file cannot be mapped or is not a grid
+     */
+    public SharedGridReader(File file) throws IOException {
+
+        CHANNEL = new RandomAccessFile(file, "r").getChannel();
+
+        // Read the header
+        HEADER = CHANNEL.map(FileChannel.MapMode.READ_ONLY, 0, MappedCellStore.HEADER_BYTES);
+        HEADER.order(ByteOrder.LITTLE_ENDIAN);
+
+        if(HEADER.getInt(MappedCellStore.MAGIC_OFFSET) != MappedCellStore.MAGIC
+           || HEADER.getInt(MappedCellStore.VERSION_OFFSET) != MappedCellStore.VERSION
+           || HEADER.getInt(MappedCellStore.FIELDS_OFFSET) != CellStore.FIELDS) {
+            CHANNEL.close();
+            throw new IOException("Not a shared grid: " + file);
+        }
+
+        ROWS = HEADER.getInt(MappedCellStore.ROWS_OFFSET);
+        COLS = HEADER.getInt(MappedCellStore.COLS_OFFSET);
+
+        // Map the cells
+        int slabBytes = OffHeapCellStore.SLAB_CELLS * OffHeapCellStore.CELL_BYTES;
+        long cells = (long)ROWS * COLS;
+        SLABS = new MappedByteBuffer[(int)((cells + OffHeapCellStore.SLAB_CELLS - 1) / OffHeapCellStore.SLAB_CELLS)];
+
+        for(int i = 0; i < SLABS.length; i++) {
+            long offset = MappedCellStore.HEADER_BYTES + (long)i * slabBytes;
+            SLABS[i] = CHANNEL.map(FileChannel.MapMode.READ_ONLY, offset, slabBytes);
+            SLABS[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Get the number of rows in the grid
+     *
+     * @return      Number of rows
+     */
+    public int getRows() {
+        return ROWS;
+    }
+
+    /**
+     * Get the number of columns in the grid
+     *
+     * @return      Number of columns
+     */
+    public int getCols() {
+        return COLS;
+    }
+
+    /**
+     * Returns the turns elapsed as of the last completed batch of writes
+     *
+     * @return      Turns elapsed
+     */
+    public long getTurn() {
+        return HEADER.getLong(MappedCellStore.TURN_OFFSET);
+    }
+
+    /**
+     * Returns a field of a single cell, without waiting for the simulation
+     * to finish writing
+     *
+     * @param row       x coordinate
+     * @param col       y coordinate
+     * @param field     The field (see CellStore)
+     * @return          Value of the field
+     */
+    public int get(int row, int col, int field) {
+
+        int cell = row * COLS + col;
+
+        return SLABS[cell >>> OffHeapCellStore.SLAB_SHIFT].getInt(
+                    (cell & (OffHeapCellStore.SLAB_CELLS - 1)) * OffHeapCellStore.CELL_BYTES + field * 4);
+    }
+
+    /**
+     * Responsible for copying a layer of the grid as of the end of a single
+     * batch of writes, retrying while the simulation is writing
+     *
+     * @param field     The field (see CellStore)
+     * @param dest      Destination of at least rows * cols values, indexed by
+     *                  row * cols + col
+     * @return          Turns elapsed as of the copy, or -1 if no consistent
+     *                  copy could be made within MAX_WAIT_MS
+     */
+    public long readLayer(int field, int[] dest) {
+
+        long deadline = System.currentTimeMillis() + MAX_WAIT_MS;
+
+        while(true) {
+
+            // Give up whether the simulation is stuck mid-batch or keeps
+            // starting batches during the copy
+            if(System.currentTimeMillis() > deadline)
+                return -1;
+
+            // Wait until the simulation is between batches
+            long before = HEADER.getLong(MappedCellStore.SEQUENCE_OFFSET);
+            if((before & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+
+            // The sequence is read before the turn and any cell
+            MemoryFence.load();
+            long turn = HEADER.getLong(MappedCellStore.TURN_OFFSET);
+
+            // Copy the layer
+            for(int cell = 0; cell < ROWS * COLS; cell++) {
+                dest[cell] = SLABS[cell >>> OffHeapCellStore.SLAB_SHIFT].getInt(
+                    (cell & (OffHeapCellStore.SLAB_CELLS - 1)) * OffHeapCellStore.CELL_BYTES + field * 4);
+            }
+
+            // Every cell is read before the sequence is checked again
+            MemoryFence.load();
+
+            // The copy is consistent if no batch started in the meantime
+            if(HEADER.getLong(MappedCellStore.SEQUENCE_OFFSET) == before)
+                return turn;
+        }
+    }
+
+    /**
+     * Responsible for closing the file
+     */
+    public void close() {
+        try {
+            CHANNEL.close();
+        }
+        catch(IOException e) {
+            System.out.println("Error in SharedGridReader: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,416 @@
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Class SimClock
+ *
+ * Encapsulates the basic functionality of the simulation clock, which advances
+ * the simulation on its own thread rather than on the Swing Event Dispatch
+ * Thread.  Long turns therefore never stall painting or button handling.
+ *
+ * Commands (run, stop, step, or any other model update) are queued and executed
+ * by the simulation thread between turns, so the model is only ever touched by
+ * a single thread.
+ *
+ * After each turn the publisher is run so that readers see the new state.  In
+ * turbo mode the clock instead runs turns back to back and only publishes once
+ * per frame, after a fixed number of turns or, if that number is zero, after
+ * as many turns as fit in one frame.  In adaptive mode the number of turns per
+ * frame and the interval between frames are chosen by a TickRateController
+ * from the measured cost of turns and screen refreshes, running turns no
+ * faster than the target number of milliseconds per turn.
+ *
+ * @author Camron Khan
+ */
+public class SimClock {
+
+    /************
+     * Constants
+     ************/
+
+    // Nanoseconds per millisecond
+    private static final long NS_PER_MS = 1000000L;
+
+    // Milliseconds per frame in turbo mode (~30 frames per second)
+    private static final int MS_PER_FRAME = 33;
+
+    // Object notified each time the clock advances
+    private final TimeDependent TARGET;
+
+    // Action that publishes the state of the target to readers
+    private final Runnable PUBLISHER;
+
+    // Thread on which the simulation runs
+    private final Thread THREAD;
+
+    // Commands waiting to be executed on the simulation thread
+    private final LinkedBlockingQueue<Runnable> COMMANDS;
+
+    // Controller measuring turn cost and choosing turns per frame
+    private final TickRateController CONTROLLER;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Target number of milliseconds per turn
+    private volatile int msPerTurn;
+
+    // Whether turns run back to back, publishing once per frame
+    private volatile boolean turbo;
+
+    // Turns per frame in turbo mode; zero runs as many as fit in a frame
+    private volatile int ticksPerFrame;
+
+    // Whether the controller chooses the turns per frame
+    private volatile boolean adaptive;
+
+    // Whether the clock is advancing continuously (simulation thread only)
+    private boolean running;
+
+    // System time at which the next turn is due (simulation thread only)
+    private long nextTurnTime;
+
+    // System time at which the previous turn or frame started, or zero if
+    // the clock has just been started (simulation thread only)
+    private long lastFrameTime;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a stopped simulation clock
+     *
+     * @param target    Object notified each time the clock advances
+     * @param publisher Action that publishes the state of the target
+     * @param delay     Target number of milliseconds per turn
+     */
+    public SimClock(TimeDependent target, Runnable publisher, int delay) {
+
+        TARGET = target;
+        PUBLISHER = publisher;
+        msPerTurn = delay;
+        running = false;
+        turbo = false;
+        ticksPerFrame = 0;
+        adaptive = false;
+
+        // Create the controller
+        CONTROLLER = new TickRateController();
+
+        // Create queue for commands issued by other threads
+        COMMANDS = new LinkedBlockingQueue<>();
+
+        // Create the simulation thread; it must not keep the JVM alive
+        THREAD = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, "Simulation Clock");
+        THREAD.setDaemon(true);
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Starts the simulation thread; the clock remains stopped until run() or
+     * step() is called
+     */
+    public void start() {
+        THREAD.start();
+    }
+
+    /**
+     * Responsible for advancing the clock continuously at the target rate
+     */
+    public void run() {
+        invoke(new Runnable() {
+            @Override
+            public void run() {
+                running = true;
+
+                // Frames start immediately; single turns after one interval
+                if(turbo || adaptive)
+                    nextTurnTime = System.nanoTime();
+                else
+                    nextTurnTime = System.nanoTime() + msPerTurn * NS_PER_MS;
+                lastFrameTime = 0;
+            }
+        });
+    }
+
+    /**
+     * Responsible for halting continuous advancement of the clock
+     */
+    public void stop() {
+        invoke(new Runnable() {
+            @Override
+            public void run() {
+                running = false;
+            }
+        });
+    }
+
+    /**
+     * Responsible for halting the clock and advancing it by exactly one turn
+     */
+    public void step() {
+        invoke(new Runnable() {
+            @Override
+            public void run() {
+                running = false;
+                runTurn();
+            }
+        });
+    }
+
+    /**
+     * Queues a command to be executed on the simulation thread between turns
+     *
+     * @param command   The command to be executed
+     */
+    public void invoke(Runnable command) {
+        COMMANDS.add(command);
+    }
+
+    /**
+     * Get the target number of milliseconds per turn
+     *
+     * @return      Target number of milliseconds per turn
+     */
+    public int getMsPerTurn() {
+        return msPerTurn;
+    }
+
+    /**
+     * Set the target number of milliseconds per turn; takes effect from the
+     * next turn
+     *
+     * @param delay     Target number of milliseconds per turn
+     */
+    public void setMsPerTurn(int delay) {
+        msPerTurn = Math.max(delay, 0);
+    }
+
+    /**
+     * Returns whether the clock is in turbo mode
+     *
+     * @return      True if in turbo mode; false otherwise
+     */
+    public boolean getTurbo() {
+        return turbo;
+    }
+
+    /**
+     * Turns turbo mode on or off; takes effect from the next turn
+     *
+     * @param t     True to run turns back to back, publishing once per frame
+     */
+    public void setTurbo(boolean t) {
+        turbo = t;
+    }
+
+    /**
+     * Get the number of turns per frame in turbo mode
+     *
+     * @return      Turns per frame; zero if as many as fit in a frame
+     */
+    public int getTicksPerFrame() {
+        return ticksPerFrame;
+    }
+
+    /**
+     * Set the number of turns per frame in turbo mode
+     *
+     * @param ticks     Turns per frame; zero for as many as fit in a frame
+     */
+    public void setTicksPerFrame(int ticks) {
+        ticksPerFrame = Math.max(ticks, 0);
+    }
+
+    /**
+     * Returns whether the controller chooses the turns per frame
+     *
+     * @return      True if in adaptive mode; false otherwise
+     */
+    public boolean getAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Turns adaptive mode on or off; takes effect from the next turn.  In
+     * adaptive mode turns run in frames, as in turbo mode, but the number of
+     * turns per frame is chosen by the controller, and turns run no faster
+     * than the target number of milliseconds per turn (as fast as possible
+     * if zero).
+     *
+     * @param a     True to let the controller choose the turns per frame
+     */
+    public void setAdaptive(boolean a) {
+        adaptive = a;
+    }
+
+    /**
+     * Get the controller measuring turn cost and choosing turns per frame
+     *
+     * @return      The controller
+     */
+    public TickRateController getController() {
+        return CONTROLLER;
+    }
+
+    /**
+     * Returns whether the calling thread is the simulation thread
+     *
+     * @return      True if called on the simulation thread; false otherwise
+     */
+    public boolean isSimulationThread() {
+        return Thread.currentThread() == THREAD;
+    }
+
+    /**
+     * Responsible for running one frame of turns in turbo mode, then
+     * publishing only the final state
+     */
+    private void runFrame() {
+
+        // Turns to run, and the time by which the frame should be complete
+        boolean controlled = adaptive;
+        int limit = controlled ? CONTROLLER.getTicksPerFrame() : ticksPerFrame;
+        long start = System.nanoTime();
+        long deadline = start + MS_PER_FRAME * NS_PER_MS;
+        int turns = 0;
+
+        do {
+            TARGET.performActions();
+            turns++;
+        }
+        while((turbo || adaptive) && COMMANDS.isEmpty()
+              && (limit > 0 ? turns < limit : System.nanoTime() < deadline));
+
+        long end = System.nanoTime();
+
+        // Publish the state reached at the end of the frame
+        PUBLISHER.run();
+
+        // Report the measurements to the controller
+        measure(start, end, turns, controlled);
+
+        // Adaptive frames are paced by the controller; turbo frames, and the
+        // next turn after leaving either mode, are due immediately
+        if(controlled)
+            nextTurnTime = start + CONTROLLER.getFrameIntervalNanos();
+        else
+            nextTurnTime = System.nanoTime();
+    }
+
+    /**
+     * Responsible for running a single turn and publishing its result
+     */
+    private void runTurn() {
+
+        long start = System.nanoTime();
+
+        TARGET.performActions();
+
+        long end = System.nanoTime();
+
+        PUBLISHER.run();
+
+        // Report the measurements to the controller
+        measure(start, end, 1, false);
+    }
+
+    /**
+     * Responsible for reporting the cost of a turn or frame to the controller
+     *
+     * @param start         System time at which the turns started
+     * @param end           System time at which the turns finished
+     * @param turns         Number of turns run
+     * @param controlled    True if the controller chose the number of turns
+     */
+    private void measure(long start, long end, int turns, boolean controlled) {
+
+        CONTROLLER.recordTurns(turns, end - start);
+        CONTROLLER.recordPublish(System.nanoTime() - end);
+
+        // Throughput is measured from the start of the previous frame
+        if(lastFrameTime != 0)
+            CONTROLLER.recordThroughput(turns, start - lastFrameTime);
+
+        lastFrameTime = start;
+
+        CONTROLLER.update(msPerTurn, controlled);
+    }
+
+    /**
+     * Main loop of the simulation thread.  Executes queued commands as they
+     * arrive and, while running, advances the clock whenever a turn is due.
+     */
+    private void loop() {
+
+        while(true) {
+
+            // The next command to execute, or null if a turn is due
+            Runnable command;
+
+            try {
+
+                // If running, wait for a command only until the next turn
+                // (or frame) is due
+                if(running) {
+                    long wait = nextTurnTime - System.nanoTime();
+                    command = COMMANDS.poll(Math.max(wait, 0),
+                                            TimeUnit.NANOSECONDS);
+                }
+
+                // Otherwise, sleep until a command arrives
+                else {
+                    command = COMMANDS.take();
+                }
+            }
+            catch(InterruptedException e) {
+                return;
+            }
+
+            try {
+
+                // Execute the command...
+                if(command != null) {
+                    command.run();
+                }
+
+                // ...or advance the clock by one frame of turns
+                else if(turbo || adaptive) {
+                    runFrame();
+                }
+
+                // ...or advance the clock by one turn
+                else {
+
+                    // Schedule the next turn, without building up a backlog
+                    // if the simulation is falling behind
+                    long period = msPerTurn * NS_PER_MS;
+                    nextTurnTime = Math.max(nextTurnTime + period,
+                                            System.nanoTime());
+
+                    runTurn();
+                }
+            }
+            catch(RuntimeException e) {
+
+                // Stop the clock rather than losing the simulation thread
+                running = false;
+                System.out.println("Error in SimClock: simulation stopped");
+                e.printStackTrace();
+            }
+        }
+    }
+}
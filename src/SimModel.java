@@ -1,12 +1,15 @@
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.ListIterator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import javax.swing.Timer;
+import javax.swing.JComponent;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 /**
  * Class SimModel
@@ -17,7 +20,7 @@ import javax.swing.JOptionPane;
  * 
  * @author Camron Khan
  */
-public class SimModel implements SimulationEventListener, ActionListener {
+public class SimModel implements SimulationEventListener, TimeDependent {
         
     /**************************************************************************
      * CONSTANTS
@@ -34,16 +37,13 @@ public class SimModel implements SimulationEventListener, ActionListener {
     
     // Turns per day
     final private int TURNS_PER_DAY;
+    
+    // Whether the model runs without a GUI or view
+    final private boolean HEADLESS;
 
-    // Initial conditions for all nodes
-    final private int NUM_SOLDIER_INIT = 0;
-    final private int NUM_FORAGER_INIT = 0;
-    final private int NUM_SCOUT_INIT = 0;
-    final private int NUM_BALA_INIT = 0;
-    final private int FOOD_AMOUNT_INIT = 0;
+    // Initial conditions for all nodes; every other value starts at zero
+    // (or false), as set by the Node constructor
     final private int PHEROMONE_LEVEL_INIT = 0;
-    final private boolean VISITED_INIT = false;
-    final private boolean QUEEN_INIT = false;
 
     // Initial conditions for colony entrance
     final private int NUM_SOLDIER_COLONY = 10;
@@ -69,11 +69,68 @@ public class SimModel implements SimulationEventListener, ActionListener {
     // View of the model
     private SimView view;
 
-    // Two-dimensional array to store nodes
-    private Node[][] grid;
+    // Sparse store of nodes, created a chunk at a time as the colony
+    // explores the grid
+    private ChunkedGrid grid;
+    
+    // Store holding the values of the nodes, or null if each node holds its
+    // own values
+    private CellStore cellStore;
+    
+    // Exchange through which grid snapshots are published to readers
+    private SnapshotExchange snapshots;
+    
+    // Cells changed since the last snapshot, indexed by row * COLS + col
+    private CellSet changed;
+    
+    // Index answering region queries over the grid, or null if disabled
+    private RegionIndex regionIndex;
+    
+    // Generator deriving the food in each node from its coordinates, or null
+    // to choose food at random as each node is revealed
+    private volatile WorldGenerator worldGenerator;
+    
+    // Checkpoint being written in the background, and the thread writing
+    // it, or null
+    private CheckpointWriter checkpointWriter;
+    private Thread checkpointThread;
+    
+    // File to which a checkpoint is written periodically, or null, and the
+    // number of turns between checkpoints
+    private volatile File autoCheckpointFile;
+    private volatile int autoCheckpointTurns;
+    
+    // Journal recording every turn, or null
+    private Journal journal;
+    
+    // Journal being replayed in place of the simulation, or null
+    private JournalReplay replay;
+    
+    // Recorder of per-turn metrics, or null, and the row being filled
+    private MetricsRecorder metrics;
+    private long[] metricsRow;
+    
+    // Total food and pheromone on the grid
+    private long totalFood;
+    private long totalPheromone;
+    
+    // Ants born, died and killed during the current turn
+    private int births;
+    private int deaths;
+    private int kills;
+    
+    // Profiler timing each phase of a turn
+    private TickProfiler profiler;
+    
+    // Whether turns are being profiled, and whether the previous turn was
+    private volatile boolean profiling;
+    private boolean profiled;
+    
+    // Simulation clock, which runs the simulation on its own thread
+    private SimClock simClock;
     
-    // Simulation timer
-    private Timer simTimer;
+    // Action run by the clock to publish a snapshot
+    private Runnable publisher;
     
     // Turns elapsed
     private int numTurns;
@@ -84,6 +141,9 @@ public class SimModel implements SimulationEventListener, ActionListener {
     // Queen Ant
     private QueenAnt queen;
     
+    // Whether the queen has died and the simulation is over
+    private boolean gameOver;
+    
     // HashMap for storing ant ID-type pairs
     private HashMap<Integer, Integer> antTypeMap;
     
@@ -109,6 +169,21 @@ public class SimModel implements SimulationEventListener, ActionListener {
      * @param turns     Number of turns per day
      */
     public SimModel(int rows, int cols, int delay, int turns) {
+        this(rows, cols, delay, turns, false);
+    }
+    
+    /**
+     * Responsible for creating a simulation model, optionally without a GUI
+     * or view.  A headless model is driven by calling performActions()
+     * directly, as by benchmarks, and does not exit when the queen dies.
+     * 
+     * @param rows      x coordinate
+     * @param cols      y coordinate
+     * @param delay     Number of milliseconds between timer events
+     * @param turns     Number of turns per day
+     * @param headless  True if no GUI or view is to be created
+     */
+    public SimModel(int rows, int cols, int delay, int turns, boolean headless) {
 
         // Number of rows and columns
         ROWS = rows;
@@ -120,23 +195,64 @@ public class SimModel implements SimulationEventListener, ActionListener {
         // Number turn segments per day
         TURNS_PER_DAY = turns;
 
-        // Create a view object to which the model will push updates
-        view = new SimView(ROWS, COLS);
+        // Create the exchange through which snapshots are published
+        snapshots = new SnapshotExchange(ROWS, COLS);
+        
+        // Create the change list for snapshots
+        changed = new CellSet(ROWS, COLS);
+        
+        // Create the profiler; turns are not profiled until it is enabled
+        profiler = new TickProfiler();
         
-        // Greate the GUI
-        gui = new AntSimGUI();
+        // Snapshots are still published without a view, for other readers
+        HEADLESS = headless;
+        if(!HEADLESS) {
+            
+            // Create a view object which renders the published snapshots
+            view = new SimView(ROWS, COLS, snapshots);
+
+            // Greate the GUI
+            gui = new AntSimGUI();
+
+            // Initialize the GUI
+            gui.initGUI(view.getContainer(), view.getHeatmap(), view.getMinimap());
+
+            // The view displays the simulation time on the GUI
+            view.setGUI(gui);
+
+            // Add model as simulation event listener interested in the GUI
+            gui.addSimulationEventListener(this);
+        }
         
-        // Initialize the GUI
-        gui.initGUI(view.getContainer());
+        // Publishing is timed along with the turn
+        publisher = new Runnable() {
+            @Override
+            public void run() {
+                
+                boolean profile = profiling;
+                if(profile)
+                    profiler.startPhase();
+                
+                publishSnapshot();
+                
+                if(profile)
+                    profiler.endPhase(TickProfiler.PUBLISH);
+            }
+        };
         
-        // Add model as simulation event listener interested in the GUI
-        gui.addSimulationEventListener(this);
+        // Create a simulation clock which publishes snapshots after each turn
+        // (or each frame of turns in turbo mode)
+        simClock = new SimClock(this, publisher, MS_PER_TURN);
         
-        // Create a simulation timer
-        simTimer = new Timer(MS_PER_TURN,this);
+        // The view reports render times to the clock's controller
+        if(view != null)
+            view.setController(simClock.getController());
         
         // Initialize antID
         antID = 0;
+        
+        // Start the simulation thread
+        simClock.start();
     }
 
 
@@ -149,25 +265,103 @@ public class SimModel implements SimulationEventListener, ActionListener {
      ************************************/
     
     /**
-     * Initialize SimModel with "Normal Setup" values
+     * Initialize SimModel with "Normal Setup" values.  If a grid already
+     * exists its nodes, the ant registries and the snapshot buffers are
+     * cleared and reused in place rather than allocated again.
      */
     public void initSimModel() {
 
-        // Create a two-dimensional array of nodes to implement grid
-        grid = new Node[ROWS][COLS];
-        
-        // Initialize nodes
-        createNodes(ROWS, COLS);
-        
-        // Create HashMaps to store ants
-        antTypeMap = new HashMap<>();
-        scoutMap = new HashMap<>();
-        foragerMap = new HashMap<>();
-        soldierMap = new HashMap<>();
-        balaMap = new HashMap<>();
+        // Start from an empty grid
+        clearSimModel();
 
         // Initialize colony entrance
         initColonyEntrance(ROWS, COLS);
+        
+        // The colony's founders are not counted as births
+        clearTurnCounts();
+        
+        // Every cell is back to its initial state, except those changed since
+        // the grid was created
+        snapshots.reset();
+    }
+    
+    /**
+     * Responsible for emptying the grid and ant registries, creating them the
+     * first time.  The colony entrance is not initialized.
+     */
+    void clearSimModel() {
+
+        // A checkpoint being written still refers to the current grid
+        awaitCheckpoint();
+
+        // Changes pending from any previous grid no longer apply
+        clearChanged();
+        
+        // The journal records the new grid in full
+        if(journal != null)
+            journal.requestKeyframe();
+        
+        // The grid starts empty
+        if(regionIndex != null)
+            regionIndex.clear();
+        totalFood = 0;
+        totalPheromone = 0;
+        
+        // Create the grid and registries the first time...
+        if(grid == null) {
+            
+            // Create the store of nodes; nodes start hidden and empty, and
+            // are only created once the colony reaches them
+            grid = new ChunkedGrid(this, ROWS, COLS, cellStore);
+            
+            // Create HashMaps to store ants; ants are visited in the order
+            // they were created, so that a restored simulation visits them in
+            // the same order as the original
+            antTypeMap = new LinkedHashMap<>();
+            scoutMap = new LinkedHashMap<>();
+            foragerMap = new LinkedHashMap<>();
+            soldierMap = new LinkedHashMap<>();
+            balaMap = new LinkedHashMap<>();
+        }
+        
+        // ...otherwise return them to their initial state
+        else {
+            
+            // Reset nodes
+            grid.reset();
+            
+            // Empty HashMaps
+            antTypeMap.clear();
+            scoutMap.clear();
+            foragerMap.clear();
+            soldierMap.clear();
+            balaMap.clear();
+            
+            queen = null;
+        }
+    }
+    
+    /**
+     * Responsible for starting a new simulation from day 0, reusing the grid,
+     * ant registries, snapshot buffers and view.  Intended for running many
+     * simulations back to back.  Must only be called on the simulation
+     * thread, or before the simulation clock is running.
+     */
+    public void reset() {
+        
+        // Restart the clock and ant IDs
+        numTurns = 0;
+        antID = 0;
+        gameOver = false;
+        
+        // Return the grid to its "Normal Setup" state
+        beginUpdate();
+        try {
+            initSimModel();
+        }
+        finally {
+            endUpdate();
+        }
     }
     
     /**
@@ -184,7 +378,7 @@ public class SimModel implements SimulationEventListener, ActionListener {
         int y = col/2 + 1;
         
         // Rename center node
-        Node centerNode = grid[x][y];
+        Node centerNode = grid.get(x, y);
         
         // Get position of center node
         String posCenterNode = getPosition(x, y);
@@ -225,7 +419,7 @@ public class SimModel implements SimulationEventListener, ActionListener {
     private void run() {
         
         // Start the simulation clock
-        simTimer.start();
+        simClock.run();
     }
     
     /**
@@ -233,16 +427,61 @@ public class SimModel implements SimulationEventListener, ActionListener {
      */
     private void step() {
         
-        // Stop timer
-        simTimer.stop();
-        
-        // Create an action event to pass to the simulation clock listeners
-        ActionEvent timerEvent = new ActionEvent(simTimer,
-                                                 ActionEvent.ACTION_PERFORMED,
-                                                 "Step");
-        
-        // Broadcast the event
-        this.actionPerformed(timerEvent);
+        // Stop the clock and advance it by one turn
+        simClock.step();
+    }
+    
+    /**
+     * Responsible for stopping the simulation clock
+     */
+    public void pause() {
+        simClock.stop();
+    }
+    
+    /**
+     * Responsible for starting the simulation clock
+     */
+    public void resume() {
+        simClock.run();
+    }
+    
+    /**
+     * Responsible for stopping the simulation clock and advancing it by a
+     * number of turns
+     * 
+     * @param turns     Number of turns
+     */
+    public void step(int turns) {
+        for(int i = 0; i < turns; i++)
+            simClock.step();
+    }
+    
+    /**
+     * Responsible for running a command on the simulation thread between
+     * turns
+     * 
+     * @param command   The command
+     */
+    void invoke(Runnable command) {
+        simClock.invoke(command);
+    }
+    
+    /**
+     * Get the target number of milliseconds per turn
+     * 
+     * @return      Target number of milliseconds per turn
+     */
+    public int getMsPerTurn() {
+        return simClock.getMsPerTurn();
+    }
+    
+    /**
+     * Set the target number of milliseconds per turn
+     * 
+     * @param delay     Target number of milliseconds per turn
+     */
+    public void setMsPerTurn(int delay) {
+        simClock.setMsPerTurn(delay);
     }
     
     
@@ -251,12 +490,83 @@ public class SimModel implements SimulationEventListener, ActionListener {
      *************************/
     
     /**
-     * Responds to buttons pressed on the GUI
+     * Responds to buttons pressed on the GUI.  Events are handed to the
+     * simulation thread so that the model is never modified by the GUI thread.
      * 
      * @param simEvent    The SimulationEvent which occurred (button pressed)
      */
     @Override
-    public void simulationEventOccurred(SimulationEvent simEvent) {
+    public void simulationEventOccurred(final SimulationEvent simEvent) {
+        
+        // Run, step and turbo settings are already thread-safe clock commands
+        if (simEvent.getEventType() == SimulationEvent.RUN_EVENT) {
+
+            run();
+        }
+
+        else if (simEvent.getEventType() == SimulationEvent.STEP_EVENT) {
+
+            step();
+        }
+
+        else if (simEvent.getEventType() == SimulationEvent.TURBO_EVENT) {
+
+            simClock.setTurbo(simEvent.getValue() != 0);
+        }
+
+        else if (simEvent.getEventType() == SimulationEvent.TICKS_PER_FRAME_EVENT) {
+
+            simClock.setTicksPerFrame(simEvent.getValue());
+        }
+
+        else if (simEvent.getEventType() == SimulationEvent.ADAPTIVE_EVENT) {
+
+            simClock.setAdaptive(simEvent.getValue() != 0);
+        }
+        
+        // All other events modify the model on the simulation thread
+        else {
+            
+            simClock.invoke(new Runnable() {
+                @Override
+                public void run() {
+                    handleSimulationEvent(simEvent);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Responsible for applying a GUI event to the model; must only be called
+     * on the simulation thread
+     * 
+     * @param simEvent    The SimulationEvent which occurred (button pressed)
+     */
+    private void handleSimulationEvent(SimulationEvent simEvent) {
+        
+        // Apply the event
+        beginUpdate();
+        try {
+            applySimulationEvent(simEvent);
+        }
+        finally {
+            endUpdate();
+        }
+        
+        // Record and publish the resulting state, unless the grid has not
+        // been created
+        if(grid != null) {
+            recordJournal();
+            publishSnapshot();
+        }
+    }
+    
+    /**
+     * Responsible for applying a GUI event to the model
+     * 
+     * @param simEvent    The SimulationEvent which occurred (button pressed)
+     */
+    private void applySimulationEvent(SimulationEvent simEvent) {
 
         if (simEvent.getEventType() == SimulationEvent.NORMAL_SETUP_EVENT) { 
 
@@ -285,18 +595,6 @@ public class SimModel implements SimulationEventListener, ActionListener {
             createAnt(SOLDIER, getNode(3, 3));
         }
 
-        else if (simEvent.getEventType() == SimulationEvent.RUN_EVENT) {
-
-            run();
-
-        }
-
-        else if (simEvent.getEventType() == SimulationEvent.STEP_EVENT) {
-
-            step();
-
-        }
-
         else {
 
             // invalid event occurred - probably will never happen
@@ -305,49 +603,124 @@ public class SimModel implements SimulationEventListener, ActionListener {
     }
     
     /**
-     * Responds to increments in the simulation clock
-     * 
-     * @param action    The ActionEvent which occurred (timer incremented)
+     * Responds to increments in the simulation clock; called on the simulation
+     * thread
      */
     @Override
-    public void actionPerformed(ActionEvent action) {
+    public void performActions() {
+        
+        // Nothing happens once the queen has died, or while a journal is
+        // being replayed
+        if(gameOver || replay != null)
+            return;
+        
+        // Forget a checkpoint that has been written
+        if(checkpointWriter != null && checkpointWriter.isFinished()) {
+            checkpointWriter = null;
+            checkpointThread = null;
+        }
         
         // Update number of turns elapsed
         numTurns++;
         
+        // Start timing the turn; histograms start empty each time profiling
+        // is enabled
+        boolean profile = profiling;
+        if(profile) {
+            if(!profiled)
+                profiler.reset();
+            profiler.startTurn();
+        }
+        profiled = profile;
+        
         // Broadcast time change to handlers
-        guiHandler();
-        nodeHandler();
-        scoutHandler();
-        foragerHandler();
-        soldierHandler();
-        balaHandler();
-        queenHandler();
+        beginUpdate();
+        try {
+            nodeHandler();
+            if(profile)
+                profiler.endPhase(TickProfiler.NODE);
+            
+            scoutHandler();
+            if(profile)
+                profiler.endPhase(TickProfiler.SCOUT);
+            
+            foragerHandler();
+            if(profile)
+                profiler.endPhase(TickProfiler.FORAGER);
+            
+            soldierHandler();
+            if(profile)
+                profiler.endPhase(TickProfiler.SOLDIER);
+            
+            balaHandler();
+            if(profile)
+                profiler.endPhase(TickProfiler.BALA);
+            
+            queenHandler();
+            if(profile)
+                profiler.endPhase(TickProfiler.QUEEN);
+        }
+        finally {
+            endUpdate();
+        }
+        
+        // Record the turn
+        recordJournal();
+        recordMetrics();
+        
+        // Finish timing the turn, reporting periodically
+        if(profile)
+            profiler.endTurn();
+        
+        // Start a periodic checkpoint
+        File file = autoCheckpointFile;
+        if(file != null && numTurns % autoCheckpointTurns == 0)
+            startCheckpoint(file);
     }
     
     /**
-     * Responsible for broadcasting simulation clock updates to GUI
+     * Responsible for running a single turn and publishing its result, as
+     * the simulation clock does.  Used to drive a headless model directly;
+     * must only be called while the clock is stopped.
      */
-    private void guiHandler() {
-        
-        // Convert simulation time to string
-        String t = getTime();
-        
-        // Set the GUI's time label
-        gui.setTime(t);
+    void runTurn() {
+        performActions();
+        publisher.run();
+    }
+    
+    /**
+     * Responsible for marking the start of a batch of changes to the grid,
+     * so that a shared cell store can tell readers a change is in progress
+     */
+    private void beginUpdate() {
+        if(cellStore != null)
+            cellStore.beginUpdate();
+    }
+    
+    /**
+     * Responsible for marking the end of a batch of changes to the grid
+     */
+    private void endUpdate() {
+        if(cellStore != null)
+            cellStore.endUpdate(numTurns);
     }
     
     /**
      * Responsible for broadcasting simulation clock updates to nodes
      */
-    private void nodeHandler() {
+    void nodeHandler() {
         
-        // For each node in the grid...
-        for(int x = 0; x < ROWS; x++) {
-            for(int y = 0; y < COLS; y++) {
+        // For each node created so far; all others are in their initial
+        // state, on which time has no effect
+        for(int c = 0; c < grid.getAllocatedChunks(); c++) {
+            
+            Node[] chunk = grid.getAllocatedChunk(c);
+            
+            for(int n = 0; n < chunk.length; n++) {
                 
                 // Notify the node that time has elapsed
-                grid[x][y].performActions();
+                if(chunk[n] != null)
+                    chunk[n].performActions();
             }
         }
     }
@@ -358,6 +731,7 @@ public class SimModel implements SimulationEventListener, ActionListener {
     private void queenHandler() {
         
         // Notify the queen that time has elapsed
+        antChanging(queen);
         queen.performActions();
     }
     
@@ -380,6 +754,7 @@ public class SimModel implements SimulationEventListener, ActionListener {
             ScoutAnt ant = pair.getValue();
             
             // Notify the ant that time has elapsed
+            antChanging(ant);
             ant.performActions();
         }
     }
@@ -403,6 +778,7 @@ public class SimModel implements SimulationEventListener, ActionListener {
             ForagerAnt ant = pair.getValue();
             
             // Notify the ant that time has elapsed
+            antChanging(ant);
             ant.performActions();
         }
     }
@@ -426,6 +802,7 @@ public class SimModel implements SimulationEventListener, ActionListener {
             SoldierAnt ant = pair.getValue();
             
             // Notify the ant that time has elapsed
+            antChanging(ant);
             ant.performActions();
         }    
     }
@@ -449,6 +826,7 @@ public class SimModel implements SimulationEventListener, ActionListener {
             BalaAnt ant = pair.getValue();
             
             // Notify the ant that time has elapsed
+            antChanging(ant);
             ant.performActions();
         }
         
@@ -468,77 +846,6 @@ public class SimModel implements SimulationEventListener, ActionListener {
      * Object Create & Destroy Methods
      **********************************/
     
-    /**
-     * Responsible for creating the nodes in the grid
-     * 
-     * @param row   x coordinate
-     * @param col   y coordinate
-     */
-    private void createNodes(int row, int col) {
-        
-        // Create nodes
-        for(int x = 0; x < row; x++) {
-            for(int y = 0; y < col; y++) {
-
-                // Creates a node with (x,y) grid position and reference to
-                // the simulation view
-                grid[x][y] = new Node(this, x, y);
-
-                // Alias for new node
-                Node newNode = grid[x][y];
-                
-                // Get position of node
-                String pos = getPosition(x, y);
-
-                // Set visited==false
-                newNode.setVisited(pos, VISITED_INIT);
-
-                // Set queenPresent==false
-                newNode.setQueen(pos, QUEEN_INIT);
-
-                // Set initial number of foragers
-                newNode.setNumForager(pos, NUM_FORAGER_INIT);
-
-                // Set initial number of scouts
-                newNode.setNumScout(pos, NUM_SCOUT_INIT);
-
-                // Set initial number of soldiers
-                newNode.setNumSoldier(pos, NUM_SOLDIER_INIT);
-
-                // Set initial number of balas
-                newNode.setNumBala(pos, NUM_BALA_INIT);
-
-                // Set initial food amount
-                newNode.setFoodAmount(pos, FOOD_AMOUNT_INIT);
-
-                // Set initial pheromone level
-                newNode.setPheromoneLevel(pos, PHEROMONE_LEVEL_INIT);
-            }
-        }
-        
-        // ArrayLists to store lists of adjacent and visited-adjacent nodes
-        ArrayList<Node> adj;
-        ArrayList<Node> vst;
-        
-        // For each node created, set adjacent and visited-adjacent nodes
-        for(int x = 0; x < row; x++) {
-            for(int y = 0; y < col; y++) {
-                
-                // Identify nodes adjacent to current node
-                adj = grid[x][y].findAdjacentNodes(ROWS, COLS);
-                
-                // Set adjacent nodes
-                grid[x][y].setAdjacentNodes(adj);
-                
-                // Identify visted nodes adjacent to current node
-                vst = grid[x][y].findVisitedAdjacentNodes(adj);
-                
-                // Set visited adjacent nodes
-                grid[x][y].setVisitedAdjacentNodes(vst);
-            }
-        }
-    }
-    
     /**
      * Responsible for creating ants
      * 
@@ -638,6 +945,49 @@ public class SimModel implements SimulationEventListener, ActionListener {
             // Increment AntID counter
             antID++;
         }
+        
+        // Record the birth
+        births++;
+        if(journal != null)
+            journal.antBorn(antType);
+    }
+    
+    /**
+     * Responsible for re-creating an ant with a given ID, as when restoring
+     * a checkpoint
+     * 
+     * @param id            Unique ant ID
+     * @param antType       Type of ant to be created
+     * @param initialNode   Node where ant will be located
+     */
+    void restoreAnt(int id, Integer antType, Node initialNode) {
+        
+        // Create the ant with the given ID
+        antID = id;
+        createAnt(antType, initialNode);
+    }
+    
+    /**
+     * Responsible for restoring the turn and ant ID counters, as when
+     * restoring a checkpoint
+     * 
+     * @param turns     Turns elapsed
+     * @param nextID    ID of the next ant to be created
+     * @param over      Whether the queen has died
+     */
+    void restoreCounters(int turns, int nextID, boolean over) {
+        numTurns = turns;
+        antID = nextID;
+        gameOver = over;
+    }
+    
+    /**
+     * Get the ID of the next ant to be created
+     * 
+     * @return  The ID
+     */
+    int getNextAntID() {
+        return antID;
     }
     
     /**
@@ -654,19 +1004,37 @@ public class SimModel implements SimulationEventListener, ActionListener {
         // GAME OVER
         if(antType == QUEEN) {
             
-            // Stop the simulation timer
-            simTimer.stop();
+            // The queen can only die once
+            if(gameOver)
+                return;
             
-            System.out.println("Queen has died");
+            gameOver = true;
             
-           JOptionPane.showMessageDialog(null, "The Queen has died - Click OK to exit", "GAME OVER", JOptionPane.INFORMATION_MESSAGE);
+            // Stop the simulation clock
+            simClock.stop();
             
-            //if (result == JOptionPane.YES_OPTION)
-                //System.exit(0);
+            System.out.println("Queen has died");
             
-            System.exit(0);
+            // Dialogs must be shown on the Event Dispatch Thread; without a
+            // GUI, the model simply stops
+            if(!HEADLESS) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+
+                        JOptionPane.showMessageDialog(null, "The Queen has died - Click OK to exit", "GAME OVER", JOptionPane.INFORMATION_MESSAGE);
+
+                        System.exit(0);
+                    }
+                });
+            }
         }
         
+        // Record the death
+        deaths++;
+        if(journal != null)
+            journal.antDied(antType);
+        
         // Destroy forager
         if(antType == FORAGER) {
             
@@ -697,138 +1065,719 @@ public class SimModel implements SimulationEventListener, ActionListener {
     }
     
     
-    /******************************
-     * Push Model --> View Methods
-     ******************************/
+    /**
+     * Responsible for recording that an ant has been killed by another ant;
+     * called before the prey dies
+     */
+    protected void antKilled() {
+        kills++;
+    }
+    
+    
+    /*************************
+     * Metrics Methods
+     *************************/
     
     /**
-     * Responsible for revealing nodes on GUI
+     * Responsible for recording metrics for every turn from the end of the
+     * current turn to a CSV file, replacing the file if it exists, until
+     * stopMetrics() is called.  Any metrics already being recorded are
+     * stopped.
      * 
-     * @param pos   String representation of grid position in "x,y" format
+     * @param file      The file
      */
-    public void showNode(String pos) {
-        view.showNode(pos);
+    public void startMetrics(final File file) {
+        simClock.invoke(new Runnable() {
+            @Override
+            public void run() {
+                
+                closeMetrics();
+                
+                try {
+                    metrics = new MetricsRecorder(file);
+                    metricsRow = new long[MetricsRecorder.COLUMNS];
+                }
+                catch(IOException e) {
+                    System.out.println("Error in SimModel: metrics not started: " + e.getMessage());
+                }
+            }
+        });
     }
     
     /**
-     * Responsible for hiding nodes on GUI
-     * 
-     * @param pos   String representation of grid position in "x,y" format
+     * Responsible for stopping the metrics being recorded, if any, at the end
+     * of the current turn, once every row has been written
      */
-    public void hideNode(String pos) {
-        view.hideNode(pos);
+    public void stopMetrics() {
+        simClock.invoke(new Runnable() {
+            @Override
+            public void run() {
+                closeMetrics();
+            }
+        });
     }
     
     /**
-     * Responsible for setting a node's visited status
-     * 
-     * @param pos   String representation of the node's position
-     * @param v     True if visited; false otherwise
+     * Responsible for adding the current turn's metrics to the recorder, if
+     * any, then clearing the counts for the next turn
      */
-    public void setVisited(String pos, boolean v) {
+    private void recordMetrics() {
         
-        boolean visited = v;
+        if(metrics != null) {
+            
+            long[] row = metricsRow;
+            row[MetricsRecorder.TURN] = numTurns;
+            row[MetricsRecorder.QUEEN] = queen != null && !gameOver ? 1 : 0;
+            row[MetricsRecorder.FORAGER] = foragerMap.size();
+            row[MetricsRecorder.SCOUT] = scoutMap.size();
+            row[MetricsRecorder.SOLDIER] = soldierMap.size();
+            row[MetricsRecorder.BALA] = balaMap.size();
+            row[MetricsRecorder.COLONY_FOOD] = getColonyFood();
+            row[MetricsRecorder.TOTAL_FOOD] = totalFood;
+            row[MetricsRecorder.PHEROMONE] = totalPheromone;
+            row[MetricsRecorder.BIRTHS] = births;
+            row[MetricsRecorder.DEATHS] = deaths;
+            row[MetricsRecorder.KILLS] = kills;
+            
+            metrics.record(row);
+        }
         
-        if(visited)
-                view.showNode(pos);
-            else
-                view.hideNode(pos);
+        clearTurnCounts();
     }
     
     /**
-     * Responsible for revealing adjacent nodes on GUI
-     * 
-     * @param current   The current node
+     * Responsible for clearing the counts of ants born, died and killed
      */
-    public void showAdjacentNodes(Node currentNode) {
-        
-        // Create an ArrayList to store the set of adjacent nodes
-        ArrayList arrLst = currentNode.getAdjacentNodes();
-        
-        // Create a ListIterator to iterate through ArrayList
-        ListIterator<Node> lstItr = arrLst.listIterator();
+    private void clearTurnCounts() {
+        births = 0;
+        deaths = 0;
+        kills = 0;
+    }
+    
+    /**
+     * Responsible for closing the metrics recorder, if any
+     */
+    private void closeMetrics() {
+        if(metrics != null) {
+            metrics.close();
+            metrics = null;
+        }
+    }
+    
+    /**
+     * Returns the amount of food at the colony entrance
+     * 
+     * @return  Amount of food
+     */
+    private int getColonyFood() {
         
-        // While nodes remain in the ArrayList...
-        while(lstItr.hasNext()) {
-            
-            Node tempNode = lstItr.next();
-            
-            // Get the position of each node
-            String pos = tempNode.getPosition();
-            
-            // Reaveal each node
-            tempNode.setVisited(pos, true);
+        // Center node, as chosen by initColonyEntrance
+        Node node = grid.peek(ROWS/2 + 1, COLS/2 + 1);
+        
+        return node == null ? 0 : node.getFoodAmount();
+    }
+    
+    
+    /*************************
+     * Profiling Methods
+     *************************/
+    
+    /**
+     * Responsible for enabling or disabling the timing of each phase of a
+     * turn; may be called from any thread.  Each time profiling is enabled
+     * the histograms start empty.
+     * 
+     * @param p     True to profile turns; false otherwise
+     */
+    public void setProfiling(boolean p) {
+        profiling = p;
+    }
+    
+    /**
+     * Returns whether turns are being profiled
+     * 
+     * @return  True if turns are being profiled; false otherwise
+     */
+    public boolean isProfiling() {
+        return profiling;
+    }
+    
+    /**
+     * Responsible for setting the interval between profile reports, which are
+     * printed while turns are being profiled
+     * 
+     * @param seconds   Seconds between reports; zero for none
+     */
+    public void setProfileReportInterval(int seconds) {
+        profiler.setReportInterval(seconds);
+    }
+    
+    /**
+     * Returns the profiler timing each phase of a turn
+     * 
+     * @return  The profiler
+     */
+    public TickProfiler getProfiler() {
+        return profiler;
+    }
+    
+    
+    /*************************
+     * Checkpoint Methods
+     *************************/
+    
+    /**
+     * Responsible for saving the complete state of the simulation to a file
+     * as of the end of the current turn.  The file is written in the
+     * background while the simulation continues.
+     * 
+     * @param file      The file
+     */
+    public void saveCheckpoint(final File file) {
+        simClock.invoke(new Runnable() {
+            @Override
+            public void run() {
+                
+                // Nothing to save before the first setup
+                if(grid != null)
+                    startCheckpoint(file);
+            }
+        });
+    }
+    
+    /**
+     * Responsible for saving a checkpoint periodically, in the background,
+     * every given number of simulated days
+     * 
+     * @param file      The file, which is replaced by each checkpoint, or
+     *                  null to stop saving checkpoints
+     * @param days      Number of days between checkpoints
+     */
+    public void setAutoCheckpoint(File file, int days) {
+        autoCheckpointTurns = Math.max(days, 1) * TURNS_PER_DAY;
+        autoCheckpointFile = file;
+    }
+    
+    /**
+     * Responsible for starting to write a checkpoint in the background;
+     * must only be called on the simulation thread, between turns
+     * 
+     * @param file      The file
+     * @return          The writer, or null if the previous checkpoint is
+     *                  still being written
+     */
+    CheckpointWriter startCheckpoint(File file) {
+        
+        // Only one checkpoint is written at a time
+        if(checkpointWriter != null && !checkpointWriter.isFinished()) {
+            System.out.println("Error in SimModel: checkpoint skipped; the previous one is still being written");
+            return null;
+        }
+        
+        // Freeze the simulation and write it on another thread
+        checkpointWriter = new CheckpointWriter(this, file);
+        
+        checkpointThread = new Thread(checkpointWriter, "Checkpoint Writer");
+        checkpointThread.setDaemon(true);
+        checkpointThread.start();
+        
+        return checkpointWriter;
+    }
+    
+    /**
+     * Responsible for waiting until a checkpoint being written has been
+     * written, even if the thread is interrupted; must only be called on the
+     * simulation thread
+     */
+    private void awaitCheckpoint() {
+        
+        if(checkpointWriter == null)
+            return;
+        
+        // The writer reads the grid until it has finished, so the wait
+        // continues through an interrupt, which is restored afterwards
+        boolean interrupted = false;
+        while(checkpointThread.isAlive()) {
+            try {
+                checkpointThread.join();
+            }
+            catch(InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        
+        checkpointWriter = null;
+        checkpointThread = null;
+        
+        if(interrupted)
+            Thread.currentThread().interrupt();
+    }
+    
+    /**
+     * Responsible for letting a checkpoint being written copy an ant before
+     * it changes
+     * 
+     * @param ant       The ant about to change
+     */
+    private void antChanging(Ant ant) {
+        if(checkpointWriter != null)
+            checkpointWriter.beforeAntChange(ant);
+    }
+    
+    /**
+     * Responsible for replacing the state of the simulation with one saved
+     * to a file, at the end of the current turn.  The simulation continues
+     * from the saved turn exactly as the original would have.
+     * 
+     * @param file      The file
+     */
+    public void loadCheckpoint(final File file) {
+        simClock.invoke(new Runnable() {
+            @Override
+            public void run() {
+                
+                beginUpdate();
+                try {
+                    Checkpoint.read(SimModel.this, file);
+                }
+                catch(IOException e) {
+                    System.out.println("Error in SimModel: checkpoint not loaded: " + e.getMessage());
+                }
+                finally {
+                    endUpdate();
+                }
+                
+                // Publish the restored state, unless nothing was restored
+                // and there is no grid
+                if(grid != null) {
+                    recordJournal();
+                    clearTurnCounts();
+                    snapshots.reset();
+                    publishSnapshot();
+                }
+            }
+        });
+    }
+    
+    
+    /*************************
+     * Journal Methods
+     *************************/
+    
+    /**
+     * Responsible for recording every turn from the end of the current turn
+     * to a journal, replacing the file if it exists, until stopJournal() is
+     * called.  Any journal already being recorded is stopped.
+     * 
+     * @param file      The file
+     * @param interval  Number of turns between keyframes
+     */
+    public void startJournal(final File file, final int interval) {
+        simClock.invoke(new Runnable() {
+            @Override
+            public void run() {
+                openJournal(file, interval);
+            }
+        });
+    }
+    
+    /**
+     * Responsible for starting to record every turn to a journal, from the
+     * current turn; must only be called on the simulation thread, between
+     * turns.  Any journal already being recorded is stopped.
+     * 
+     * @param file      The file
+     * @param interval  Number of turns between keyframes
+     */
+    void openJournal(File file, int interval) {
+        
+        closeJournal();
+        
+        try {
+            journal = new Journal(this, file, interval, TURNS_PER_DAY);
+        }
+        catch(IOException e) {
+            System.out.println("Error in SimModel: journal not started: " + e.getMessage());
+            return;
+        }
+        
+        // Start from a keyframe of the current grid
+        if(grid != null)
+            recordJournal();
+    }
+    
+    /**
+     * Responsible for stopping the journal being recorded, if any, at the end
+     * of the current turn
+     */
+    public void stopJournal() {
+        simClock.invoke(new Runnable() {
+            @Override
+            public void run() {
+                closeJournal();
+            }
+        });
+    }
+    
+    /**
+     * Responsible for showing a journal in place of the simulation, starting
+     * from its first keyframe.  The simulation is paused and left unchanged
+     * until stopReplay() is called.
+     * 
+     * @param file      The file
+     */
+    public void startReplay(final File file) {
+        
+        // The simulation stands still during the replay
+        simClock.stop();
+        
+        simClock.invoke(new Runnable() {
+            @Override
+            public void run() {
+                
+                JournalReplay opened;
+                try {
+                    opened = new JournalReplay(file);
+                    
+                    if(opened.getRows() != ROWS || opened.getCols() != COLS) {
+                        opened.close();
+                        throw new IOException("journal is of a " + opened.getRows() + "x" + opened.getCols() + " grid");
+                    }
+                    
+                    opened.seek(opened.getFirstTurn());
+                }
+                catch(IOException e) {
+                    System.out.println("Error in SimModel: replay not started: " + e.getMessage());
+                    return;
+                }
+                
+                if(replay != null)
+                    replay.close();
+                replay = opened;
+                
+                publishSnapshot();
+            }
+        });
+    }
+    
+    /**
+     * Responsible for showing the state of the replay as of a turn
+     * 
+     * @param turn      The turn
+     */
+    public void seekReplay(final int turn) {
+        simClock.invoke(new Runnable() {
+            @Override
+            public void run() {
+                
+                if(replay == null)
+                    return;
+                
+                try {
+                    replay.seek(turn);
+                }
+                catch(IOException e) {
+                    System.out.println("Error in SimModel: replay seek failed: " + e.getMessage());
+                }
+                
+                publishSnapshot();
+            }
+        });
+    }
+    
+    /**
+     * Responsible for returning from a replay to the simulation, which
+     * resumes where it was paused
+     */
+    public void stopReplay() {
+        simClock.invoke(new Runnable() {
+            @Override
+            public void run() {
+                
+                if(replay == null)
+                    return;
+                
+                replay.close();
+                replay = null;
+                
+                // Every cell may differ from the replay
+                snapshots.invalidate();
+                
+                if(grid != null)
+                    publishSnapshot();
+            }
+        });
+    }
+    
+    /**
+     * Responsible for writing the frame of the current turn to the journal,
+     * if any; the journal is stopped if the turns go backwards, as when a
+     * new simulation is started
+     */
+    private void recordJournal() {
+        
+        if(journal == null)
+            return;
+        
+        if(numTurns < journal.getLastTurn()) {
+            System.out.println("Error in SimModel: journal stopped; the turns went backwards");
+            closeJournal();
+            return;
         }
         
+        try {
+            journal.recordTurn(numTurns);
+        }
+        catch(IOException e) {
+            System.out.println("Error in SimModel: journal stopped: " + e.getMessage());
+            closeJournal();
+        }
+    }
+    
+    /**
+     * Responsible for closing the journal being recorded, if any; must only
+     * be called on the simulation thread, between turns
+     */
+    void closeJournal() {
+        if(journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+    
+    
+    /*************************
+     * Region Query Methods
+     *************************/
+    
+    /**
+     * Responsible for enabling the region index, which is kept up to date by
+     * the node setters from then on.  Must only be called on the simulation
+     * thread, or before the simulation clock is running.
+     */
+    public void enableRegionIndex() {
+        
+        if(regionIndex != null)
+            return;
+        
+        regionIndex = new RegionIndex(ROWS, COLS);
+        
+        // Index the current grid, if any; nodes not yet created are empty
+        if(grid != null) {
+            for(int x = 0; x < ROWS; x++) {
+                for(int y = 0; y < COLS; y++) {
+                    Node node = grid.peek(x, y);
+                    if(node == null)
+                        continue;
+                    regionIndex.add(RegionIndex.FOOD, x, y, node.getFoodAmount());
+                    regionIndex.add(RegionIndex.PHEROMONE, x, y, node.getPheromoneLevel());
+                    regionIndex.add(RegionIndex.FORAGER, x, y, node.getNumForager());
+                    regionIndex.add(RegionIndex.SCOUT, x, y, node.getNumScout());
+                    regionIndex.add(RegionIndex.SOLDIER, x, y, node.getNumSoldier());
+                    regionIndex.add(RegionIndex.BALA, x, y, node.getNumBala());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Responsible for setting the store holding the values of the nodes, such
+     * as an OffHeapCellStore for grids too large for the heap or a
+     * MappedCellStore to share the grid with other processes.  Must be called
+     * before the first setup; the grid keeps its store from then on.
+     * 
+     * @param cells     The store, or null for each node to hold its own values
+     */
+    public void setCellStore(CellStore cells) {
+        
+        if(grid != null) {
+            System.out.println("Error in SimModel: cell store set after setup");
+            return;
+        }
+        
+        cellStore = cells;
+    }
+    
+    /**
+     * Get the store holding the values of the nodes
+     * 
+     * @return  The store, or null if each node holds its own values
+     */
+    public CellStore getCellStore() {
+        return cellStore;
     }
+    
     /**
-     * Responsible for setting queen's presence or absence on GUI
+     * Responsible for setting the generator from which the food in each node
+     * is derived when it is revealed.  With a generator the world depends
+     * only on its seed, not on the order in which nodes are revealed or on
+     * the random numbers drawn by the ants.  Applies to nodes revealed from
+     * then on.
      * 
-     * @param pos   String representation of grid position in "x,y" format
-     * @param q     True if queen present; false otherwise
+     * @param generator     The generator, or null to choose food at random
      */
-    public void setQueen(String pos, boolean q) {
-        view.setQueen(pos, q);
+    public void setWorldGenerator(WorldGenerator generator) {
+        worldGenerator = generator;
     }
     
     /**
-     * Responsible for setting number of foragers to display in node on GUI
+     * Get the generator from which the food in each node is derived
      * 
-     * @param pos   String representation of grid position in "x,y" format
-     * @param num   Number of forager ants
+     * @return  The generator, or null if food is chosen at random
      */
-    public void setForagerCount(String pos, int num) {
-        view.setForager(pos, num);
+    public WorldGenerator getWorldGenerator() {
+        return worldGenerator;
     }
     
     /**
-     * Responsible for setting number of scouts to display in node on GUI
+     * Returns whether the region index is enabled
      * 
-     * @param pos   String representation of grid position in "x,y" format
-     * @param num   Number of scout ants
+     * @return  True if enabled; false otherwise
      */
-    public void setScoutCount(String pos, int num) {
-        view.setScout(pos, num);
+    public boolean isRegionIndexEnabled() {
+        return regionIndex != null;
     }
     
     /**
-    * Responsible for setting number of soldiers to display in node on GUI
-    * 
-    * @param pos   String representation of grid position in "x,y" format
-    * @param num   Number of soldier ants
-    */
-    public void setSoldierCount(String pos, int num) {
-         view.setSoldier(pos, num);
-    }   
+     * Get the region index
+     * 
+     * @return  The region index, or null if it is not enabled
+     */
+    public RegionIndex getRegionIndex() {
+        return regionIndex;
+    }
     
     /**
-     * Responsible for setting number of balas to display in node on GUI
+     * Returns the sum of a layer over a rectangle of nodes, enabling the
+     * region index on first use (see RegionIndex).  Must only be called on
+     * the simulation thread, or before the simulation clock is running.
      * 
-     * @param pos   String representation of grid position in "x,y" format
-     * @param num   Number of bala ants
+     * @param layer     The layer (see RegionIndex)
+     * @param row1      First x coordinate, inclusive
+     * @param col1      First y coordinate, inclusive
+     * @param row2      Last x coordinate, inclusive
+     * @param col2      Last y coordinate, inclusive
+     * @return          Sum of the layer over the rectangle
      */
-    public void setBalaCount(String pos, int num) {
-        view.setBala(pos, num);
+    public long getRegionSum(int layer, int row1, int col1, int row2, int col2) {
+        
+        // Build the index on first use
+        enableRegionIndex();
+        
+        return regionIndex.sum(layer, row1, col1, row2, col2);
     }
     
+    
+    /*******************************
+     * Snapshot Publishing Methods
+     *******************************/
+    
     /**
-     * Responsible for setting amount of food to display in node on GUI
+     * Responsible for recording that a node's state has changed since the
+     * last snapshot was published; called before the new value is stored
      * 
-     * @param pos   String representation of grid position in "x,y" format
-     * @param num   Amount of food available
+     * @param node      The node that changed
      */
-    public void setFoodAmount(String pos, int num) {
-        view.setFoodAmount(pos, num);
+    public void nodeChanged(Node node) {
+        
+        // A checkpoint being written copies the node first
+        if(checkpointWriter != null)
+            checkpointWriter.beforeNodeChange(node);
+        
+        // Get the index of the node's cell
+        int index = node.getRow() * COLS + node.getCol();
+        
+        // Add the cell to the change list once
+        changed.add(index);
+        
+        // The journal records the cell's new value at the end of the turn
+        if(journal != null)
+            journal.nodeChanged(index);
     }
+    
+    /**
+     * Responsible for letting a checkpoint being written copy a node before
+     * the list of ants present in it changes
+     * 
+     * @param node      The node about to change
+     */
+    public void antsPresentChanged(Node node) {
+        if(checkpointWriter != null)
+            checkpointWriter.beforeNodeChange(node);
+    }
+    
+    /**
+     * Responsible for recording the change in one of a node's values in the
+     * region index, if enabled
+     * 
+     * @param node      The node that changed
+     * @param layer     The layer that changed (see RegionIndex)
+     * @param delta     The change in the node's value
+     */
+    public void layerChanged(Node node, int layer, int delta) {
+        
+        if(regionIndex != null)
+            regionIndex.add(layer, node.getRow(), node.getCol(), delta);
+        
+        // Keep the totals for metrics
+        if(layer == RegionIndex.FOOD)
+            totalFood += delta;
+        else if(layer == RegionIndex.PHEROMONE)
+            totalPheromone += delta;
+    }
+    
+    /**
+     * Responsible for clearing the list of cells changed since the last
+     * snapshot was published
+     */
+    private void clearChanged() {
+        changed.clear();
+    }
+    
+    /**
+     * Responsible for publishing a snapshot of the grid and ant population to
+     * readers such as the view, then clearing the change list
+     */
+    private void publishSnapshot() {
         
+        // A replay is shown in place of the simulation
+        if(replay != null) {
+            replay.publish(snapshots);
+            return;
+        }
+        
+        // Publish the changes
+        snapshots.publish(this, changed.getList(), changed.size());
+        
+        // Clear the change list
+        clearChanged();
+    }
+    
     /**
-    * Responsible for setting pheromone level to display in node on GUI
-    * 
-    * @param pos   String representation of grid position in "x,y" format
-    * @param num   Pheromone level present
-    */
-    public void setPheromoneLevel(String pos, int num) {
-        view.setPheromoneLevel(pos, num);
+     * Responsible for revealing adjacent nodes on GUI
+     * 
+     * @param current   The current node
+     */
+    public void showAdjacentNodes(Node currentNode) {
+        
+        // Create an ArrayList to store the set of adjacent nodes
+        ArrayList arrLst = currentNode.getAdjacentNodes();
+        
+        // Create a ListIterator to iterate through ArrayList
+        ListIterator<Node> lstItr = arrLst.listIterator();
+        
+        // While nodes remain in the ArrayList...
+        while(lstItr.hasNext()) {
+            
+            Node tempNode = lstItr.next();
+            
+            // Get the position of each node
+            String pos = tempNode.getPosition();
+            
+            // Reaveal each node
+            tempNode.setVisited(pos, true);
+        }
+        
     }
 
 
@@ -871,12 +1820,23 @@ public class SimModel implements SimulationEventListener, ActionListener {
      * @return      String representation of the current time
      */
     public String getTime() {
+        return formatTime(numTurns, TURNS_PER_DAY);
+    }
+    
+    /**
+     * Get a String representation of a time
+     * 
+     * @param numTurns      Turns elapsed
+     * @param turnsPerDay   Number of turns per day
+     * @return              String representation of the time
+     */
+    static String formatTime(int numTurns, int turnsPerDay) {
         
         // Number of days elapsed
-        int days = numTurns / TURNS_PER_DAY;
+        int days = numTurns / turnsPerDay;
 
         // Remainder of turns withn a particular day that have elapsed
-        int turns = numTurns % TURNS_PER_DAY;
+        int turns = numTurns % turnsPerDay;
 
         // Return #days, #turns
         return days + " days, " + turns + " turns";
@@ -885,12 +1845,44 @@ public class SimModel implements SimulationEventListener, ActionListener {
     /**
      * Retrieves the container for the node views
      * 
-     * @return  ColonyView container object
+     * @return  ColonyView container object, or the ColonyCanvas if the
+     *          colony is too large for individual node views; null if the
+     *          model is headless
      */
-    public ColonyView getContainer() {
+    public JComponent getContainer() {
+        if(view == null)
+            return null;
+        
         return view.getContainer();
     }
     
+    /**
+     * Get the number of turns elapsed
+     * 
+     * @return      Number of turns elapsed
+     */
+    public int getNumTurns() {
+        return numTurns;
+    }
+    
+    /**
+     * Returns whether the queen has died and the simulation is over
+     * 
+     * @return      True if the queen has died; false otherwise
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+    
+    /**
+     * Returns the exchange through which grid snapshots are published
+     * 
+     * @return      The snapshot exchange
+     */
+    public SnapshotExchange getSnapshots() {
+        return snapshots;
+    }
+    
     /**
      * Returns a node given its position
      * 
@@ -899,7 +1891,28 @@ public class SimModel implements SimulationEventListener, ActionListener {
      * @return          Node at position (x,y)
      */
     public Node getNode(int row, int col) {
-        return grid[row][col];
+        return grid.get(row, col);
+    }
+    
+    /**
+     * Returns a node given its position, if it has been created
+     * 
+     * @param row       x coordinate
+     * @param col       y coordinate
+     * @return          Node at position (x,y), or null if it has not been
+     *                  created, in which case it is hidden and empty
+     */
+    public Node peekNode(int row, int col) {
+        return grid.peek(row, col);
+    }
+    
+    /**
+     * Returns the store of nodes
+     * 
+     * @return      The store of nodes, or null if the grid has not been set up
+     */
+    public ChunkedGrid getGrid() {
+        return grid;
     }
     
     /**
@@ -993,6 +2006,31 @@ public class SimModel implements SimulationEventListener, ActionListener {
             return balaMap;
     }
     
+    /**
+     * Returns the living ants of a type, in order of creation
+     * 
+     * @param antType   The ant type
+     * @return          The ants
+     */
+    Collection<? extends Ant> getAnts(Integer antType) {
+        
+        // If ant type is forager
+        if(antType.intValue() == FORAGER.intValue())
+            return foragerMap.values();
+        
+        // If ant type is scout
+        else if(antType.intValue() == SCOUT.intValue())
+            return scoutMap.values();
+        
+        // If ant type is soldier
+        else if(antType.intValue() == SOLDIER.intValue())
+            return soldierMap.values();
+        
+        // If ant type is bala
+        else
+            return balaMap.values();
+    }
+    
     /**
      * Returns a HashMap storing ant ID-type pairs. The map can be used to get
      * an ant's type given its unique ID.
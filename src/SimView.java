@@ -1,10 +1,25 @@
-import java.util.HashMap;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import javax.swing.JComponent;
+import javax.swing.Timer;
 
 /**
  * Class SimView
  * 
  * Encapsulates the basic functionality of a View
  * 
+ * The view is a reader of the snapshots published by the model at the end
+ * of each turn.  At a fixed frame rate the latest snapshot is compared with
+ * the state currently displayed, and only the node views that differ are
+ * updated on the Event Dispatch Thread.
+ * 
+ * Colonies with more nodes than can reasonably be held as individual
+ * components are instead displayed on a single ColonyCanvas, which paints
+ * only the nodes inside the visible area.
+ * 
+ * A HeatmapView and a MinimapView giving an overview of the whole colony
+ * are kept up to date from the same snapshots while they are showing.
+ * 
  * @author Camron Khan
  */
 public class SimView {
@@ -12,29 +27,116 @@ public class SimView {
         /************
 	 * Constants
 	 ************/
+        
+        // Milliseconds between refreshes of the node views (~30 per second)
+        private final int MS_PER_FRAME = 33;
+        
+        // Largest colony displayed with one NodeView per node; larger colonies
+        // are painted on a ColonyCanvas
+        private final int MAX_COMPONENT_NODES = 2500;
+        
+        // Number of rows and columns in the colony
+        private final int ROWS;
+        private final int COLS;
          
         /*************
 	 * Attributes
 	 *************/
         
-        private HashMap<String, NodeView> nodeViewMap;
+        // Views of the individual nodes, indexed by row * COLS + col
+        private NodeView[] nodeViews;
         private ColonyView container;
+        
+        // Canvas on which large colonies are painted, or null if node views
+        // are used
+        private ColonyCanvas canvas;
+        
+        // Heatmap overview of the colony
+        private HeatmapView heatmap;
+        
+        // Minimap of the colony
+        private MinimapView minimap;
+        
+        // Source of the snapshots to be displayed
+        private SnapshotExchange snapshots;
+        
+        // Sequence number of the snapshot currently displayed
+        private long displayedSequence;
+        
+        // State currently displayed by each node view
+        private boolean[] visited;
+        private boolean[] queen;
+        private int[] forager;
+        private int[] scout;
+        private int[] soldier;
+        private int[] bala;
+        private int[] food;
+        private int[] pheromone;
+        
+        // Timer driving refreshes on the Event Dispatch Thread
+        private Timer refreshTimer;
+        
+        // GUI on which the simulation time is displayed
+        private AntSimGUI gui;
+        
+        // Controller to which render times are reported
+        private TickRateController controller;
          
         
     	/***************
 	 * Constructors
 	 ***************/
         
-        public SimView(int row, int col) {
+        public SimView(int row, int col, SnapshotExchange exchange) {
             
-            // Creates HashMap to store view of inidivual nodes in colony
-            nodeViewMap = new HashMap<>();
+            ROWS = row;
+            COLS = col;
             
-            // Creates a container to hold the individual node views
-            container = new ColonyView(row, col);
+            // Snapshots are read from the model's exchange
+            snapshots = exchange;
+            displayedSequence = 0;
+            
+            // Large colonies are painted on a single canvas
+            if(row * col > MAX_COMPONENT_NODES) {
+                canvas = new ColonyCanvas(row, col, exchange);
+            }
+            
+            else {
+                
+                // Creates array to store view of inidivual nodes in colony
+                nodeViews = new NodeView[row * col];
+                
+                // Creates arrays to store the latest state of each node
+                visited = new boolean[row * col];
+                queen = new boolean[row * col];
+                forager = new int[row * col];
+                scout = new int[row * col];
+                soldier = new int[row * col];
+                bala = new int[row * col];
+                food = new int[row * col];
+                pheromone = new int[row * col];
+                
+                // Creates a container to hold the individual node views
+                container = new ColonyView(row, col);
+                
+                // Initializse the array of node views
+                initMap(row, col);
+            }
             
-            // Initializse the HashMap with key-value pairs
-            initMap(row, col);
+            // Creates the heatmap overview
+            heatmap = new HeatmapView(row, col);
+            
+            // Creates the minimap
+            minimap = new MinimapView(row, col);
+            
+            // Refresh the node views at a fixed frame rate
+            refreshTimer = new Timer(MS_PER_FRAME, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    refresh();
+                }
+            });
+            refreshTimer.start();
         }
         
         
@@ -43,7 +145,7 @@ public class SimView {
 	 **********/
         
         /**
-         * Adds the views of the nodes in the colony to the HashMap
+         * Adds the views of the nodes in the colony to the array
          * 
          * @param row   x coordinate
          * @param col   y coordinate
@@ -61,8 +163,16 @@ public class SimView {
                     // Set the node view's ID
                     nodeView.setID(pos);
                     
-                    // Adds the node view to the HashMap
-                    nodeViewMap.put(pos, nodeView);
+                    // Display the initial (empty) state of the node
+                    nodeView.setForagerCount(0);
+                    nodeView.setScoutCount(0);
+                    nodeView.setSoldierCount(0);
+                    nodeView.setBalaCount(0);
+                    nodeView.setFoodAmount(0);
+                    nodeView.setPheromoneLevel(0);
+                    
+                    // Adds the node view to the array
+                    nodeViews[getIndex(x, y)] = nodeView;
                     
                     // Adds instance to the 
                     container.addColonyNodeView(nodeView, x, y);
@@ -82,175 +192,232 @@ public class SimView {
         }
         
         /**
-         * Return a node stored in the HashMap given its position
+         * Returns the array index of a node given its row and column
          * 
-         * @param pos   Grid position in "x,y" format
-         * @return      NodeView object
+         * @param row   x coordinate
+         * @param col   y coordinate
+         * @return      Index of the node in the state arrays
          */
-        private NodeView getNodeView(String pos) {
-            return nodeViewMap.get(pos);
+        private int getIndex(int row, int col) {
+            return row * COLS + col;
         }
-             
+        
         /**
          * Get method to retrieve container object
          * 
-         * @return  ColonyView container object
+         * @return  ColonyView container object, or the ColonyCanvas if the
+         *          colony is too large for individual node views
          */
-        public ColonyView getContainer() {
+        public JComponent getContainer() {
+            if(canvas != null)
+                return canvas;
             return container;
         }
         
         /**
-         * Reveal the node view on GUI
+         * Get method to retrieve the heatmap overview of the colony
          * 
-         * @param pos   Grid position in "x,y" format
+         * @return  HeatmapView object
          */
-        public void showNode(String pos) {
-            getNodeView(pos).showNode();
+        public HeatmapView getHeatmap() {
+            return heatmap;
         }
         
         /**
-         * Hide the node view on GUI
+         * Get method to retrieve the minimap of the colony
          * 
-         * @param pos   Grid position in "x,y" format
+         * @return  MinimapView object
          */
-        public void hideNode(String pos) {
-            getNodeView(pos).hideNode();
+        public MinimapView getMinimap() {
+            return minimap;
         }
         
         /**
-         * Responsible for setting queen presence and displaying icon
+         * Set the GUI on which the simulation time of each displayed snapshot
+         * is shown
          * 
-         * @param pos   Grid position in "x,y" format
-         * @param q     True if queen present; false otherwise
+         * @param g     The GUI
          */
-        public void setQueen(String pos, boolean q) {
-            
-            // Create reference to NodeView object
-            NodeView nv = getNodeView(pos);
-            
-            // Set presence or absence
-            nv.setQueen(q);
-            
-            // If present display, icon
-            if(q)
-                nv.showQueenIcon();
-            
-            // Otherwise, hide icon
-            else
-                nv.hideQueenIcon();
+        public void setGUI(AntSimGUI g) {
+            gui = g;
         }
         
         /**
-         * Responsible for setting forager count and displaying icon
+         * Set the controller to which render times are reported and whose
+         * status is shown on the GUI
          * 
-         * @param pos   Grid position in "x,y" format
-         * @param num   Number of forager ants
+         * @param c     The controller
          */
-        public void setForager(String pos, int num) {
-            
-            // Create reference to NodeView object
-            NodeView nv = getNodeView(pos);
-            
-            // Set count
-            nv.setForagerCount(num);
-            
-            // If number > 0, then display icon
-            if(num > 0)
-                nv.showForagerIcon();
-            
-            // Otherwise, hide icon
-            else
-                nv.hideForagerIcon();
+        public void setController(TickRateController c) {
+            controller = c;
         }
         
         /**
-         * Responsible for setting scout count and displaying icon
-         * 
-         * @param pos   Grid position in "x,y" format
-         * @param num   Number of scout ants
+         * Responsible for displaying the latest published snapshot; called on
+         * the Event Dispatch Thread
          */
-        public void setScout(String pos, int num) {
+        private void refresh() {
             
-            // Create reference to NodeView object
-            NodeView nv = getNodeView(pos);
+            // Get the latest snapshot
+            GridSnapshot snapshot = snapshots.acquire();
             
-            // Set count
-            nv.setScoutCount(num);
+            // The heatmap and minimap keep track of the cells changed since
+            // they last drew
+            if(heatmap.isShowing())
+                heatmap.refresh(snapshots);
+            if(minimap.isShowing())
+                minimap.refresh(snapshots);
             
-            // If number > 0, then display icon
-            if(num > 0)
-                nv.showScoutIcon();
-            
-            // Otherwise, hide icon
-            else
-                nv.hideScoutIcon();
-        }
-        
-        /**
-         * Responsible for setting soldier count and displaying icon
-         * 
-         * @param pos   Grid position in "x,y" format
-         * @param num   Number of soldier ants
-         */
-        public void setSoldier(String pos, int num) {
-            
-            // Create reference to NodeView object
-            NodeView nv = getNodeView(pos);
+            // Nothing new has been published
+            if(snapshot == null || snapshot.getSequence() == displayedSequence) {
+                snapshots.release(snapshot);
+                return;
+            }
             
-            // Set count
-            nv.setSoldierCount(num);
+            // Time how long the snapshot takes to render
+            long start = System.nanoTime();
             
-            // If number > 0, then display icon
-            if(num > 0)
-                nv.showSoldierIcon();
+            // The canvas paints the latest snapshot itself; only the area to
+            // be repainted is requested here
+            if(canvas != null) {
+                repaintCanvas(snapshot);
+            }
             
-            // Otherwise, hide icon
-            else
-                nv.hideSoldierIcon();
-        }
-        
-        /**
-         * Responsible for setting bala count and displaying icon
-         * 
-         * @param pos   Grid position in "x,y" format
-         * @param num   Number of bala ants
-         */
-        public void setBala(String pos, int num) {
+            // If the previous snapshot was displayed and the grid was not
+            // reset since, only its changed cells need comparing; otherwise
+            // compare every cell
+            else if(snapshot.getSequence() == displayedSequence + 1
+               && !snapshot.isReset()) {
+                for(int i = 0; i < snapshot.getChangedCount(); i++) {
+                    refreshNode(snapshot, snapshot.getChanged(i));
+                }
+            }
+            else {
+                for(int index = 0; index < ROWS * COLS; index++) {
+                    refreshNode(snapshot, index);
+                }
+            }
             
-            // Create reference to NodeView object
-            NodeView nv = getNodeView(pos);
+            displayedSequence = snapshot.getSequence();
             
-            // Set bala count
-            nv.setBalaCount(num);
+            // Display the time of the snapshot
+            if(gui != null)
+                gui.setTime(snapshot.getTime());
             
-            // If number > 0, then display icon
-            if(num > 0)
-                nv.showBalaIcon();
+            // Report the render time and display the controller's status
+            if(controller != null) {
+                
+                // Canvas paints happen later, so report the previous one
+                if(canvas != null)
+                    controller.recordRender(canvas.getLastPaintNanos());
+                else
+                    controller.recordRender(System.nanoTime() - start);
+                
+                if(gui != null)
+                    gui.setStatus(controller.getStatus(), controller.isBehind());
+            }
             
-            // Otherwise, hide icon
-            else
-                nv.hideBalaIcon();
+            // Done reading the snapshot
+            snapshots.release(snapshot);
         }
         
         /**
-         * Set amount of food in node
+         * Responsible for requesting that the canvas repaint the nodes that
+         * differ from those last displayed
          * 
-         * @param pos   Grid position in "x,y" format
-         * @param num   Amount of food available
+         * @param snapshot  The snapshot to be displayed
          */
-        public void setFoodAmount(String pos, int num) {
-            getNodeView(pos).setFoodAmount(num);
+        private void repaintCanvas(GridSnapshot snapshot) {
+            
+            // Only the changed cells differ from the previous snapshot; the
+            // canvas clips each request to the visible area
+            if(snapshot.getSequence() == displayedSequence + 1
+               && !snapshot.isReset()) {
+                for(int i = 0; i < snapshot.getChangedCount(); i++) {
+                    int index = snapshot.getChanged(i);
+                    canvas.repaintNode(index / COLS, index % COLS);
+                }
+            }
+            else {
+                canvas.repaint();
+            }
         }
         
         /**
-         * Set pheromone level in node
+         * Responsible for updating a node view if its displayed state differs
+         * from a snapshot
          * 
-         * @param pos   Grid position in "x,y" format
-         * @param num   Pheromone level present
+         * @param snapshot  The snapshot to be displayed
+         * @param index     Index of the node in the state arrays
          */
-        public void setPheromoneLevel(String pos, int level) {
-            getNodeView(pos).setPheromoneLevel(level);
+        private void refreshNode(GridSnapshot snapshot, int index) {
+            
+            NodeView nv = nodeViews[index];
+            
+            if(visited[index] != snapshot.getVisited(index)) {
+                visited[index] = snapshot.getVisited(index);
+                if(visited[index])
+                    nv.showNode();
+                else
+                    nv.hideNode();
+            }
+            
+            // Queen and pheromone both affect the background color
+            if(queen[index] != snapshot.getQueen(index)
+               || pheromone[index] != snapshot.getPheromoneLevel(index)) {
+                
+                queen[index] = snapshot.getQueen(index);
+                pheromone[index] = snapshot.getPheromoneLevel(index);
+                
+                nv.setQueen(queen[index]);
+                if(queen[index])
+                    nv.showQueenIcon();
+                else
+                    nv.hideQueenIcon();
+                
+                nv.setPheromoneLevel(pheromone[index]);
+            }
+            
+            if(forager[index] != snapshot.getNumForager(index)) {
+                forager[index] = snapshot.getNumForager(index);
+                nv.setForagerCount(forager[index]);
+                if(forager[index] > 0)
+                    nv.showForagerIcon();
+                else
+                    nv.hideForagerIcon();
+            }
+            
+            if(scout[index] != snapshot.getNumScout(index)) {
+                scout[index] = snapshot.getNumScout(index);
+                nv.setScoutCount(scout[index]);
+                if(scout[index] > 0)
+                    nv.showScoutIcon();
+                else
+                    nv.hideScoutIcon();
+            }
+            
+            if(soldier[index] != snapshot.getNumSoldier(index)) {
+                soldier[index] = snapshot.getNumSoldier(index);
+                nv.setSoldierCount(soldier[index]);
+                if(soldier[index] > 0)
+                    nv.showSoldierIcon();
+                else
+                    nv.hideSoldierIcon();
+            }
+            
+            if(bala[index] != snapshot.getNumBala(index)) {
+                bala[index] = snapshot.getNumBala(index);
+                nv.setBalaCount(bala[index]);
+                if(bala[index] > 0)
+                    nv.showBalaIcon();
+                else
+                    nv.hideBalaIcon();
+            }
+            
+            if(food[index] != snapshot.getFoodAmount(index)) {
+                food[index] = snapshot.getFoodAmount(index);
+                nv.setFoodAmount(food[index]);
+            }
         }
 }
          
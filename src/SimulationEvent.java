@@ -35,6 +35,16 @@ public class SimulationEvent extends EventObject
 	// run simulation one turn at a time
 	public final static int STEP_EVENT = 6;
 	
+	// turn turbo mode on (value 1) or off (value 0)
+	public final static int TURBO_EVENT = 7;
+	
+	// set the number of turns per frame in turbo mode (value)
+	public final static int TICKS_PER_FRAME_EVENT = 8;
+	
+	// let the clock choose turns per frame to hold the frame rate (value 1)
+	// or stop doing so (value 0)
+	public final static int ADAPTIVE_EVENT = 9;
+	
 	
 	/*************
 	 *	attributes
@@ -43,6 +53,9 @@ public class SimulationEvent extends EventObject
 	// type of event
 	private int eventType;
 	
+	// value associated with the event, if any
+	private int value;
+	
 	
 	/***************
 	 *	constructors
@@ -55,9 +68,23 @@ public class SimulationEvent extends EventObject
 	 *	@param	eventType	type of event
 	 */
 	public SimulationEvent(Object source, int eventType)
+	{
+		this(source, eventType, 0);
+	}
+	
+	
+	/**
+	 *	create a new SimulationEvent carrying a value
+	 *
+	 *	@param	source		Object on which event occurred
+	 *	@param	eventType	type of event
+	 *	@param	value		value associated with the event
+	 */
+	public SimulationEvent(Object source, int eventType, int value)
 	{
 		super(source);
 		this.eventType = eventType;
+		this.value = value;
 	}
 	
 	
@@ -74,4 +101,15 @@ public class SimulationEvent extends EventObject
 	{
 		return eventType;
 	}
+	
+	
+	/**
+	 *	return the value associated with this event
+	 *
+	 *	@return	the value, or 0 if the event carries none
+	 */
+	public int getValue()
+	{
+		return value;
+	}
 }
\ No newline at end of file
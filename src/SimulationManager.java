@@ -0,0 +1,502 @@
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Class SimulationManager
+ *
+ * Encapsulates the basic functionality of managing a running simulation
+ * through JMX, so that standard consoles such as JConsole or VisualVM can
+ * watch and control it.  The manager is registered with the platform MBean
+ * server under OBJECT_NAME.
+ *
+ * Most attributes are read from the latest published snapshot, so reading
+ * them never waits for the simulation.  Memory estimates and the statistics
+ * of each phase are gathered on the simulation thread between turns, and are
+ * left empty if the simulation does not reach the end of a turn in time.
+ *
+ * @author Camron Khan
+ */
+public class SimulationManager implements SimulationManagerMXBean {
+
+    /************
+     * Constants
+     ************/
+
+    // Name under which the manager is registered
+    public static final String OBJECT_NAME = "AntSim:type=Simulation";
+
+    // Approximate bytes held by a node, with its values held by the node or
+    // in a cell store, and by an ant with its registry entries
+    private static final long NODE_BYTES = 240;
+    private static final long STORE_NODE_BYTES = 200;
+    private static final long ANT_BYTES = 160;
+
+    // Bytes held per allocated chunk of the grid by a snapshot buffer and by
+    // the region index
+    private static final long SNAPSHOT_CHUNK_BYTES = (long)ChunkedGrid.CHUNK_SIZE * ChunkedGrid.CHUNK_SIZE * CellStore.FIELDS * 4;
+    private static final long REGION_CHUNK_BYTES = (long)(ChunkedGrid.CHUNK_SIZE + 1) * (ChunkedGrid.CHUNK_SIZE + 1) * RegionIndex.LAYERS * 8;
+
+    // Milliseconds to wait for the simulation to reach the end of a turn
+    private static final long WAIT_MS = 1000;
+
+    // Nanoseconds over which turns per second are measured
+    private static final long RATE_NANOS = 1000000000L;
+
+    // Reference to the simulation model
+    private final SimModel MODEL;
+
+    // Index of the colony entrance's cell
+    private final int NEST;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Turn and time of the last rate measurement, and the rate measured
+    private int rateTurn;
+    private long rateTime;
+    private double rate;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a manager for a simulation
+     *
+     * @param model     The simulation model
+     */
+    public SimulationManager(SimModel model) {
+
+        MODEL = model;
+
+        // Center node, as chosen by initColonyEntrance
+        NEST = (model.getRows()/2 + 1) * model.getCols() + model.getCols()/2 + 1;
+
+        rateTurn = 0;
+        rateTime = System.nanoTime();
+        rate = 0;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for creating a manager for a simulation and registering it
+     * with the platform MBean server
+     *
+     * @param model     The simulation model
+     * @return          The manager, or null if it could not be registered
+     */
+    public static SimulationManager register(SimModel model) {
+
+        SimulationManager manager = new SimulationManager(model);
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(manager, new ObjectName(OBJECT_NAME));
+        }
+        catch(JMException e) {
+            System.out.println("Error in SimulationManager: " + e.getMessage());
+            return null;
+        }
+
+        return manager;
+    }
+
+    /**
+     * Get the number of turns elapsed
+     * 
+     * @return      Turns elapsed
+     */
+    @Override
+    public int getTick() {
+
+        GridSnapshot snapshot = MODEL.getSnapshots().acquire();
+        try {
+            return snapshot == null ? 0 : snapshot.getTurn();
+        }
+        finally {
+            MODEL.getSnapshots().release(snapshot);
+        }
+    }
+
+    /**
+     * Get the number of turns run per second, measured since the attribute
+     * was last read (at least one second earlier)
+     * 
+     * @return      Turns per second
+     */
+    @Override
+    public synchronized double getTicksPerSecond() {
+
+        int turn = getTick();
+        long now = System.nanoTime();
+
+        // Measure over at least a second
+        if(now - rateTime >= RATE_NANOS) {
+            rate = Math.max(turn - rateTurn, 0) * (double)RATE_NANOS / (now - rateTime);
+            rateTurn = turn;
+            rateTime = now;
+        }
+
+        return rate;
+    }
+
+    /**
+     * Returns whether the queen is alive
+     * 
+     * @return      True if the queen is alive; false otherwise
+     */
+    @Override
+    public boolean isQueenAlive() {
+
+        GridSnapshot snapshot = MODEL.getSnapshots().acquire();
+        try {
+            return snapshot != null && snapshot.getQueenAlive();
+        }
+        finally {
+            MODEL.getSnapshots().release(snapshot);
+        }
+    }
+
+    /**
+     * Get the number of living foragers
+     * 
+     * @return      Number of foragers
+     */
+    @Override
+    public int getForagerCount() {
+        return getPopulation(MODEL.FORAGER);
+    }
+
+    /**
+     * Get the number of living scouts
+     * 
+     * @return      Number of scouts
+     */
+    @Override
+    public int getScoutCount() {
+        return getPopulation(MODEL.SCOUT);
+    }
+
+    /**
+     * Get the number of living soldiers
+     * 
+     * @return      Number of soldiers
+     */
+    @Override
+    public int getSoldierCount() {
+        return getPopulation(MODEL.SOLDIER);
+    }
+
+    /**
+     * Get the number of living balas
+     * 
+     * @return      Number of balas
+     */
+    @Override
+    public int getBalaCount() {
+        return getPopulation(MODEL.BALA);
+    }
+
+    /**
+     * Get the amount of food at the colony entrance
+     * 
+     * @return      Amount of food
+     */
+    @Override
+    public int getFoodAtNest() {
+
+        GridSnapshot snapshot = MODEL.getSnapshots().acquire();
+        try {
+            return snapshot == null ? 0 : snapshot.getFoodAmount(NEST);
+        }
+        finally {
+            MODEL.getSnapshots().release(snapshot);
+        }
+    }
+
+    /**
+     * Get the number of bytes of heap in use by the whole process
+     * 
+     * @return      Bytes in use
+     */
+    @Override
+    public long getHeapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Get the approximate number of bytes held by each part of the
+     * simulation
+     * 
+     * @return      Bytes, by part
+     */
+    @Override
+    public Map<String, Long> getMemoryEstimates() {
+
+        // Read the model between turns
+        FutureTask<Map<String, Long>> task = new FutureTask<>(new Callable<Map<String, Long>>() {
+            @Override
+            public Map<String, Long> call() {
+                return estimateMemory();
+            }
+        });
+        MODEL.invoke(task);
+
+        try {
+            return task.get(WAIT_MS, TimeUnit.MILLISECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch(ExecutionException | TimeoutException e) {
+            task.cancel(false);
+        }
+
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Get the median duration of each phase of a turn over the turns
+     * profiled since profiling was enabled, or since the last profile report
+     * 
+     * @return      Nanoseconds, by phase; empty until profiled
+     */
+    @Override
+    public Map<String, Long> getPhaseP50Nanos() {
+        return getPhaseStatistic(false, TickProfiler.P50);
+    }
+
+    /**
+     * Get the 99th percentile duration of each phase of a turn over the turns
+     * profiled since profiling was enabled, or since the last profile report
+     * 
+     * @return      Nanoseconds, by phase; empty until profiled
+     */
+    @Override
+    public Map<String, Long> getPhaseP99Nanos() {
+        return getPhaseStatistic(false, TickProfiler.P99);
+    }
+
+    /**
+     * Get the longest duration of each phase of a turn over the turns
+     * profiled since profiling was enabled, or since the last profile report
+     * 
+     * @return      Nanoseconds, by phase; empty until profiled
+     */
+    @Override
+    public Map<String, Long> getPhaseMaxNanos() {
+        return getPhaseStatistic(false, TickProfiler.MAX);
+    }
+
+    /**
+     * Get the mean number of bytes allocated by the simulation thread in each
+     * phase of a turn over the turns profiled since profiling was enabled, or
+     * since the last profile report
+     * 
+     * @return      Bytes, by phase; empty until profiled, or if the JVM does
+     *              not count allocation per thread
+     */
+    @Override
+    public Map<String, Long> getPhaseAllocatedBytes() {
+        return getPhaseStatistic(true, TickProfiler.MEAN);
+    }
+
+    /**
+     * Returns whether turns are being profiled
+     * 
+     * @return      True if turns are being profiled; false otherwise
+     */
+    @Override
+    public boolean isProfiling() {
+        return MODEL.isProfiling();
+    }
+
+    /**
+     * Responsible for enabling or disabling profiling
+     * 
+     * @param p     True to profile turns; false otherwise
+     */
+    @Override
+    public void setProfiling(boolean p) {
+        MODEL.setProfiling(p);
+    }
+
+    /**
+     * Get the target number of milliseconds per turn
+     * 
+     * @return      Milliseconds per turn
+     */
+    @Override
+    public int getMsPerTurn() {
+        return MODEL.getMsPerTurn();
+    }
+
+    /**
+     * Set the target number of milliseconds per turn, changing the tick rate
+     * 
+     * @param delay     Milliseconds per turn
+     */
+    @Override
+    public void setMsPerTurn(int delay) {
+        MODEL.setMsPerTurn(delay);
+    }
+
+    /**
+     * Responsible for stopping the clock
+     */
+    @Override
+    public void pause() {
+        MODEL.pause();
+    }
+
+    /**
+     * Responsible for starting the clock
+     */
+    @Override
+    public void resume() {
+        MODEL.resume();
+    }
+
+    /**
+     * Responsible for stopping the clock and running a number of turns
+     * 
+     * @param turns     Number of turns
+     */
+    @Override
+    public void step(int turns) {
+        MODEL.step(turns);
+    }
+
+    /**
+     * Responsible for saving a checkpoint in the background
+     * 
+     * @param path      Path of the file
+     */
+    @Override
+    public void checkpoint(String path) {
+        MODEL.saveCheckpoint(new File(path));
+    }
+
+    /**
+     * Returns the number of living ants of a type in the latest snapshot
+     *
+     * @param type      The ant type
+     * @return          Number of ants
+     */
+    private int getPopulation(Integer type) {
+
+        GridSnapshot snapshot = MODEL.getSnapshots().acquire();
+        try {
+            if(snapshot == null)
+                return 0;
+            else if(type.intValue() == MODEL.FORAGER.intValue())
+                return snapshot.getForagerPopulation();
+            else if(type.intValue() == MODEL.SCOUT.intValue())
+                return snapshot.getScoutPopulation();
+            else if(type.intValue() == MODEL.SOLDIER.intValue())
+                return snapshot.getSoldierPopulation();
+            else
+                return snapshot.getBalaPopulation();
+        }
+        finally {
+            MODEL.getSnapshots().release(snapshot);
+        }
+    }
+
+    /**
+     * Returns a statistic of each phase of a turn over the turns profiled so
+     * far.  The profiler is summarized on the simulation thread between
+     * turns, without emptying its histograms.
+     *
+     * @param allocation    True for the bytes allocated in each phase; false
+     *                      for the duration of each phase
+     * @param stat          The statistic (see TickProfiler)
+     * @return              Values, by phase; empty until profiled, if the
+     *                      simulation does not reach the end of a turn in
+     *                      time, or if allocation is not counted
+     */
+    private Map<String, Long> getPhaseStatistic(final boolean allocation, int stat) {
+
+        Map<String, Long> values = new LinkedHashMap<>();
+
+        // Read the profiler between turns
+        FutureTask<long[][]> task = new FutureTask<>(new Callable<long[][]>() {
+            @Override
+            public long[][] call() {
+                TickProfiler profiler = MODEL.getProfiler();
+                return allocation ? profiler.summarizeAllocations() : profiler.summarizeDurations();
+            }
+        });
+        MODEL.invoke(task);
+
+        long[][] summary = null;
+        try {
+            summary = task.get(WAIT_MS, TimeUnit.MILLISECONDS);
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch(ExecutionException | TimeoutException e) {
+            task.cancel(false);
+        }
+
+        // Phases which never ran are left out
+        if(summary != null) {
+            for(int phase = 0; phase < TickProfiler.PHASES; phase++) {
+                if(summary[phase][TickProfiler.COUNT] > 0)
+                    values.put(TickProfiler.PHASE_NAMES[phase], summary[phase][stat]);
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Returns the approximate number of bytes held by each part of the
+     * simulation; must only be called on the simulation thread
+     *
+     * @return      Bytes, by part
+     */
+    private Map<String, Long> estimateMemory() {
+
+        Map<String, Long> bytes = new LinkedHashMap<>();
+
+        // Nodes created so far
+        ChunkedGrid grid = MODEL.getGrid();
+        long nodes = grid == null ? 0 : (long)grid.getAllocatedChunks() * ChunkedGrid.CHUNK_SIZE * ChunkedGrid.CHUNK_SIZE;
+        CellStore store = MODEL.getCellStore();
+        bytes.put("grid", nodes * (store == null ? NODE_BYTES : STORE_NODE_BYTES));
+
+        // Values held outside the heap
+        if(store instanceof OffHeapCellStore)
+            bytes.put("cellStore (off-heap)", ((OffHeapCellStore)store).getAllocatedBytes());
+
+        // Ants
+        bytes.put("ants", grid == null ? 0 : MODEL.getAntTypes().size() * ANT_BYTES);
+
+        // Chunks of the grid held by the snapshot buffers
+        bytes.put("snapshots", MODEL.getSnapshots().getAllocatedChunks() * SNAPSHOT_CHUNK_BYTES);
+
+        // Chunks of the grid held by the region index
+        RegionIndex index = MODEL.getRegionIndex();
+        bytes.put("regionIndex", index == null ? 0 : index.getAllocatedChunks() * REGION_CHUNK_BYTES);
+
+        return bytes;
+    }
+}
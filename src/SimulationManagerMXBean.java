@@ -0,0 +1,171 @@
+import java.util.Map;
+
+/**
+ * Interface SimulationManagerMXBean
+ * 
+ * Management interface of a running simulation, as seen by JMX consoles (see
+ * SimulationManager).  Attributes report the latest published state; every
+ * operation takes effect on the simulation thread between turns.
+ * 
+ * @author Camron Khan
+ */
+public interface SimulationManagerMXBean {
+    
+    /**
+     * Get the number of turns elapsed
+     * 
+     * @return      Turns elapsed
+     */
+    public int getTick();
+    
+    /**
+     * Get the number of turns run per second, measured since the attribute
+     * was last read (at least one second earlier)
+     * 
+     * @return      Turns per second
+     */
+    public double getTicksPerSecond();
+    
+    /**
+     * Returns whether the queen is alive
+     * 
+     * @return      True if the queen is alive; false otherwise
+     */
+    public boolean isQueenAlive();
+    
+    /**
+     * Get the number of living foragers
+     * 
+     * @return      Number of foragers
+     */
+    public int getForagerCount();
+    
+    /**
+     * Get the number of living scouts
+     * 
+     * @return      Number of scouts
+     */
+    public int getScoutCount();
+    
+    /**
+     * Get the number of living soldiers
+     * 
+     * @return      Number of soldiers
+     */
+    public int getSoldierCount();
+    
+    /**
+     * Get the number of living balas
+     * 
+     * @return      Number of balas
+     */
+    public int getBalaCount();
+    
+    /**
+     * Get the amount of food at the colony entrance
+     * 
+     * @return      Amount of food
+     */
+    public int getFoodAtNest();
+    
+    /**
+     * Get the number of bytes of heap in use by the whole process
+     * 
+     * @return      Bytes in use
+     */
+    public long getHeapUsed();
+    
+    /**
+     * Get the approximate number of bytes held by each part of the
+     * simulation
+     * 
+     * @return      Bytes, by part
+     */
+    public Map<String, Long> getMemoryEstimates();
+    
+    /**
+     * Get the median duration of each phase of a turn over the turns
+     * profiled since profiling was enabled, or since the last profile report
+     * 
+     * @return      Nanoseconds, by phase; empty until profiled
+     */
+    public Map<String, Long> getPhaseP50Nanos();
+    
+    /**
+     * Get the 99th percentile duration of each phase of a turn over the turns
+     * profiled since profiling was enabled, or since the last profile report
+     * 
+     * @return      Nanoseconds, by phase; empty until profiled
+     */
+    public Map<String, Long> getPhaseP99Nanos();
+    
+    /**
+     * Get the longest duration of each phase of a turn over the turns
+     * profiled since profiling was enabled, or since the last profile report
+     * 
+     * @return      Nanoseconds, by phase; empty until profiled
+     */
+    public Map<String, Long> getPhaseMaxNanos();
+    
+    /**
+     * Get the mean number of bytes allocated by the simulation thread in each
+     * phase of a turn over the turns profiled since profiling was enabled, or
+     * since the last profile report
+     * 
+     * @return      Bytes, by phase; empty until profiled, or if the JVM does
+     *              not count allocation per thread
+     */
+    public Map<String, Long> getPhaseAllocatedBytes();
+    
+    /**
+     * Returns whether turns are being profiled
+     * 
+     * @return      True if turns are being profiled; false otherwise
+     */
+    public boolean isProfiling();
+    
+    /**
+     * Responsible for enabling or disabling profiling
+     * 
+     * @param p     True to profile turns; false otherwise
+     */
+    public void setProfiling(boolean p);
+    
+    /**
+     * Get the target number of milliseconds per turn
+     * 
+     * @return      Milliseconds per turn
+     */
+    public int getMsPerTurn();
+    
+    /**
+     * Set the target number of milliseconds per turn, changing the tick rate
+     * 
+     * @param delay     Milliseconds per turn
+     */
+    public void setMsPerTurn(int delay);
+    
+    /**
+     * Responsible for stopping the clock
+     */
+    public void pause();
+    
+    /**
+     * Responsible for starting the clock
+     */
+    public void resume();
+    
+    /**
+     * Responsible for stopping the clock and running a number of turns
+     * 
+     * @param turns     Number of turns
+     */
+    public void step(int turns);
+    
+    /**
+     * Responsible for saving a checkpoint in the background
+     * 
+     * @param path      Path of the file
+     */
+    public void checkpoint(String path);
+}
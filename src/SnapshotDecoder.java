@@ -0,0 +1,227 @@
+import java.io.IOException;
+
+/**
+ * Class SnapshotDecoder
+ *
+ * Encapsulates the basic functionality of a reader for snapshots encoded by
+ * SnapshotEncoder.  The decoder holds the grid as of the last snapshot read,
+ * and the list of cells changed since the list was last cleared, so that a
+ * view need only redraw those cells.
+ *
+ * @author Camron Khan
+ */
+public class SnapshotDecoder {
+
+    /************
+     * Constants
+     ************/
+
+    // Number of cells in the grid
+    private final int CELLS;
+
+    // Grid as of the last snapshot read
+    private final HeapCellStore STATE;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Cells changed since the change list was last cleared
+    private boolean[] changed;
+    private int[] changedList;
+    private int changedCount;
+
+    // Whether a keyframe has been read since the change list was last
+    // cleared, so that any cell may have changed
+    private boolean reset;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a decoder for a grid of the given size holding an empty grid
+     *
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    public SnapshotDecoder(int rows, int cols) {
+        CELLS = rows * cols;
+        STATE = new HeapCellStore(rows, cols);
+        changed = new boolean[CELLS];
+        changedList = new int[CELLS];
+        changedCount = 0;
+        reset = false;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for reading a snapshot written by writeKeyframe
+     *
+     * @param in    The input
+     * @throws IOException  If the input cannot be read or is damaged
+     */
+    public void readKeyframe(ChannelInput in) throws IOException {
+
+        // Decode against an empty grid
+        STATE.clear();
+        clearChanged();
+        reset = true;
+
+        read(in, true);
+    }
+
+    /**
+     * Responsible for reading a snapshot written by writeDelta
+     *
+     * @param in    The input
+     * @throws IOException  If the input cannot be read or is damaged
+     */
+    public void readDelta(ChannelInput in) throws IOException {
+        read(in, true);
+    }
+
+    /**
+     * Responsible for reading past a snapshot without applying it
+     *
+     * @param in    The input
+     * @throws IOException  If the input cannot be read or is damaged
+     */
+    public void skip(ChannelInput in) throws IOException {
+        read(in, false);
+    }
+
+    /**
+     * Get the grid as of the last snapshot read
+     *
+     * @return      Store holding the grid
+     */
+    public CellStore getState() {
+        return STATE;
+    }
+
+    /**
+     * Get the indices of the cells changed since the change list was last
+     * cleared
+     *
+     * @return      The list, valid up to getChangedCount()
+     */
+    public int[] getChangedList() {
+        return changedList;
+    }
+
+    /**
+     * Get the number of cells changed since the change list was last cleared
+     *
+     * @return      Number of cells
+     */
+    public int getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * Returns whether a keyframe has been read since the change list was
+     * last cleared, so that any cell may have changed
+     *
+     * @return      True if a keyframe has been read; false otherwise
+     */
+    public boolean isReset() {
+        return reset;
+    }
+
+    /**
+     * Responsible for clearing the change list
+     */
+    public void clearChanged() {
+
+        for(int i = 0; i < changedCount; i++)
+            changed[changedList[i]] = false;
+
+        changedCount = 0;
+        reset = false;
+    }
+
+    /**
+     * Responsible for reading every layer of a snapshot
+     *
+     * @param in        The input
+     * @param apply     Whether to apply the snapshot to the grid
+     * @throws IOException  If the input cannot be read or is damaged
+     */
+    private void read(ChannelInput in, boolean apply) throws IOException {
+
+        // Layers that changed
+        int layers = in.getByte();
+
+        for(int field = 0; field < CellStore.FIELDS; field++) {
+
+            if((layers & (1 << field)) == 0)
+                continue;
+
+            int cell = 0;
+            int gap;
+
+            // Blocks, until the end of the layer
+            while((gap = in.getVarInt()) != 0) {
+
+                cell += gap - 1;
+
+                int header = in.getVarInt();
+                int count = header >>> 5;
+                int width = (header & 31) + 1;
+
+                if(cell < 0 || count > CELLS - cell)
+                    throw new IOException("Snapshot is damaged");
+
+                if(!apply) {
+                    in.skip(((long)count * width + 7) / 8);
+                    cell += count;
+                    continue;
+                }
+
+                // Unpack the values, least significant bit first
+                long buffer = 0;
+                int buffered = 0;
+                long mask = (1L << width) - 1;
+                for(int i = 0; i < count; i++, cell++) {
+
+                    while(buffered < width) {
+                        buffer |= (long)in.getByte() << buffered;
+                        buffered += 8;
+                    }
+
+                    int xor = (int)(buffer & mask);
+                    buffer >>>= width;
+                    buffered -= width;
+
+                    if(xor != 0)
+                        apply(cell, field, xor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Responsible for applying the XOR of a cell's value
+     *
+     * @param cell      Index of the cell
+     * @param field     The field
+     * @param xor       XOR of the new value with the old
+     */
+    private void apply(int cell, int field, int xor) {
+
+        STATE.set(cell, field, STATE.get(cell, field) ^ xor);
+
+        // Add the cell to the change list once
+        if(!changed[cell]) {
+            changed[cell] = true;
+            changedList[changedCount++] = cell;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+import java.io.IOException;
+
+/**
+ * Class SnapshotEncoder
+ *
+ * Encapsulates the basic functionality of a compact, streamable encoding of
+ * successive snapshots of the grid, read back by SnapshotDecoder.
+ *
+ * Each snapshot is encoded one field (layer) at a time as the XOR of each
+ * cell's value with its value in the previous snapshot, so that unchanged
+ * cells encode as zero.  Most of the grid holds no food, no pheromone and no
+ * ants, and few cells change in a turn, so each layer is mostly zeros.  A
+ * snapshot starts with a mask of the layers that changed, as a byte.  Each
+ * of those layers is written as a series of blocks of changed cells, in
+ * order of index, followed by a zero byte:
+ *
+ *     gap         number of unchanged cells before the block, plus one, as
+ *                 a varint
+ *     header      number of cells in the block, shifted left five bits, ORed
+ *                 with the number of bits in its largest XOR less one, as a
+ *                 varint
+ *     values      the XORs of the block's cells, packed into that number of
+ *                 bits each, least significant first, padded to a whole byte
+ *
+ * Small counters therefore take a few bits each.  A block may include a few
+ * unchanged cells where starting a new block would cost more.  A keyframe is
+ * encoded in the same way against an empty grid.
+ *
+ * The encoding is written to the output as it is produced; no more than one
+ * block is held in memory.  The encoder keeps its own copy of the previous
+ * snapshot, which is what the decoder holds once it has read the same
+ * stream.
+ *
+ * @author Camron Khan
+ */
+public class SnapshotEncoder {
+
+    /************
+     * Constants
+     ************/
+
+    // Approximate cost in bits of starting a new block, beyond which a run
+    // of unchanged cells ends a block rather than being included in it
+    private static final int BLOCK_BITS = 24;
+
+    // Greatest number of cells in a block
+    private static final int MAX_BLOCK = 64;
+
+    // Mask of every layer
+    private static final int ALL_LAYERS = (1 << CellStore.FIELDS) - 1;
+
+    // Number of cells in the grid
+    private final int CELLS;
+
+    // Previous snapshot, as held by the decoder
+    private final HeapCellStore PREVIOUS;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // XORs of the cells of the block being written
+    private int[] block;
+
+    // Index of the block's first cell, and its number of cells
+    private int blockStart;
+    private int blockLength;
+
+    // Index of the first cell not yet written in the current layer
+    private int written;
+
+    // Bitwise OR of the XORs in the block
+    private int blockBits;
+
+    // Block packed into bytes
+    private byte[] packed;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates an encoder for a grid of the given size whose previous
+     * snapshot is an empty grid
+     *
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    public SnapshotEncoder(int rows, int cols) {
+        CELLS = rows * cols;
+        PREVIOUS = new HeapCellStore(rows, cols);
+        block = new int[MAX_BLOCK];
+        packed = new byte[MAX_BLOCK * 4];
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for writing a snapshot of every cell, independent of the
+     * previous snapshot
+     *
+     * @param current   Store holding the grid
+     * @param out       The output
+     * @throws IOException  If the output cannot be written
+     */
+    public void writeKeyframe(CellStore current, ChannelOutput out) throws IOException {
+
+        // Encode against an empty grid
+        PREVIOUS.clear();
+
+        // Layers that are not empty
+        int layers = 0;
+        for(int cell = 0; cell < CELLS && layers != ALL_LAYERS; cell++) {
+            for(int field = 0; field < CellStore.FIELDS; field++) {
+                if(current.get(cell, field) != 0)
+                    layers |= 1 << field;
+            }
+        }
+        out.putByte(layers);
+
+        for(int field = 0; field < CellStore.FIELDS; field++) {
+
+            if((layers & (1 << field)) == 0)
+                continue;
+
+            startLayer();
+
+            for(int cell = 0; cell < CELLS; cell++)
+                addCell(current, cell, field, out);
+
+            endLayer(out);
+        }
+    }
+
+    /**
+     * Responsible for writing a snapshot of the cells changed since the
+     * previous snapshot; every other cell must be unchanged
+     *
+     * @param current       Store holding the grid
+     * @param changedList   Indices of the changed cells, in ascending order
+     * @param changedCount  Number of changed cells in the list
+     * @param out           The output
+     * @throws IOException  If the output cannot be written
+     */
+    public void writeDelta(CellStore current, int[] changedList, int changedCount, ChannelOutput out) throws IOException {
+
+        // Layers that changed
+        int layers = 0;
+        for(int i = 0; i < changedCount && layers != ALL_LAYERS; i++) {
+            int cell = changedList[i];
+            for(int field = 0; field < CellStore.FIELDS; field++) {
+                if(current.get(cell, field) != PREVIOUS.get(cell, field))
+                    layers |= 1 << field;
+            }
+        }
+        out.putByte(layers);
+
+        for(int field = 0; field < CellStore.FIELDS; field++) {
+
+            if((layers & (1 << field)) == 0)
+                continue;
+
+            startLayer();
+
+            for(int i = 0; i < changedCount; i++)
+                addCell(current, changedList[i], field, out);
+
+            endLayer(out);
+        }
+    }
+
+    /**
+     * Get the previous snapshot, as held by the decoder
+     *
+     * @return      Store holding the grid
+     */
+    public CellStore getPrevious() {
+        return PREVIOUS;
+    }
+
+    /**
+     * Responsible for starting to write a layer
+     */
+    private void startLayer() {
+        blockLength = 0;
+        blockBits = 0;
+        written = 0;
+    }
+
+    /**
+     * Responsible for adding a cell to the layer being written; cells must
+     * be added in ascending order of index, and cells not added are unchanged
+     *
+     * @param current   Store holding the grid
+     * @param cell      Index of the cell
+     * @param field     The layer
+     * @param out       The output
+     * @throws IOException  If the output cannot be written
+     */
+    private void addCell(CellStore current, int cell, int field, ChannelOutput out) throws IOException {
+
+        int value = current.get(cell, field);
+        int xor = value ^ PREVIOUS.get(cell, field);
+
+        // Unchanged
+        if(xor == 0)
+            return;
+
+        PREVIOUS.set(cell, field, value);
+
+        // Extend the block across a short run of unchanged cells...
+        int gap = cell - (blockStart + blockLength);
+        int width = 32 - Integer.numberOfLeadingZeros(blockBits | xor);
+        if(blockLength > 0 && gap * width <= BLOCK_BITS && blockLength + gap < MAX_BLOCK) {
+            for(int i = 0; i < gap; i++)
+                block[blockLength++] = 0;
+        }
+
+        // ...or start a new one
+        else {
+            writeBlock(out);
+            blockStart = cell;
+        }
+
+        block[blockLength++] = xor;
+        blockBits |= xor;
+    }
+
+    /**
+     * Responsible for finishing the layer being written
+     *
+     * @param out       The output
+     * @throws IOException  If the output cannot be written
+     */
+    private void endLayer(ChannelOutput out) throws IOException {
+
+        writeBlock(out);
+
+        // End of the layer
+        out.putByte(0);
+    }
+
+    /**
+     * Responsible for writing the block, if any, and emptying it
+     *
+     * @param out       The output
+     * @throws IOException  If the output cannot be written
+     */
+    private void writeBlock(ChannelOutput out) throws IOException {
+
+        if(blockLength == 0)
+            return;
+
+        // Bits required by the largest value
+        int width = 32 - Integer.numberOfLeadingZeros(blockBits);
+
+        // Pack the values, least significant bit first
+        long buffer = 0;
+        int buffered = 0;
+        int length = 0;
+        for(int i = 0; i < blockLength; i++) {
+
+            buffer |= (block[i] & 0xFFFFFFFFL) << buffered;
+            buffered += width;
+
+            while(buffered >= 8) {
+                packed[length++] = (byte)buffer;
+                buffer >>>= 8;
+                buffered -= 8;
+            }
+        }
+        if(buffered > 0)
+            packed[length++] = (byte)buffer;
+
+        out.putVarInt(blockStart - written + 1);
+        out.putVarInt(blockLength << 5 | (width - 1));
+        out.putBytes(packed, 0, length);
+
+        written = blockStart + blockLength;
+        blockLength = 0;
+        blockBits = 0;
+    }
+}
@@ -0,0 +1,444 @@
+import java.util.ArrayList;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Class SnapshotExchange
+ *
+ * Encapsulates the basic functionality for publishing grid snapshots from the
+ * simulation thread to any number of reader threads without locks.
+ *
+ * The publisher writes into a pooled buffer that no reader holds, then swaps
+ * it in atomically as the current snapshot.  Readers bracket their use of a
+ * snapshot with acquire() and release(); a buffer is only reused once every
+ * reader has released it.  Buffers are brought up to date by rewriting only
+ * the cells changed since they were last written, so the cost of publishing
+ * is proportional to the number of changed cells rather than the grid size.
+ *
+ * Each snapshot lists only the cells changed since the one before it.
+ * Readers which may skip snapshots can instead take the cells changed since
+ * they last looked from a ChangeTracker (see createTracker()).
+ *
+ * @author Camron Khan
+ */
+public class SnapshotExchange {
+
+    /************
+     * Constants
+     ************/
+
+    // Number of rows and columns in the grid
+    private final int ROWS;
+    private final int COLS;
+
+    // Trackers of the cells changed since each reader last took them
+    private final CopyOnWriteArrayList<ChangeTracker> TRACKERS;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Most recently published snapshot
+    private volatile GridSnapshot current;
+
+    // Every buffer created by this exchange (publisher only)
+    private ArrayList<GridSnapshot> buffers;
+
+    // Sequence number of the most recently published snapshot
+    private long sequence;
+
+    // Whether the grid has been reset or replaced since the last publication
+    private boolean pendingReset;
+
+    // Whether the grid has been returned to its initial state since the last
+    // publication, so that every change since is in the change list
+    private boolean pendingClear;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates an exchange for snapshots of a grid of the given size
+     *
+     * @param rows      Number of rows in the grid
+     * @param cols      Number of columns in the grid
+     */
+    public SnapshotExchange(int rows, int cols) {
+        ROWS = rows;
+        COLS = cols;
+        TRACKERS = new CopyOnWriteArrayList<>();
+        buffers = new ArrayList<>();
+        sequence = 0;
+        pendingReset = false;
+        pendingClear = false;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Returns the most recently published snapshot and prevents it from being
+     * reused until release() is called.  May be called from any thread.
+     *
+     * @return      The latest snapshot, or null if none has been published
+     */
+    public GridSnapshot acquire() {
+
+        while(true) {
+
+            GridSnapshot snapshot = current;
+
+            // Nothing published yet
+            if(snapshot == null)
+                return null;
+
+            // Register as a reader
+            snapshot.readers.incrementAndGet();
+
+            // If the snapshot is still current, the publisher cannot be
+            // writing to it and will not reuse it until it is released
+            if(snapshot == current)
+                return snapshot;
+
+            // Otherwise, the publisher may have reclaimed it; try again
+            snapshot.readers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Releases a snapshot obtained from acquire()
+     *
+     * @param snapshot      The snapshot to be released
+     */
+    public void release(GridSnapshot snapshot) {
+        if(snapshot != null)
+            snapshot.readers.decrementAndGet();
+    }
+
+    /**
+     * Get the sequence number of the most recently published snapshot
+     *
+     * @return      Sequence number, or zero if none has been published
+     */
+    public long getSequence() {
+        GridSnapshot snapshot = current;
+        return snapshot == null ? 0 : snapshot.getSequence();
+    }
+
+    /**
+     * Returns a tracker to which the changes of every snapshot published from
+     * then on are added.  May be called from any thread.
+     *
+     * @return      The tracker, reporting that every cell may have changed
+     */
+    public ChangeTracker createTracker() {
+
+        ChangeTracker tracker = new ChangeTracker(ROWS, COLS);
+        TRACKERS.add(tracker);
+
+        return tracker;
+    }
+
+    /**
+     * Get the number of buffers created by this exchange; must only be called
+     * on the simulation thread
+     *
+     * @return      Number of buffers
+     */
+    public int getBufferCount() {
+        return buffers.size();
+    }
+
+    /**
+     * Get the number of chunks of the grid for which values are held, summed
+     * over every buffer; must only be called on the simulation thread
+     *
+     * @return      Number of chunks
+     */
+    public int getAllocatedChunks() {
+
+        int count = 0;
+        for(int b = 0; b < buffers.size(); b++)
+            count += buffers.get(b).getAllocatedChunks();
+
+        return count;
+    }
+
+    /**
+     * Responsible for publishing the current state of the model.  Must only be
+     * called on the simulation thread, between turns.
+     *
+     * @param model         The simulation model
+     * @param changedList   Indices of cells changed since the last publication
+     * @param changedCount  Number of changed cells in the list
+     */
+    public void publish(SimModel model, int[] changedList, int changedCount) {
+
+        // Bring a free buffer up to date with the model
+        GridSnapshot buffer = update(model, null, changedList, changedCount);
+
+        // Fill in the header, population and change list
+        buffer.setHeader(sequence + 1, model.getNumTurns(), model.getTime());
+        buffer.setPopulation(model.getQueen() != null && !model.isGameOver(),
+                             model.getAntMap(model.FORAGER).size(),
+                             model.getAntMap(model.SCOUT).size(),
+                             model.getAntMap(model.SOLDIER).size(),
+                             model.getAntMap(model.BALA).size());
+
+        finish(buffer, changedList, changedCount);
+    }
+
+    /**
+     * Responsible for publishing a grid held in a cell store rather than in
+     * the model's nodes, such as the state of a replay.  Must only be called
+     * on the simulation thread, between turns.
+     *
+     * @param cells         Store holding the grid
+     * @param turns         Turns elapsed
+     * @param timeString    String representation of the simulation time
+     * @param population    Number of living ants of each type, indexed by
+     *                      ant type (queen, forager, scout, soldier, bala)
+     * @param changedList   Indices of cells changed since the last publication
+     * @param changedCount  Number of changed cells in the list
+     */
+    public void publish(CellStore cells, int turns, String timeString, int[] population,
+                        int[] changedList, int changedCount) {
+
+        // Bring a free buffer up to date with the store
+        GridSnapshot buffer = update(null, cells, changedList, changedCount);
+
+        // Fill in the header, population and change list
+        buffer.setHeader(sequence + 1, turns, timeString);
+        buffer.setPopulation(population[0] != 0, population[1], population[2],
+                             population[3], population[4]);
+
+        finish(buffer, changedList, changedCount);
+    }
+
+    /**
+     * Responsible for bringing a free buffer up to date with either the model
+     * or a cell store
+     *
+     * @param model         The simulation model, or null
+     * @param cells         Store holding the grid, or null to read the model
+     * @param changedList   Indices of cells changed since the last publication
+     * @param changedCount  Number of changed cells in the list
+     * @return              The buffer
+     */
+    private GridSnapshot update(SimModel model, CellStore cells, int[] changedList, int changedCount) {
+
+        // Find a buffer that is neither current nor held by a reader
+        GridSnapshot buffer = findFreeBuffer();
+
+        // Bring the buffer up to date
+        if(buffer.fullCopy) {
+
+            // Only the nodes created so far differ from the initial state
+            if(cells == null)
+                copyGrid(buffer, model.getGrid());
+
+            else {
+                for(int index = 0; index < ROWS * COLS; index++) {
+                    buffer.copyCell(index, cells);
+                }
+            }
+
+            buffer.fullCopy = false;
+        }
+
+        else {
+
+            // Return to the initial state of the grid; the stale cells hold
+            // every change made since
+            if(buffer.cleared) {
+                buffer.clear();
+                buffer.cleared = false;
+            }
+
+            // Cells changed since this buffer was last written
+            for(int i = 0; i < buffer.stale.size(); i++) {
+                copy(buffer, buffer.stale.get(i), model, cells);
+            }
+
+            // Cells changed since the last publication
+            for(int i = 0; i < changedCount; i++) {
+                copy(buffer, changedList[i], model, cells);
+            }
+        }
+
+        // Buffer is now fully up to date
+        clearStale(buffer);
+
+        // Every other buffer is now out of date in the changed cells
+        for(int b = 0; b < buffers.size(); b++) {
+
+            GridSnapshot other = buffers.get(b);
+
+            if(other != buffer && !other.fullCopy) {
+                for(int i = 0; i < changedCount; i++) {
+                    other.markStale(changedList[i]);
+                }
+            }
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Responsible for setting a buffer's change list and publishing it
+     *
+     * @param buffer        The buffer, whose header and population are set
+     * @param changedList   Indices of cells changed since the last publication
+     * @param changedCount  Number of changed cells in the list
+     */
+    private void finish(GridSnapshot buffer, int[] changedList, int changedCount) {
+
+        boolean reset = pendingReset;
+
+        sequence++;
+        buffer.setChanged(changedList, changedCount, reset);
+        pendingReset = false;
+        pendingClear = false;
+
+        // Publish the buffer atomically
+        current = buffer;
+
+        // Only then pass on its changes, so that a reader taking them finds
+        // them in the snapshot it acquires
+        for(ChangeTracker tracker : TRACKERS)
+            tracker.add(changedList, changedCount, reset);
+    }
+
+    /**
+     * Responsible for copying a cell into a buffer from either the model or
+     * a cell store
+     *
+     * @param buffer    The buffer
+     * @param index     Index of the cell
+     * @param model     The simulation model, or null
+     * @param cells     Store holding the grid, or null to read the model
+     */
+    private void copy(GridSnapshot buffer, int index, SimModel model, CellStore cells) {
+        if(cells != null)
+            buffer.copyCell(index, cells);
+        else
+            buffer.copyNode(index, getNode(model, index));
+    }
+
+    /**
+     * Responsible for copying every node of the model's grid into a buffer,
+     * visiting only the chunks of the grid that have been created
+     *
+     * @param buffer    The buffer
+     * @param grid      The model's grid
+     */
+    private void copyGrid(GridSnapshot buffer, ChunkedGrid grid) {
+
+        buffer.clear();
+
+        for(int c = 0; c < grid.getAllocatedChunks(); c++) {
+
+            Node[] nodes = grid.getAllocatedChunk(c);
+
+            for(int n = 0; n < nodes.length; n++) {
+                if(nodes[n] != null)
+                    buffer.copyNode(nodes[n].getRow() * COLS + nodes[n].getCol(), nodes[n]);
+            }
+        }
+    }
+
+    /**
+     * Responsible for marking every buffer as out of date in every cell, for
+     * use when the grid is replaced.  Must only be called on the simulation
+     * thread.
+     */
+    public void invalidate() {
+        for(int b = 0; b < buffers.size(); b++) {
+            buffers.get(b).fullCopy = true;
+        }
+
+        pendingReset = true;
+        pendingClear = false;
+    }
+
+    /**
+     * Responsible for recording that the grid has been returned to its
+     * initial state (every cell hidden and empty).  Cells changed after the
+     * reset must still be reported in the change list.  Buffers are cleared
+     * in bulk when next written, rather than copied cell by cell from the
+     * model.  Must only be called on the simulation thread.
+     */
+    public void reset() {
+        for(int b = 0; b < buffers.size(); b++) {
+
+            GridSnapshot buffer = buffers.get(b);
+
+            // Only changes made after the reset need copying
+            clearStale(buffer);
+            buffer.fullCopy = false;
+            buffer.cleared = true;
+        }
+
+        pendingReset = true;
+        pendingClear = true;
+    }
+    
+    /**
+     * Responsible for finding a buffer that may be written, creating one if
+     * every existing buffer is in use
+     *
+     * @return      A buffer that no reader holds
+     */
+    private GridSnapshot findFreeBuffer() {
+
+        GridSnapshot latest = current;
+
+        for(int b = 0; b < buffers.size(); b++) {
+
+            GridSnapshot buffer = buffers.get(b);
+
+            if(buffer != latest && buffer.readers.get() == 0)
+                return buffer;
+        }
+
+        // All buffers are in use; add another to the pool
+        GridSnapshot buffer = new GridSnapshot(ROWS, COLS);
+        buffers.add(buffer);
+
+        // A new buffer is already in the initial state of the grid; otherwise
+        // start from the latest snapshot rather than copying the model
+        if(pendingClear) {
+            buffer.fullCopy = false;
+        }
+        else if(latest != null && !latest.fullCopy && !pendingReset) {
+            buffer.copyFrom(latest);
+            buffer.fullCopy = false;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Responsible for clearing a buffer's list of out-of-date cells
+     *
+     * @param buffer    The buffer
+     */
+    private void clearStale(GridSnapshot buffer) {
+        buffer.stale.clear();
+    }
+
+    /**
+     * Returns the node at a given cell index
+     *
+     * @param model     The simulation model
+     * @param index     Index of the cell
+     * @return          The node, or null if it has not been created
+     */
+    private Node getNode(SimModel model, int index) {
+        return model.peekNode(index / COLS, index % COLS);
+    }
+}
@@ -103,7 +103,7 @@ public class SoldierAnt extends OffensiveAnt implements TimeDependent {
         hereNode.setNumSoldier(hereNode.getPosition(), currentSoldier);
         
         // Remove from node's ID list
-        hereNode.getAntsPresent().remove(ID);
+        hereNode.removeAnt(ID);
         
         // Remove from environment
         MODEL.destroyAnt(ID, TYPE);
@@ -312,6 +312,7 @@ public class SoldierAnt extends OffensiveAnt implements TimeDependent {
         
         // If successful, bala dies
         if(random == 0) {
+            MODEL.antKilled();
             bala.die();
         }
     }
@@ -0,0 +1,104 @@
+import java.io.File;
+import java.net.URL;
+
+import javax.swing.ImageIcon;
+
+/**
+ *	class SpriteCache
+ *
+ *	provides the images for each type of ant to every node renderer
+ *
+ *	each image is loaded and decoded only once per process, from the images
+ *	directory or, if that is not present, from the classpath; all NodeViews
+ *	and the ColonyCanvas share the same ImageIcon instances
+ */
+public class SpriteCache
+{
+
+	/************
+	 *	constants
+	 ***********/
+
+	// sprites that may be requested
+	public final static int QUEEN = 0;
+	public final static int SCOUT = 1;
+	public final static int FORAGER = 2;
+	public final static int SOLDIER = 3;
+	public final static int BALA = 4;
+
+	// directory containing the sprites
+	private final static String IMAGE_DIRECTORY = "images";
+
+	// file names of the sprites, indexed by sprite
+	private final static String[] FILE_NAMES =
+		{ "queen.gif", "scout.gif", "forager.gif", "soldier.gif", "bala.gif" };
+
+
+	/*************
+	 *	attributes
+	 ************/
+
+	// loaded sprites, indexed by sprite, or null if not yet loaded
+	private static ImageIcon[] icons = new ImageIcon[FILE_NAMES.length];
+
+
+	/***************
+	 *	constructors
+	 **************/
+
+	/**
+	 *	not instantiable
+	 */
+	private SpriteCache()
+	{
+	}
+
+
+	/**********
+	 *	methods
+	 *********/
+
+	/**
+	 *	get the shared icon for a sprite, loading it on first use
+	 *
+	 *	@param	sprite		the sprite (see the constants of this class)
+	 *	@return	the icon
+	 */
+	public static synchronized ImageIcon getIcon(int sprite)
+	{
+		if (icons[sprite] == null)
+		{
+			icons[sprite] = load(FILE_NAMES[sprite]);
+		}
+
+		return icons[sprite];
+	}
+
+
+	/**
+	 *	load a sprite from the images directory, or from the classpath if the
+	 *	directory does not contain it
+	 *
+	 *	@param	fileName	file name of the sprite
+	 *	@return	the icon, which is empty if the sprite could not be found
+	 */
+	private static ImageIcon load(String fileName)
+	{
+		// images directory relative to the working directory
+		File file = new File(IMAGE_DIRECTORY, fileName);
+		if (file.isFile())
+		{
+			return new ImageIcon(file.getPath());
+		}
+
+		// images packaged alongside the classes
+		URL resource = SpriteCache.class.getResource("/" + IMAGE_DIRECTORY + "/" + fileName);
+		if (resource != null)
+		{
+			return new ImageIcon(resource);
+		}
+
+		System.out.println("Error in SpriteCache: " + fileName + " not found");
+		return new ImageIcon();
+	}
+}
@@ -0,0 +1,55 @@
+/**
+ * Class StoredNode
+ *
+ * Encapsulates a node whose values are held in a cell store rather than in
+ * the node itself, at index row * cols + col.  The node keeps no values of
+ * its own, only the reference to the store and its index in it.
+ *
+ * @author Camron Khan
+ */
+public class StoredNode extends Node {
+
+    /************
+     * Constants
+     ************/
+
+    // Store holding the node's values
+    private final CellStore CELLS;
+
+    // Index of the node in the store
+    private final int CELL;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a node backed by a cell store; the store's cell must be empty
+     *
+     * @param mod       Reference to the simulation model
+     * @param x         x coordinate
+     * @param y         y coordinate
+     * @param cells     Store holding the node's values
+     */
+    public StoredNode(SimModel mod, int x, int y, CellStore cells) {
+        super(mod, x, y);
+        CELLS = cells;
+        CELL = x * mod.getCols() + y;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Override
+    protected int getField(int field) {
+        return CELLS.get(CELL, field);
+    }
+
+    @Override
+    protected void setField(int field, int value) {
+        CELLS.set(CELL, field, value);
+    }
+}
@@ -0,0 +1,378 @@
+/**
+ * Class TickProfiler
+ *
+ * Encapsulates the basic functionality of timing each phase of a turn (the
+ * handler for each kind of object, and publishing the result to the view),
+ * and the turn as a whole, in a LatencyHistogram per phase.  Where the JVM
+ * counts the bytes allocated by each thread (see AllocationCounter), the
+ * bytes allocated by the simulation thread in each phase are counted in a
+ * second histogram per phase.
+ *
+ * The simulation thread marks the start of a turn and the end of each phase
+ * with a call to System.nanoTime() each, and a reading of the allocation
+ * counter.  Every reporting interval the histograms are summarized, the
+ * summary is printed, and the histograms are emptied, so each report covers
+ * the turns since the previous one.  The latest summary may be read from any
+ * thread.
+ *
+ * @author Camron Khan
+ */
+public class TickProfiler {
+
+    /************
+     * Constants
+     ************/
+
+    // Phases of a turn
+    public static final int NODE = 0;
+    public static final int SCOUT = 1;
+    public static final int FORAGER = 2;
+    public static final int SOLDIER = 3;
+    public static final int BALA = 4;
+    public static final int QUEEN = 5;
+    public static final int PUBLISH = 6;
+    public static final int TURN = 7;
+
+    // Number of phases
+    public static final int PHASES = 8;
+
+    // Names of the phases, as reported
+    public static final String[] PHASE_NAMES = {
+        "node", "scout", "forager", "soldier", "bala", "queen", "publish", "turn"
+    };
+
+    // Values of a phase's summary
+    public static final int COUNT = 0;
+    public static final int P50 = 1;
+    public static final int P99 = 2;
+    public static final int MAX = 3;
+    public static final int MEAN = 4;
+
+    // Number of values in a phase's summary
+    public static final int STATS = 5;
+
+    // Nanoseconds per second
+    private static final long NS_PER_S = 1000000000L;
+
+    // Histogram of the duration of each phase
+    private final LatencyHistogram[] HISTOGRAMS;
+
+    // Histogram of the bytes allocated in each phase, or null if allocation
+    // is not counted
+    private final LatencyHistogram[] ALLOCATIONS;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Time at which the turn started and the previous phase ended
+    private long turnStart;
+    private long lapStart;
+
+    // Bytes allocated by the thread when the turn started and the previous
+    // phase ended, and the number of readings taken since the turn started
+    private long turnAllocated;
+    private long lapAllocated;
+    private int turnReads;
+
+    // Nanoseconds between reports; zero for no periodic reports
+    private volatile long reportInterval;
+
+    // Time at which the current reporting interval started
+    private long intervalStart;
+
+    // Summary of each phase over the last interval, indexed by phase then
+    // statistic, in nanoseconds; null before the first report
+    private volatile long[][] summary;
+
+    // Summary of the bytes allocated in each phase over the last interval,
+    // indexed by phase then statistic; null before the first report, or if
+    // allocation is not counted
+    private volatile long[][] allocationSummary;
+
+    // Text of the last report; null before the first report
+    private volatile String report;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a profiler with empty histograms and no periodic reports
+     */
+    public TickProfiler() {
+
+        HISTOGRAMS = new LatencyHistogram[PHASES];
+        for(int phase = 0; phase < PHASES; phase++)
+            HISTOGRAMS[phase] = new LatencyHistogram();
+
+        // Allocation is only counted where the JVM supports it
+        if(AllocationCounter.isSupported()) {
+            ALLOCATIONS = new LatencyHistogram[PHASES];
+            for(int phase = 0; phase < PHASES; phase++)
+                ALLOCATIONS[phase] = new LatencyHistogram();
+        }
+        else {
+            ALLOCATIONS = null;
+        }
+
+        reportInterval = 0;
+        intervalStart = System.nanoTime();
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for marking the start of a turn
+     */
+    public void startTurn() {
+
+        if(ALLOCATIONS != null) {
+            turnAllocated = AllocationCounter.get();
+            lapAllocated = turnAllocated;
+            turnReads = 0;
+        }
+
+        turnStart = System.nanoTime();
+        lapStart = turnStart;
+    }
+
+    /**
+     * Responsible for marking the start of a phase outside a turn, such as
+     * publishing the result of a frame of turns
+     */
+    public void startPhase() {
+
+        if(ALLOCATIONS != null)
+            lapAllocated = AllocationCounter.get();
+
+        lapStart = System.nanoTime();
+    }
+
+    /**
+     * Responsible for marking the end of a phase, which started when the
+     * turn or the previous phase did
+     *
+     * @param phase     The phase
+     */
+    public void endPhase(int phase) {
+
+        long now = System.nanoTime();
+        HISTOGRAMS[phase].record(now - lapStart);
+
+        // The reading itself is not counted
+        if(ALLOCATIONS != null) {
+            long allocated = AllocationCounter.get();
+            ALLOCATIONS[phase].record(allocated - lapAllocated - AllocationCounter.getCost());
+            lapAllocated = allocated;
+            turnReads++;
+        }
+
+        lapStart = System.nanoTime();
+    }
+
+    /**
+     * Responsible for marking the end of a turn, and reporting if the
+     * reporting interval has passed
+     */
+    public void endTurn() {
+
+        long now = System.nanoTime();
+        HISTOGRAMS[TURN].record(now - turnStart);
+
+        // None of the readings taken during the turn are counted
+        if(ALLOCATIONS != null) {
+            long allocated = AllocationCounter.get() - turnAllocated;
+            ALLOCATIONS[TURN].record(allocated - (turnReads + 1) * AllocationCounter.getCost());
+        }
+
+        long interval = reportInterval;
+        if(interval > 0 && now - intervalStart >= interval) {
+            System.out.print(report());
+        }
+    }
+
+    /**
+     * Responsible for summarizing the histograms, emptying them and starting
+     * a new reporting interval
+     *
+     * @return      Text of the report, one line per phase that ran
+     */
+    public String report() {
+
+        long now = System.nanoTime();
+        long[][] stats = summarize(HISTOGRAMS);
+        long[][] allocationStats = ALLOCATIONS == null ? null : summarize(ALLOCATIONS);
+
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Profile over %.1f s (microseconds)%n",
+                                  (double)(now - intervalStart) / NS_PER_S));
+        text.append(String.format("%-8s %10s %10s %10s %10s %10s%n",
+                                  "phase", "count", "p50", "p99", "max", "mean"));
+
+        for(int phase = 0; phase < PHASES; phase++) {
+
+            LatencyHistogram histogram = HISTOGRAMS[phase];
+
+            if(histogram.getCount() > 0) {
+                text.append(String.format("%-8s %10d %10.1f %10.1f %10.1f %10.1f%n",
+                                          PHASE_NAMES[phase], stats[phase][COUNT],
+                                          stats[phase][P50] / 1000.0,
+                                          stats[phase][P99] / 1000.0,
+                                          stats[phase][MAX] / 1000.0,
+                                          histogram.getMean() / 1000.0));
+            }
+
+            histogram.reset();
+        }
+
+        // Bytes allocated by each phase
+        if(ALLOCATIONS != null) {
+
+            text.append(String.format("Allocation (bytes)%n"));
+            text.append(String.format("%-8s %10s %10s %10s %10s %10s%n",
+                                      "phase", "count", "p50", "p99", "max", "mean"));
+
+            for(int phase = 0; phase < PHASES; phase++) {
+
+                LatencyHistogram histogram = ALLOCATIONS[phase];
+
+                if(histogram.getCount() > 0) {
+                    text.append(String.format("%-8s %10d %10d %10d %10d %10.0f%n",
+                                              PHASE_NAMES[phase], allocationStats[phase][COUNT],
+                                              allocationStats[phase][P50],
+                                              allocationStats[phase][P99],
+                                              allocationStats[phase][MAX],
+                                              histogram.getMean()));
+                }
+
+                histogram.reset();
+            }
+        }
+
+        intervalStart = now;
+        summary = stats;
+        allocationSummary = allocationStats;
+        report = text.toString();
+
+        return report;
+    }
+
+    /**
+     * Returns the summary of each phase since the last report, without
+     * emptying the histograms; must only be called on the simulation thread
+     *
+     * @return      Statistics indexed by phase then statistic (COUNT, P50,
+     *              P99, MAX, MEAN), in nanoseconds
+     */
+    public long[][] summarizeDurations() {
+        return summarize(HISTOGRAMS);
+    }
+
+    /**
+     * Returns the summary of the bytes allocated in each phase since the last
+     * report, without emptying the histograms; must only be called on the
+     * simulation thread
+     *
+     * @return      Statistics indexed by phase then statistic (COUNT, P50,
+     *              P99, MAX, MEAN), in bytes, or null if allocation is not
+     *              counted
+     */
+    public long[][] summarizeAllocations() {
+        return ALLOCATIONS == null ? null : summarize(ALLOCATIONS);
+    }
+
+    /**
+     * Returns the summary of a histogram per phase
+     *
+     * @param histograms    The histograms, indexed by phase
+     * @return              Statistics indexed by phase then statistic
+     *                      (COUNT, P50, P99, MAX, MEAN)
+     */
+    private static long[][] summarize(LatencyHistogram[] histograms) {
+
+        long[][] stats = new long[PHASES][STATS];
+
+        for(int phase = 0; phase < PHASES; phase++) {
+            LatencyHistogram histogram = histograms[phase];
+            stats[phase][COUNT] = histogram.getCount();
+            stats[phase][P50] = histogram.getPercentile(50);
+            stats[phase][P99] = histogram.getPercentile(99);
+            stats[phase][MAX] = histogram.getMax();
+            stats[phase][MEAN] = (long)histogram.getMean();
+        }
+
+        return stats;
+    }
+
+    /**
+     * Responsible for emptying the histograms and starting a new reporting
+     * interval, without reporting
+     */
+    public void reset() {
+
+        for(int phase = 0; phase < PHASES; phase++) {
+            HISTOGRAMS[phase].reset();
+            if(ALLOCATIONS != null)
+                ALLOCATIONS[phase].reset();
+        }
+
+        intervalStart = System.nanoTime();
+    }
+
+    /**
+     * Responsible for setting the interval between periodic reports
+     *
+     * @param seconds   Seconds between reports; zero for none
+     */
+    public void setReportInterval(int seconds) {
+        reportInterval = Math.max(seconds, 0) * NS_PER_S;
+    }
+
+    /**
+     * Get the summary of each phase over the last reporting interval; may be
+     * called from any thread
+     *
+     * @return      Statistics indexed by phase then statistic (COUNT, P50,
+     *              P99, MAX, MEAN), in nanoseconds, or null before the first
+     *              report
+     */
+    public long[][] getSummary() {
+        return summary;
+    }
+
+    /**
+     * Get the summary of the bytes allocated in each phase over the last
+     * reporting interval; may be called from any thread
+     *
+     * @return      Statistics indexed by phase then statistic (COUNT, P50,
+     *              P99, MAX, MEAN), in bytes, or null before the first report
+     *              or if allocation is not counted
+     */
+    public long[][] getAllocationSummary() {
+        return allocationSummary;
+    }
+
+    /**
+     * Returns whether the bytes allocated in each phase are counted
+     *
+     * @return      True if counted; false otherwise
+     */
+    public boolean isCountingAllocation() {
+        return ALLOCATIONS != null;
+    }
+
+    /**
+     * Get the text of the last report; may be called from any thread
+     *
+     * @return      The report, or null before the first report
+     */
+    public String getReport() {
+        return report;
+    }
+}
@@ -0,0 +1,245 @@
+/**
+ * Class TickRateController
+ *
+ * Encapsulates the basic functionality of an adaptive controller for the
+ * simulation clock.  The controller measures how long turns, snapshot
+ * publication and screen refreshes actually take, and from those measurements
+ * chooses how many turns to run per frame and how often to publish frames so
+ * that the GUI holds its target frame rate.  The turn interval requested by
+ * the user is a ceiling on speed: turns are never run faster than one per
+ * interval, however cheap they are, unless the interval is zero.
+ *
+ * Measurements are smoothed with an exponentially weighted moving average.
+ * Turn and publish times are recorded by the simulation thread; render times
+ * are recorded by the Event Dispatch Thread.
+ *
+ * @author Camron Khan
+ */
+public class TickRateController {
+
+    /************
+     * Constants
+     ************/
+
+    // Nanoseconds per millisecond
+    private static final long NS_PER_MS = 1000000L;
+
+    // Nanoseconds per second
+    private static final long NS_PER_SECOND = 1000000000L;
+
+    // Default target frame rate of the GUI
+    public static final int DEFAULT_FPS = 30;
+
+    // Weight given to each new measurement in the moving averages
+    private static final double SMOOTHING = 0.2;
+
+    // Upper bound on the number of turns run per frame
+    private static final int MAX_TICKS_PER_FRAME = 1000000;
+
+
+    /*************
+     * Attributes
+     *************/
+
+    // Target frame rate of the GUI
+    private volatile int targetFps;
+
+    // Moving averages, in nanoseconds
+    private volatile double turnNanos;
+    private volatile double publishNanos;
+    private volatile double renderNanos;
+
+    // Current decisions
+    private volatile int ticksPerFrame;
+    private volatile long frameIntervalNanos;
+
+    // Whether the simulation or the GUI is failing to keep up
+    private volatile boolean behind;
+
+    // Turns per second actually achieved, measured over the last frame
+    private volatile double turnsPerSecond;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a controller targeting the default frame rate
+     */
+    public TickRateController() {
+        targetFps = DEFAULT_FPS;
+        ticksPerFrame = 1;
+        frameIntervalNanos = NS_PER_SECOND / DEFAULT_FPS;
+        behind = false;
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Records the time taken to run a batch of turns
+     *
+     * @param turns     Number of turns in the batch
+     * @param nanos     Nanoseconds taken by the batch
+     */
+    public void recordTurns(int turns, long nanos) {
+        if(turns > 0)
+            turnNanos = average(turnNanos, (double)nanos / turns);
+    }
+
+    /**
+     * Records the time taken to publish a snapshot
+     *
+     * @param nanos     Nanoseconds taken to publish
+     */
+    public void recordPublish(long nanos) {
+        publishNanos = average(publishNanos, nanos);
+    }
+
+    /**
+     * Records the time taken by the GUI to display a snapshot
+     *
+     * @param nanos     Nanoseconds taken to render
+     */
+    public void recordRender(long nanos) {
+        renderNanos = average(renderNanos, nanos);
+    }
+
+    /**
+     * Records the number of turns completed per second of wall-clock time
+     *
+     * @param turns     Number of turns completed
+     * @param nanos     Wall-clock nanoseconds over which they completed
+     */
+    public void recordThroughput(int turns, long nanos) {
+        if(nanos > 0)
+            turnsPerSecond = average(turnsPerSecond,
+                                     (double)turns * NS_PER_SECOND / nanos);
+    }
+
+    /**
+     * Responsible for recomputing the controller's decisions from the latest
+     * measurements; called by the simulation thread after every frame
+     *
+     * @param msPerTurn     Turn interval requested by the user; turns per
+     *                      frame are chosen so that turns run no faster, or
+     *                      as fast as possible if zero
+     * @param adaptive      True if the controller is choosing turns per frame
+     */
+    public void update(int msPerTurn, boolean adaptive) {
+
+        long targetFrame = NS_PER_SECOND / targetFps;
+        long turnInterval = msPerTurn * NS_PER_MS;
+
+        // If the GUI takes longer than a frame to render, publish less often
+        frameIntervalNanos = Math.max(targetFrame, (long)(renderNanos * 1.25));
+
+        // Turns the requested interval allows in a frame, lengthening the
+        // frame to a whole number of intervals
+        long allowed = Long.MAX_VALUE;
+        if(turnInterval > 0) {
+            allowed = (frameIntervalNanos + turnInterval - 1) / turnInterval;
+            frameIntervalNanos = allowed * turnInterval;
+        }
+
+        // Fill the frame with turns, leaving time to publish the snapshot,
+        // but run no more than the requested interval allows
+        double budget = frameIntervalNanos - publishNanos;
+        long ticks = turnNanos > 0 ? (long)(budget / turnNanos) : 1;
+        ticksPerFrame = (int)Math.max(1, Math.min(Math.min(ticks, allowed), MAX_TICKS_PER_FRAME));
+
+        // Adaptive mode is behind if a single turn cannot fit in a frame, or
+        // the frame holds fewer turns than the requested interval allows;
+        // otherwise, if turns take longer than the requested interval, if any
+        if(adaptive)
+            behind = turnNanos + publishNanos > frameIntervalNanos
+                     || renderNanos > targetFrame
+                     || (turnInterval > 0 && ticksPerFrame < allowed);
+        else
+            behind = turnInterval > 0 && turnNanos > turnInterval;
+    }
+
+    /**
+     * Get the number of turns per frame chosen by the controller
+     *
+     * @return      Turns per frame
+     */
+    public int getTicksPerFrame() {
+        return ticksPerFrame;
+    }
+
+    /**
+     * Get the interval between frames chosen by the controller
+     *
+     * @return      Nanoseconds between frames
+     */
+    public long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+
+    /**
+     * Get the target frame rate of the GUI
+     *
+     * @return      Frames per second
+     */
+    public int getTargetFps() {
+        return targetFps;
+    }
+
+    /**
+     * Set the target frame rate of the GUI
+     *
+     * @param fps       Frames per second
+     */
+    public void setTargetFps(int fps) {
+        targetFps = Math.max(fps, 1);
+    }
+
+    /**
+     * Returns whether the simulation or the GUI is failing to keep up
+     *
+     * @return      True if falling behind; false otherwise
+     */
+    public boolean isBehind() {
+        return behind;
+    }
+
+    /**
+     * Returns a String describing the controller's measurements and decisions
+     * for display on the GUI
+     *
+     * @return      String representation of the controller's state
+     */
+    public String getStatus() {
+
+        String status = String.format("%.0f turns/s, %.2f ms/turn, render %.1f ms, %d turns/frame",
+                                      turnsPerSecond,
+                                      turnNanos / NS_PER_MS,
+                                      renderNanos / NS_PER_MS,
+                                      ticksPerFrame);
+
+        if(behind)
+            status += " - FALLING BEHIND";
+
+        return status;
+    }
+
+    /**
+     * Returns an updated exponentially weighted moving average
+     *
+     * @param avg       The current average
+     * @param sample    The new measurement
+     * @return          The updated average
+     */
+    private double average(double avg, double sample) {
+
+        // The first measurement seeds the average
+        if(avg == 0)
+            return sample;
+
+        return avg + SMOOTHING * (sample - avg);
+    }
+}
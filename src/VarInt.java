@@ -0,0 +1,95 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Class VarInt
+ *
+ * Encapsulates the basic functionality of variable-length integer encoding:
+ * seven bits per byte, least significant first, with the high bit set on
+ * every byte but the last.  Small values take a single byte.  Signed values
+ * are first zig-zag encoded so that small negative values are also small.
+ *
+ * @author Camron Khan
+ */
+public final class VarInt {
+
+    /************
+     * Constants
+     ************/
+
+    // Greatest number of bytes in an encoded int
+    public static final int MAX_BYTES = 5;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Prevents instances of this class being created
+     */
+    private VarInt() {
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Responsible for writing an int, treated as unsigned
+     *
+     * @param buffer    The buffer, which must have MAX_BYTES remaining
+     * @param value     The value
+     */
+    public static void put(ByteBuffer buffer, int value) {
+
+        while((value & ~0x7F) != 0) {
+            buffer.put((byte)((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte)value);
+    }
+
+    /**
+     * Returns an int read from a buffer
+     *
+     * @param buffer    The buffer
+     * @return          The value, treated as unsigned
+     */
+    public static int get(ByteBuffer buffer) {
+
+        int value = 0;
+        int shift = 0;
+        int b;
+
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0 && shift < 35);
+
+        return value;
+    }
+
+    /**
+     * Returns the zig-zag encoding of a signed value (0, -1, 1, -2, ... map
+     * to 0, 1, 2, 3, ...)
+     *
+     * @param value     The value
+     * @return          The encoding
+     */
+    public static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Returns the signed value of a zig-zag encoding
+     *
+     * @param encoded   The encoding
+     * @return          The value
+     */
+    public static int unZigZag(int encoded) {
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+}
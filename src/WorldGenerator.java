@@ -0,0 +1,203 @@
+/**
+ * Class WorldGenerator
+ *
+ * Encapsulates the basic functionality of a procedural generator for the
+ * initial contents of the environment.
+ *
+ * The food in each node is derived from a hash of the seed and the node's
+ * coordinates, so it does not depend on the order in which nodes are revealed
+ * and is identical across runs with the same seed.  Nothing is stored; the
+ * food for any node may be computed on demand.
+ *
+ * Optionally, the chance of food is shaped by coherent (value) noise so that
+ * food forms clusters of roughly the given size rather than being scattered
+ * evenly.  The overall chance of food is about the same in either case.
+ *
+ * @author Camron Khan
+ */
+public class WorldGenerator {
+
+    /************
+     * Constants
+     ************/
+
+    // Chance, in percent, that a node contains food
+    private static final int FOOD_FREQ = 25;
+
+    // Bounds on the amount of food in a node (inclusive)
+    private static final int FOOD_MIN = 500;
+    private static final int FOOD_MAX = 1000;
+
+    // Scale applied to the cubed noise, chosen so that clustered food is
+    // about as common overall as scattered food
+    private static final double CLUSTER_GAIN = 5.2;
+
+    // Salts distinguishing the independent values drawn for each node
+    private static final long SALT_CHANCE = 0x632BE59BD9B4E019L;
+    private static final long SALT_AMOUNT = 0x8CB92BA72F3D8DD7L;
+    private static final long SALT_NOISE = 0xD1B54A32D192ED03L;
+
+    // Seed from which every value is derived
+    private final long SEED;
+
+    // Size of food clusters in nodes; zero if food is not clustered
+    private final int CLUSTER_SIZE;
+
+
+    /***************
+     * Constructors
+     ***************/
+
+    /**
+     * Creates a generator that scatters food evenly
+     *
+     * @param seed      Seed from which every value is derived
+     */
+    public WorldGenerator(long seed) {
+        this(seed, 0);
+    }
+
+    /**
+     * Creates a generator that clusters food
+     *
+     * @param seed          Seed from which every value is derived
+     * @param clusterSize   Approximate size of food clusters in nodes; zero
+     *                      to scatter food evenly
+     */
+    public WorldGenerator(long seed, int clusterSize) {
+        SEED = seed;
+        CLUSTER_SIZE = Math.max(clusterSize, 0);
+    }
+
+
+    /**********
+     * Methods
+     **********/
+
+    /**
+     * Get the seed from which every value is derived
+     *
+     * @return      The seed
+     */
+    public long getSeed() {
+        return SEED;
+    }
+
+    /**
+     * Get the size of food clusters
+     *
+     * @return      Size of food clusters in nodes; zero if not clustered
+     */
+    public int getClusterSize() {
+        return CLUSTER_SIZE;
+    }
+
+    /**
+     * Returns the amount of food initially present in a node
+     *
+     * @param row   x coordinate
+     * @param col   y coordinate
+     * @return      Amount of food; zero if the node contains none
+     */
+    public int getFood(int row, int col) {
+
+        // Chance of food, in [0, 1)
+        double chance = unit(hash(row, col, SALT_CHANCE));
+
+        // Probability of food at this node; when clustered, the noise is
+        // cubed so that food is dense near its peaks and sparse elsewhere
+        double probability = FOOD_FREQ / 100.0;
+        if(CLUSTER_SIZE > 0) {
+            double n = noise(row, col);
+            probability = Math.min(probability * CLUSTER_GAIN * n * n * n, 1);
+        }
+
+        // No food
+        if(chance >= probability)
+            return 0;
+
+        // Amount between min and max (inclusive)
+        long amount = hash(row, col, SALT_AMOUNT) >>> 1;
+        return FOOD_MIN + (int)(amount % (FOOD_MAX - FOOD_MIN + 1));
+    }
+
+    /**
+     * Returns smooth value noise at a node, interpolated between random values
+     * on a lattice spaced CLUSTER_SIZE nodes apart
+     *
+     * @param row   x coordinate
+     * @param col   y coordinate
+     * @return      Noise in [0, 1)
+     */
+    private double noise(int row, int col) {
+
+        // Lattice cell containing the node, and the position within it
+        int cellRow = Math.floorDiv(row, CLUSTER_SIZE);
+        int cellCol = Math.floorDiv(col, CLUSTER_SIZE);
+        double fx = smooth((double)Math.floorMod(row, CLUSTER_SIZE) / CLUSTER_SIZE);
+        double fy = smooth((double)Math.floorMod(col, CLUSTER_SIZE) / CLUSTER_SIZE);
+
+        // Random values at the four corners of the lattice cell
+        double v00 = unit(hash(cellRow, cellCol, SALT_NOISE));
+        double v10 = unit(hash(cellRow + 1, cellCol, SALT_NOISE));
+        double v01 = unit(hash(cellRow, cellCol + 1, SALT_NOISE));
+        double v11 = unit(hash(cellRow + 1, cellCol + 1, SALT_NOISE));
+
+        // Bilinear interpolation
+        double top = v00 + fx * (v10 - v00);
+        double bottom = v01 + fx * (v11 - v01);
+
+        return top + fy * (bottom - top);
+    }
+
+    /**
+     * Returns the smoothstep of a value, so that noise has no visible creases
+     * along lattice lines
+     *
+     * @param t     Value in [0, 1]
+     * @return      Smoothed value in [0, 1]
+     */
+    private static double smooth(double t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    /**
+     * Returns a well-mixed 64-bit hash of the seed, a position and a salt
+     *
+     * @param row   x coordinate
+     * @param col   y coordinate
+     * @param salt  Salt distinguishing independent values
+     * @return      The hash
+     */
+    private long hash(int row, int col, long salt) {
+
+        long h = SEED ^ salt;
+        h = mix(h + row);
+        h = mix(h + col);
+
+        return h;
+    }
+
+    /**
+     * Returns the SplitMix64 finalizer of a value
+     *
+     * @param z     The value
+     * @return      The mixed value
+     */
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns a hash as a number in [0, 1)
+     *
+     * @param h     The hash
+     * @return      Number in [0, 1)
+     */
+    private static double unit(long h) {
+        return (h >>> 11) * 0x1.0p-53;
+    }
+}
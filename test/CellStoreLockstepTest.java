@@ -0,0 +1,115 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Class CellStoreLockstepTest
+ *
+ * Runs a colony held on the heap and the same colony held in an off-heap
+ * cell store side by side, and checks that every cell is the same after each
+ * turn.  Random numbers are seeded afresh before each turn of each colony, so
+ * both draw the same numbers as long as their states agree.
+ *
+ * @author Camron Khan
+ */
+public class CellStoreLockstepTest {
+
+    /************
+     * Constants
+     ************/
+
+    // Size of the grid
+    private static final int ROWS = 60;
+    private static final int COLS = 60;
+
+    // Ants added to the colony's founders
+    private static final int SCOUTS = 40;
+    private static final int BALAS = 10;
+
+    // Number of turns compared
+    private static final int TURNS = 300;
+
+    // Seed of the random numbers and of the world generator
+    private static final long SEED = 7;
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Test
+    public void heapAndStoreStayIdentical() {
+
+        SimModel heap = create(null);
+        SimModel store = create(new OffHeapCellStore(ROWS, COLS));
+
+        assertSameCells(heap, store, 0);
+
+        for(int turn = 1; turn <= TURNS; turn++) {
+
+            RandomNumber.setSeed(SEED + turn);
+            heap.performActions();
+
+            RandomNumber.setSeed(SEED + turn);
+            store.performActions();
+
+            assertSameCells(heap, store, turn);
+        }
+    }
+
+    /**
+     * Returns a headless colony after a Normal Setup, with scouts to reveal
+     * the grid and balas to hunt in it
+     *
+     * @param cells     Store holding the values of the nodes, or null to
+     *                  hold them in the nodes
+     * @return          The colony
+     */
+    private static SimModel create(CellStore cells) {
+
+        SimModel model = new SimModel(ROWS, COLS, Driver.MS_PER_TURN, Driver.TURNS_PER_DAY, true);
+        if(cells != null)
+            model.setCellStore(cells);
+
+        RandomNumber.setSeed(SEED);
+        model.setWorldGenerator(new WorldGenerator(SEED));
+        model.initSimModel();
+
+        Node nest = model.getQueen().hereNode;
+        for(int i = 0; i < SCOUTS; i++)
+            model.createAnt(model.SCOUT, nest);
+        for(int i = 0; i < BALAS; i++)
+            model.createAnt(model.BALA, nest);
+
+        return model;
+    }
+
+    /**
+     * Responsible for checking that every cell of two colonies is the same
+     *
+     * @param expected  The colony held on the heap
+     * @param actual    The colony held in a cell store
+     * @param turn      Number of turns run, for the failure message
+     */
+    private static void assertSameCells(SimModel expected, SimModel actual, int turn) {
+
+        for(int r = 0; r < ROWS; r++) {
+            for(int c = 0; c < COLS; c++) {
+
+                Node e = expected.getNode(r, c);
+                Node a = actual.getNode(r, c);
+                String where = "turn " + turn + ", node " + e.getPosition();
+
+                assertEquals(where, e.getVisited(), a.getVisited());
+                assertEquals(where, e.getQueen(), a.getQueen());
+                assertEquals(where, e.getNumForager(), a.getNumForager());
+                assertEquals(where, e.getNumScout(), a.getNumScout());
+                assertEquals(where, e.getNumSoldier(), a.getNumSoldier());
+                assertEquals(where, e.getNumBala(), a.getNumBala());
+                assertEquals(where, e.getFoodAmount(), a.getFoodAmount());
+                assertEquals(where, e.getPheromoneLevel(), a.getPheromoneLevel());
+                assertEquals(where, e.getAntsPresent(), a.getAntsPresent());
+            }
+        }
+    }
+}
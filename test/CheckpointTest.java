@@ -0,0 +1,225 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Class CheckpointTest
+ *
+ * Saves a colony part way through a run, restores it into a second model,
+ * and checks that the two agree field by field: counters, random number
+ * state, every ant and every node.  Both are then run on, to check that the
+ * restored colony continues exactly as the original.
+ *
+ * A checkpoint written in the background while turns run must also match,
+ * byte for byte, one written synchronously at the same turn.
+ *
+ * @author Camron Khan
+ */
+public class CheckpointTest {
+
+    /************
+     * Constants
+     ************/
+
+    // Size of the grid
+    private static final int ROWS = 40;
+    private static final int COLS = 40;
+
+    // Turns run before saving, and after restoring
+    private static final int TURNS_BEFORE = 150;
+    private static final int TURNS_AFTER = 100;
+
+    // Seed of the random numbers and of the world generator
+    private static final long SEED = 3;
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Test
+    public void restoreMatchesSavedState() throws IOException {
+
+        SimModel original = create();
+        for(int turn = 0; turn < TURNS_BEFORE; turn++)
+            original.performActions();
+
+        File file = File.createTempFile("checkpoint", ".bin");
+        try {
+            Checkpoint.write(original, file);
+            long state = RandomNumber.getState();
+
+            // Restore into a colony which has run differently
+            SimModel restored = create();
+            for(int turn = 0; turn < 10; turn++)
+                restored.performActions();
+            Checkpoint.read(restored, file);
+
+            assertEquals(state, RandomNumber.getState());
+            assertSameState(original, restored);
+
+            // Both continue from the same random numbers
+            for(int turn = 0; turn < TURNS_AFTER; turn++) {
+                RandomNumber.setSeed(SEED + turn);
+                original.performActions();
+                RandomNumber.setSeed(SEED + turn);
+                restored.performActions();
+            }
+            assertSameState(original, restored);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void backgroundWriteMatchesSynchronousWrite() throws Exception {
+
+        SimModel model = create();
+        for(int turn = 0; turn < TURNS_BEFORE; turn++)
+            model.performActions();
+
+        File expected = File.createTempFile("checkpoint", ".bin");
+        File actual = File.createTempFile("checkpoint", ".bin");
+        try {
+            Checkpoint.write(model, expected);
+
+            // Keep changing ants and nodes until the writer has finished,
+            // so that they are copied before each change
+            CheckpointWriter writer = model.startCheckpoint(actual);
+            assertNotNull(writer);
+            do {
+                model.performActions();
+            }
+            while(!writer.isFinished());
+
+            assertTrue(writer.isSucceeded());
+            assertEquals(TURNS_BEFORE, writer.getTurn());
+            assertArrayEquals(Files.readAllBytes(expected.toPath()),
+                              Files.readAllBytes(actual.toPath()));
+        }
+        finally {
+            expected.delete();
+            actual.delete();
+        }
+    }
+
+    /**
+     * Returns a headless colony after a Normal Setup, with scouts and balas
+     * added so that every kind of ant is saved
+     *
+     * @return      The colony
+     */
+    private static SimModel create() {
+
+        SimModel model = new SimModel(ROWS, COLS, Driver.MS_PER_TURN, Driver.TURNS_PER_DAY, true);
+        RandomNumber.setSeed(SEED);
+        model.setWorldGenerator(new WorldGenerator(SEED));
+        model.initSimModel();
+
+        Node nest = model.getQueen().hereNode;
+        for(int i = 0; i < 20; i++)
+            model.createAnt(model.SCOUT, nest);
+        for(int i = 0; i < 5; i++)
+            model.createAnt(model.BALA, nest);
+
+        return model;
+    }
+
+    /**
+     * Responsible for checking that two colonies agree in every saved field
+     *
+     * @param expected  The colony saved
+     * @param actual    The colony restored
+     */
+    private static void assertSameState(SimModel expected, SimModel actual) {
+
+        assertEquals(expected.getNumTurns(), actual.getNumTurns());
+        assertEquals(expected.getNextAntID(), actual.getNextAntID());
+        assertEquals(expected.isGameOver(), actual.isGameOver());
+
+        // Ants, by type and ID
+        assertSameAnt(expected.getQueen(), actual.getQueen());
+        Integer[] types = {expected.FORAGER, expected.SCOUT, expected.SOLDIER, expected.BALA};
+        for(Integer type : types) {
+
+            HashMap<?, ?> expectedAnts = expected.getAntMap(type);
+            HashMap<?, ?> actualAnts = actual.getAntMap(type);
+
+            assertEquals("ants of type " + type, expectedAnts.keySet(), actualAnts.keySet());
+            for(Object id : expectedAnts.keySet())
+                assertSameAnt((Ant)expectedAnts.get(id), (Ant)actualAnts.get(id));
+        }
+
+        // Nodes
+        for(int r = 0; r < ROWS; r++) {
+            for(int c = 0; c < COLS; c++) {
+
+                Node e = expected.getNode(r, c);
+                Node a = actual.getNode(r, c);
+                String where = "node " + e.getPosition();
+
+                assertEquals(where, e.getVisited(), a.getVisited());
+                assertEquals(where, e.getQueen(), a.getQueen());
+                assertEquals(where, e.getNumForager(), a.getNumForager());
+                assertEquals(where, e.getNumScout(), a.getNumScout());
+                assertEquals(where, e.getNumSoldier(), a.getNumSoldier());
+                assertEquals(where, e.getNumBala(), a.getNumBala());
+                assertEquals(where, e.getFoodAmount(), a.getFoodAmount());
+                assertEquals(where, e.getPheromoneLevel(), a.getPheromoneLevel());
+                assertEquals(where, e.getAntsPresent(), a.getAntsPresent());
+            }
+        }
+    }
+
+    /**
+     * Responsible for checking that two ants agree in every saved field
+     *
+     * @param expected  The ant saved
+     * @param actual    The ant restored
+     */
+    private static void assertSameAnt(Ant expected, Ant actual) {
+
+        assertNotNull("ant " + expected.ID, actual);
+
+        String which = "ant " + expected.ID;
+        assertEquals(which, expected.ID, actual.ID);
+        assertEquals(which, expected.TYPE, actual.TYPE);
+        assertEquals(which, expected.hereNode.getPosition(), actual.hereNode.getPosition());
+        assertEquals(which, expected.age, actual.age);
+
+        if(expected instanceof ForagerAnt) {
+
+            ForagerAnt e = (ForagerAnt)expected;
+            ForagerAnt a = (ForagerAnt)actual;
+
+            assertEquals(which, e.getHasFood(), a.getHasFood());
+            assertEquals(which, positions(e.lastEight), positions(a.lastEight));
+            assertEquals(which, positions(e.moveStack), positions(a.moveStack));
+        }
+    }
+
+    /**
+     * Returns the positions of a list of nodes
+     *
+     * @param nodes     The nodes
+     * @return          Their positions, in order
+     */
+    private static List<String> positions(List<Node> nodes) {
+
+        List<String> positions = new ArrayList<>();
+        for(Node node : nodes)
+            positions.add(node == null ? null : node.getPosition());
+
+        return positions;
+    }
+}
@@ -0,0 +1,119 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+
+/**
+ * Class JournalTest
+ *
+ * Records a run to a journal through the model, keeping a copy of the grid
+ * after each turn, then seeks a replay of the journal forward and backward
+ * across keyframes and checks that every cell matches the copy of the turn
+ * reached.
+ *
+ * @author Camron Khan
+ */
+public class JournalTest {
+
+    /************
+     * Constants
+     ************/
+
+    // Size of the grid
+    private static final int ROWS = 30;
+    private static final int COLS = 30;
+
+    // Turns recorded, and turns between keyframes
+    private static final int TURNS = 45;
+    private static final int INTERVAL = 10;
+
+    // Turns sought in order: forward past several keyframes, backward to
+    // before the current keyframe, within a keyframe's deltas in both
+    // directions, onto keyframes and to either end
+    private static final int[] TARGETS = {3, 27, 44, 12, 0, 31, 30, 29, 20, 45, 19, 45};
+
+    // Seed of the random numbers and of the world generator
+    private static final long SEED = 5;
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Test
+    public void seekMatchesRecordedTurns() throws IOException {
+
+        SimModel model = new SimModel(ROWS, COLS, Driver.MS_PER_TURN, Driver.TURNS_PER_DAY, true);
+        OffHeapCellStore cells = new OffHeapCellStore(ROWS, COLS);
+        model.setCellStore(cells);
+        RandomNumber.setSeed(SEED);
+        model.setWorldGenerator(new WorldGenerator(SEED));
+        model.initSimModel();
+
+        File file = File.createTempFile("journal", ".bin");
+        try {
+
+            // Record each turn through the model, so that the journal holds
+            // only the changes the simulation reports
+            HeapCellStore[] expected = new HeapCellStore[TURNS + 1];
+            model.openJournal(file, INTERVAL);
+            expected[0] = copy(cells);
+            for(int turn = 1; turn <= TURNS; turn++) {
+                model.performActions();
+                expected[turn] = copy(cells);
+            }
+            model.closeJournal();
+
+            JournalReplay replay = new JournalReplay(file);
+            try {
+                assertEquals(0, replay.getFirstTurn());
+                assertEquals(TURNS, replay.getLastTurn());
+
+                for(int target : TARGETS) {
+                    replay.seek(target);
+                    assertEquals(target, replay.getTurn());
+                    assertSameCells(expected[target], replay.getState(), target);
+                }
+            }
+            finally {
+                replay.close();
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Returns a copy of a grid
+     *
+     * @param grid      The grid
+     * @return          The copy
+     */
+    private static HeapCellStore copy(CellStore grid) {
+
+        HeapCellStore copy = new HeapCellStore(ROWS, COLS);
+        for(int cell = 0; cell < ROWS * COLS; cell++) {
+            for(int field = 0; field < CellStore.FIELDS; field++)
+                copy.set(cell, field, grid.get(cell, field));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Responsible for checking that every value of two grids is the same
+     *
+     * @param expected  The grid recorded
+     * @param actual    The grid replayed
+     * @param turn      The turn, for the failure message
+     */
+    private static void assertSameCells(CellStore expected, CellStore actual, int turn) {
+        for(int cell = 0; cell < ROWS * COLS; cell++) {
+            for(int field = 0; field < CellStore.FIELDS; field++)
+                assertEquals("turn " + turn + ", cell " + cell + ", field " + field,
+                             expected.get(cell, field), actual.get(cell, field));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Class NodeTest
+ *
+ * Checks that the node phase fixes the list of visited adjacent nodes for
+ * the turn, for hidden nodes holding ants as well as revealed ones, so that
+ * nodes revealed by scouts later in the turn are not seen until the next.
+ *
+ * @author Camron Khan
+ */
+public class NodeTest {
+
+    /************
+     * Constants
+     ************/
+
+    // Size of the grid
+    private static final int ROWS = 27;
+    private static final int COLS = 27;
+
+    // Seed of the random numbers and of the world generator
+    private static final long SEED = 3;
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Test
+    public void occupiedHiddenNodeKeepsTurnStartNeighbours() {
+
+        SimModel model = create();
+
+        // Place a soldier on a hidden node, as the soldier test does
+        Node hidden = model.getNode(3, 3);
+        assertFalse(hidden.getVisited());
+        model.createAnt(model.SOLDIER, hidden);
+
+        model.nodeHandler();
+
+        // A scout reveals a neighbour after the node phase
+        Node neighbour = model.getNode(3, 4);
+        neighbour.setVisited(neighbour.getPosition(), true);
+
+        assertFalse(hidden.getVisitedAdjacentNodes().contains(neighbour));
+
+        // The next node phase picks it up
+        model.nodeHandler();
+        assertTrue(hidden.getVisitedAdjacentNodes().contains(neighbour));
+    }
+
+    @Test
+    public void revealedNodeKeepsTurnStartNeighbours() {
+
+        SimModel model = create();
+
+        // Find a revealed node with a hidden neighbour
+        Node revealed = null;
+        Node neighbour = null;
+        for(int r = 0; r < ROWS && neighbour == null; r++) {
+            for(int c = 0; c < COLS && neighbour == null; c++) {
+                revealed = model.getNode(r, c);
+                if(revealed.getVisited()) {
+                    for(Node node : revealed.getAdjacentNodes()) {
+                        if(!node.getVisited())
+                            neighbour = node;
+                    }
+                }
+            }
+        }
+
+        model.nodeHandler();
+
+        // A scout reveals the neighbour after the node phase
+        neighbour.setVisited(neighbour.getPosition(), true);
+
+        assertFalse(revealed.getVisitedAdjacentNodes().contains(neighbour));
+
+        model.nodeHandler();
+        assertTrue(revealed.getVisitedAdjacentNodes().contains(neighbour));
+    }
+
+    /**
+     * Returns a headless colony after a Normal Setup
+     *
+     * @return      The colony
+     */
+    private SimModel create() {
+
+        SimModel model = new SimModel(ROWS, COLS, Driver.MS_PER_TURN, Driver.TURNS_PER_DAY, true);
+        RandomNumber.setSeed(SEED);
+        model.setWorldGenerator(new WorldGenerator(SEED));
+        model.initSimModel();
+
+        return model;
+    }
+}
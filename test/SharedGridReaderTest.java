@@ -0,0 +1,104 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Test;
+
+/**
+ * Class SharedGridReaderTest
+ *
+ * Checks that a SharedGridReader copies a layer written by a MappedCellStore,
+ * and gives up rather than spinning when the writer never lets a copy finish
+ * between batches.
+ *
+ * @author Camron Khan
+ */
+public class SharedGridReaderTest {
+
+    /************
+     * Constants
+     ************/
+
+    // Size of the grid; large enough that a copy outlasts many batches
+    private static final int ROWS = 1024;
+    private static final int COLS = 1024;
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Test
+    public void readLayerCopiesBetweenBatches() throws IOException {
+
+        File file = File.createTempFile("shared", ".grid");
+        file.deleteOnExit();
+
+        MappedCellStore store = new MappedCellStore(file, ROWS, COLS);
+        store.beginUpdate();
+        for(int cell = 0; cell < ROWS * COLS; cell++)
+            store.set(cell, CellStore.FOOD, cell % 1000);
+        store.endUpdate(7);
+
+        SharedGridReader reader = new SharedGridReader(file);
+        int[] layer = new int[ROWS * COLS];
+
+        assertEquals(7, reader.readLayer(CellStore.FOOD, layer));
+        for(int cell = 0; cell < ROWS * COLS; cell++)
+            assertEquals(cell % 1000, layer[cell]);
+
+        reader.close();
+        store.close();
+    }
+
+    @Test(timeout = 10000)
+    public void readLayerGivesUpWhileBatchesKeepStarting() throws Exception {
+
+        // The writer must run alongside the reader
+        assumeTrue(Runtime.getRuntime().availableProcessors() > 1);
+
+        File file = File.createTempFile("shared", ".grid");
+        file.deleteOnExit();
+
+        final MappedCellStore store = new MappedCellStore(file, ROWS, COLS);
+        final AtomicBoolean stop = new AtomicBoolean();
+
+        // Start a new batch as soon as each one ends, so the sequence is
+        // even between batches but changes during every copy
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                int turn = 0;
+                while(!stop.get()) {
+                    store.beginUpdate();
+                    store.set(turn % (ROWS * COLS), CellStore.FOOD, turn);
+                    store.endUpdate(++turn);
+                }
+            }
+        });
+        writer.start();
+
+        SharedGridReader reader = new SharedGridReader(file);
+        long turn;
+        try {
+
+            // Wait for the writer to get going
+            while(reader.getTurn() == 0)
+                Thread.yield();
+
+            turn = reader.readLayer(CellStore.FOOD, new int[ROWS * COLS]);
+        }
+        finally {
+            stop.set(true);
+            writer.join();
+        }
+
+        assertEquals(-1, turn);
+
+        reader.close();
+        store.close();
+    }
+
+}
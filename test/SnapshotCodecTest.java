@@ -0,0 +1,198 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Class SnapshotCodecTest
+ *
+ * Checks that snapshots written by SnapshotEncoder are read back unchanged by
+ * SnapshotDecoder, and that VarInt round-trips, including negative values
+ * and values using all 32 bits.
+ *
+ * @author Camron Khan
+ */
+public class SnapshotCodecTest {
+
+    /************
+     * Constants
+     ************/
+
+    // Size of the grid
+    private static final int ROWS = 37;
+    private static final int COLS = 53;
+
+    // Values which use every bit, or are negative
+    private static final int[] EXTREMES = {
+        -1, -2, Integer.MIN_VALUE, Integer.MAX_VALUE, 0x80000001, 0xFFFF0000, 1
+    };
+
+
+    /**********
+     * Methods
+     **********/
+
+    @Test
+    public void varIntRoundTrips() {
+
+        ByteBuffer buffer = ByteBuffer.allocate(VarInt.MAX_BYTES);
+
+        for(int value : EXTREMES) {
+
+            buffer.clear();
+            VarInt.put(buffer, value);
+            buffer.flip();
+            assertEquals(value, VarInt.get(buffer));
+
+            buffer.clear();
+            VarInt.put(buffer, VarInt.zigZag(value));
+            buffer.flip();
+            assertEquals(value, VarInt.unZigZag(VarInt.get(buffer)));
+        }
+    }
+
+    @Test
+    public void keyframeRoundTrips() throws IOException {
+
+        HeapCellStore grid = new HeapCellStore(ROWS, COLS);
+        fill(grid, new Random(1));
+
+        SnapshotEncoder encoder = new SnapshotEncoder(ROWS, COLS);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChannelOutput out = new ChannelOutput(Channels.newChannel(bytes));
+        encoder.writeKeyframe(grid, out);
+        out.flush();
+
+        SnapshotDecoder decoder = new SnapshotDecoder(ROWS, COLS);
+        decoder.readKeyframe(input(bytes));
+
+        assertSameCells(grid, decoder.getState());
+        assertSameCells(grid, encoder.getPrevious());
+        assertTrue(decoder.isReset());
+    }
+
+    @Test
+    public void deltasRoundTrip() throws IOException {
+
+        Random random = new Random(2);
+        HeapCellStore grid = new HeapCellStore(ROWS, COLS);
+        fill(grid, random);
+
+        SnapshotEncoder encoder = new SnapshotEncoder(ROWS, COLS);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ChannelOutput out = new ChannelOutput(Channels.newChannel(bytes));
+        encoder.writeKeyframe(grid, out);
+
+        // Each delta changes a few cells, some to extreme values and some
+        // back to zero
+        int deltas = 20;
+        HeapCellStore[] expected = new HeapCellStore[deltas];
+        for(int d = 0; d < deltas; d++) {
+
+            int[] changed = new int[1 + random.nextInt(40)];
+            int count = 0;
+            for(int cell = random.nextInt(7); cell < ROWS * COLS && count < changed.length; cell += 1 + random.nextInt(90)) {
+                for(int field = 0; field < CellStore.FIELDS; field++) {
+                    if(random.nextInt(3) == 0)
+                        grid.set(cell, field, randomValue(random));
+                }
+                changed[count++] = cell;
+            }
+
+            encoder.writeDelta(grid, changed, count, out);
+            expected[d] = copy(grid);
+        }
+        out.flush();
+
+        SnapshotDecoder decoder = new SnapshotDecoder(ROWS, COLS);
+        ChannelInput in = input(bytes);
+        decoder.readKeyframe(in);
+        for(int d = 0; d < deltas; d++) {
+            decoder.readDelta(in);
+            assertSameCells(expected[d], decoder.getState());
+        }
+    }
+
+    /**
+     * Responsible for setting about a third of the values of a grid, a few of
+     * them to extreme values
+     *
+     * @param grid      The grid
+     * @param random    Source of random numbers
+     */
+    private static void fill(HeapCellStore grid, Random random) {
+        for(int cell = 0; cell < ROWS * COLS; cell++) {
+            for(int field = 0; field < CellStore.FIELDS; field++) {
+                if(random.nextInt(3) == 0)
+                    grid.set(cell, field, randomValue(random));
+            }
+        }
+    }
+
+    /**
+     * Returns a value which is small, extreme or zero
+     *
+     * @param random    Source of random numbers
+     * @return          The value
+     */
+    private static int randomValue(Random random) {
+
+        int kind = random.nextInt(4);
+
+        if(kind == 0)
+            return EXTREMES[random.nextInt(EXTREMES.length)];
+        if(kind == 1)
+            return 0;
+        if(kind == 2)
+            return random.nextInt();
+
+        return random.nextInt(20);
+    }
+
+    /**
+     * Returns a copy of a grid
+     *
+     * @param grid      The grid
+     * @return          The copy
+     */
+    private static HeapCellStore copy(CellStore grid) {
+
+        HeapCellStore copy = new HeapCellStore(ROWS, COLS);
+        for(int cell = 0; cell < ROWS * COLS; cell++) {
+            for(int field = 0; field < CellStore.FIELDS; field++)
+                copy.set(cell, field, grid.get(cell, field));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Returns an input reading back what was written to a stream
+     *
+     * @param bytes     The stream
+     * @return          The input
+     */
+    private static ChannelInput input(ByteArrayOutputStream bytes) {
+        return new ChannelInput(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+    /**
+     * Responsible for checking that every value of two grids is the same
+     *
+     * @param expected  The grid written
+     * @param actual    The grid read
+     */
+    private static void assertSameCells(CellStore expected, CellStore actual) {
+        for(int cell = 0; cell < ROWS * COLS; cell++) {
+            for(int field = 0; field < CellStore.FIELDS; field++)
+                assertEquals("cell " + cell + ", field " + field,
+                             expected.get(cell, field), actual.get(cell, field));
+        }
+    }
+}